@@ -27,12 +27,7 @@ MA 02111-1307, USA
 package edu.wisc.ssec.mcidas;
 
 import static java.lang.Math.PI;
-import static java.lang.Math.asin;
-import static java.lang.Math.atan;
-import static java.lang.Math.cos;
-import static java.lang.Math.sin;
 import static java.lang.Math.sqrt;
-import static java.lang.Math.tan;
 
 /**
  * ABINnav is used to provide {@literal "navigation"} for ABIN image data.
@@ -120,6 +115,32 @@ public class ABINnav extends AREAnav {
         bres = navblock[6];
     }
 
+    /**
+     * Angle between neighbouring image pixels, for fast math.
+     *
+     * @return pixel angle in radians
+     */
+    protected double getPixelAngle() {
+        return Math.min(Math.abs(lfac), Math.abs(cfac)) / bres;
+    }
+
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
+    /**
+     * Get the latitude/longitude of the satellite subpoint.
+     *
+     * @return {@code double[2]} of {lat, lon}
+     */
+    public double[] getSubpoint() {
+        return new double[] {0.0, isEastPositive ? plon : -plon};
+    }
+
     /**
      * Convert satellite lines/elements to latitude/longitude coordinates.
      *
@@ -133,7 +154,25 @@ public class ABINnav extends AREAnav {
      *         latitudes and {@code latlon[indexLon]} are longitudes.
      */
     public double[][] toLatLon(double[][] linele) {
-        final double sub_lon_radians = plon * (PI / 180.0);
+        double[][] latLons = new double[2][linele[indexLine].length];
+        toLatLon(linele, latLons);
+        return latLons;
+    }
+
+    /**
+     * Convert a single satellite image line/element to latitude/longitude.
+     *
+     * @param rlin Image line.
+     * @param rele Image element.
+     * @param lats Array receiving the latitude at {@code latIndex}.
+     * @param latIndex Index into {@code lats}.
+     * @param lons Array receiving the longitude at {@code lonIndex}.
+     * @param lonIndex Index into {@code lons}.
+     */
+    protected void imageToLatLon(double rlin, double rele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex) {
+        final NavMath m = navMath;
 
         double xlin;
         double xele;
@@ -141,10 +180,114 @@ public class ABINnav extends AREAnav {
         double theta_goes;
         double lamda_geos;
         double theta_geos;
-        double cosx;
-        double cosy;
-        double sinx;
-        double siny;
+
+        // start img_to_ll
+
+        // adjust using Base RESolution
+        xlin = (rlin - ((bres - 1) / 2.0)) / bres;
+        xele = (rele - ((bres - 1) / 2.0)) / bres;
+
+        // Intermediate coordinates (coordinates will be radians)
+        theta_goes = xlin * lfac + loff;
+        lamda_goes = xele * cfac + coff;
+
+        // convert GOES to GEOS
+        theta_geos = m.asin(m.sin(theta_goes) * m.cos(lamda_goes));
+        lamda_geos = m.atan(m.tan(lamda_goes) / m.cos(theta_goes));
+
+        // SIN and COS for computations below
+        scanToLatLon(m, m.cos(lamda_geos), m.cos(theta_geos),
+                     m.sin(lamda_geos), m.sin(theta_geos),
+                     lats, latIndex, lons, lonIndex);
+    }
+
+    /**
+     * Convert a grid of satellite image lines/elements to
+     * latitude/longitude.  The GOES scan angles depend on the line alone
+     * and the element alone, so their sines, cosines and tangents are
+     * computed once per line and once per element, and the GEOS angles
+     * are found from them with square roots rather than trigonometry.
+     *
+     * @param lines Image lines.
+     * @param eles Image elements.
+     * @param lats Array receiving the latitudes, row by row.
+     * @param lons Array receiving the longitudes, row by row.
+     */
+    protected void imageGridToLatLon(double[] lines, double[] eles,
+                                     double[] lats, double[] lons) {
+        final NavMath m = navMath;
+
+        // per line: sin and cos of the GOES theta
+        double[] sin_theta = new double[lines.length];
+        double[] cos_theta = new double[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            double xlin = (lines[i] - ((bres - 1) / 2.0)) / bres;
+            double theta_goes = xlin * lfac + loff;
+            sin_theta[i] = m.sin(theta_goes);
+            cos_theta[i] = m.cos(theta_goes);
+        }
+
+        // per element: cos and tan of the GOES lamda
+        double[] cos_lamda = new double[eles.length];
+        double[] tan_lamda = new double[eles.length];
+        for (int j = 0; j < eles.length; j++) {
+            double xele = (eles[j] - ((bres - 1) / 2.0)) / bres;
+            double lamda_goes = xele * cfac + coff;
+            cos_lamda[j] = m.cos(lamda_goes);
+            tan_lamda[j] = m.tan(lamda_goes);
+        }
+
+        int point = 0;
+        for (int i = 0; i < lines.length; i++) {
+            for (int j = 0; j < eles.length; j++, point++) {
+                // theta_geos = asin(u) and lamda_geos = atan(v), both
+                // within +/- 90 degrees so their cosines are positive
+                double u = sin_theta[i] * cos_lamda[j];
+                double v = tan_lamda[j] / cos_theta[i];
+                double cosx = 1.0 / sqrt(1.0 + v * v);
+                scanToLatLon(m, cosx, sqrt(1.0 - u * u), v * cosx, u,
+                             lats, point, lons, point);
+            }
+        }
+    }
+
+    /**
+     * Compute the image elements of a line that see the earth.  With the
+     * GOES angles, sdd reaches 0 where
+     * cos(lamda)^2 (dh^2 cos(theta)^2 - d (FP - 1) sin(theta)^2) = d.
+     *
+     * @param rlin Image line.
+     * @param span Array receiving the first and last image element.
+     * @return true
+     */
+    protected boolean imageLineEarthSpan(double rlin, double[] span) {
+        double xlin = (rlin - ((bres - 1) / 2.0)) / bres;
+        double theta_goes = xlin * lfac + loff;
+        double cos_theta = Math.cos(theta_goes);
+        double sin_theta = Math.sin(theta_goes);
+        double c = dh * dh * cos_theta * cos_theta
+                   - d * (FP - 1.0) * sin_theta * sin_theta;
+        double cos2 = d / c;
+        if (!(c > 0.0) || !(cos2 < 1.0)) {
+            span[0] = Double.NaN;
+            span[1] = Double.NaN;
+            return true;
+        }
+        double lamda_goes = Math.acos(sqrt(cos2));
+        span[0] = ((-lamda_goes - coff) / cfac) * bres + ((bres - 1) / 2.0);
+        span[1] = ((lamda_goes - coff) / cfac) * bres + ((bres - 1) / 2.0);
+        return true;
+    }
+
+    /**
+     * Finish img_to_ll from the sines and cosines of the GEOS scan angles.
+     */
+    private void scanToLatLon(NavMath m, double cosx, double cosy,
+                              double sinx, double siny,
+                              double[] lats, int latIndex,
+                              double[] lons, int lonIndex) {
+        final double sub_lon_radians = plon * (PI / 180.0);
+
         double c1;
         double c2;
         double sd;
@@ -155,96 +298,46 @@ public class ABINnav extends AREAnav {
         double s3;
         double sxy;
 
-        int length = linele[indexLine].length;
-        double[][] latLons = new double[2][length];
-        double[][] imageLineElems = areaCoordToImageCoord(linele);
-
-        for (int point = 0; point < length; point++) {
-            double rlin = imageLineElems[indexLine][point];
-            double rele = imageLineElems[indexEle][point];
-
-            // start img_to_ll
-            xlin = 0.0;
-            xele = 0.0;
-            lamda_goes = 0.0;
-            theta_goes = 0.0;
-            lamda_geos = 0.0;
-            theta_geos = 0.0;
-            cosx = 0.0;
-            cosy = 0.0;
-            sinx = 0.0;
-            siny = 0.0;
-
-            c1 = 0.0;
-            c2 = 0.0;
-            sd = 0.0;
-            sdd = 0.0;
-            sn = 0.0;
-            s1 = 0.0;
-            s2 = 0.0;
-            s3 = 0.0;
-            sxy = 0.0;
-
-            double xlat;
-            double xlon;
-
-            // adjust using Base RESolution
-            xlin = (rlin - ((bres - 1) / 2.0)) / bres;
-            xele = (rele - ((bres - 1) / 2.0)) / bres;
-
-            // Intermediate coordinates (coordinates will be radians)
-            theta_goes = xlin * lfac + loff;
-            lamda_goes = xele * cfac + coff;
-
-            // convert GOES to GEOS
-            theta_geos = asin(sin(theta_goes) * cos(lamda_goes));
-            lamda_geos = atan(tan(lamda_goes) / cos(theta_goes));
-
-            // SIN and COS for computations below
-            cosx = cos(lamda_geos);
-            cosy = cos(theta_geos);
-            sinx = sin(lamda_geos);
-            siny = sin(theta_geos);
-
-            c1 = dh * cosx * cosy * dh * cosx * cosy;
-            c2 = (cosy * cosy + FP * siny * siny) * d;
-
-            sdd = c1 - c2;
-            if ((sdd < 0.0))  {
-                xlat = Double.NaN;
-                xlon = Double.NaN;
-            } else {
-                sd = sqrt(sdd);
-
-                sn = (dh * cosx * cosy - sd) / (cosy * cosy + FP * siny * siny);
-
-                s1 = dh - sn * cosx * cosy;
-                s2 = sn * sinx * cosy;
-                s3 = -(sn * siny);
-
-                sxy = sqrt(s1 * s1 + (s2 * s2));
-                xlon = atan(s2 / s1) + sub_lon_radians;
-
-                xlat = atan(-(FP * s3 / sxy));
-
-                // convert radians to degrees
-                xlon = xlon * (180.0 / PI);
-                xlat = xlat * (180.0 / PI);
-
-                // Longitudes in [-180,180]
-                if ((xlon > 180)) {
-                    xlon = xlon - 360.0;
-                }
-                if ((xlon < -180)) {
-                    xlon = xlon + 360.0;
-                }
-            }
-            // end img_to_ll
+        double xlat;
+        double xlon;
+
+        c1 = dh * cosx * cosy * dh * cosx * cosy;
+        c2 = (cosy * cosy + FP * siny * siny) * d;
+
+        sdd = c1 - c2;
+        if ((sdd < 0.0))  {
+            xlat = Double.NaN;
+            xlon = Double.NaN;
+        } else {
+            sd = sqrt(sdd);
+
+            sn = (dh * cosx * cosy - sd) / (cosy * cosy + FP * siny * siny);
+
+            s1 = dh - sn * cosx * cosy;
+            s2 = sn * sinx * cosy;
+            s3 = -(sn * siny);
+
+            sxy = sqrt(s1 * s1 + (s2 * s2));
+            xlon = m.atan(s2 / s1) + sub_lon_radians;
+
+            xlat = m.atan(-(FP * s3 / sxy));
+
+            // convert radians to degrees
+            xlon = xlon * (180.0 / PI);
+            xlat = xlat * (180.0 / PI);
 
-            latLons[indexLat][point] = xlat;
-            latLons[indexLon][point] = xlon;
+            // Longitudes in [-180,180]
+            if ((xlon > 180)) {
+                xlon = xlon - 360.0;
+            }
+            if ((xlon < -180)) {
+                xlon = xlon + 360.0;
+            }
         }
-        return latLons;
+        // end img_to_ll
+
+        lats[latIndex] = xlat;
+        lons[lonIndex] = xlon;
     }
 
     /**
@@ -259,6 +352,26 @@ public class ABINnav extends AREAnav {
      *         {@literal "file"} rather than {@literal "image"} coordinates.
      */
     public double[][] toLinEle(double[][] latlon) {
+        double[][] lineEles = new double[2][latlon[indexLat].length];
+        toLinEle(latlon, lineEles);
+        return lineEles;
+    }
+
+    /**
+     * Convert a single latitude/longitude to a satellite image line/element.
+     *
+     * @param rlat Latitude.
+     * @param rlon Longitude.
+     * @param lines Array receiving the image line at {@code lineIndex}.
+     * @param lineIndex Index into {@code lines}.
+     * @param eles Array receiving the image element at {@code eleIndex}.
+     * @param eleIndex Index into {@code eles}.
+     */
+    protected void latLonToImage(double rlat, double rlon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex) {
+        final NavMath m = navMath;
+
         final double d_geographic_ssl = plon * deg_to_rad;
 
         double rlin;
@@ -273,66 +386,47 @@ public class ABINnav extends AREAnav {
         double lamda;
         double theta;
 
-        int length = latlon[indexLat].length;
-        double[][] lineEles = new double[2][length];
-
-        for (int point = 0; point < length; point++) {
-            double rlat = latlon[indexLat][point];
-            double rlon = latlon[indexLon][point];
-            if (!isEastPositive) {
-                rlon = -rlon;
-            }
-
-            // start ll_to_img
-            rlin = 0.0;
-            rele = 0.0;
-            d_geographic_lat = 0.0;
-            d_geocentric_lat = 0.0;
-            d_geographic_lon = 0.0;
-            r_earth = 0.0;
-            r_1 = 0.0;
-            r_2 = 0.0;
-            r_3 = 0.0;
-            lamda = 0.0;
-            theta = 0.0;
+        double xlin;
+        double xele;
 
-            double xlin;
-            double xele;
+        if (!isEastPositive) {
+            rlon = -rlon;
+        }
 
-            // Earth (Geographic) Coordinates are converted to Radians
-            d_geographic_lat = rlat * deg_to_rad;
-            d_geographic_lon = rlon * deg_to_rad;
+        // start ll_to_img
 
-            d_geocentric_lat = atan(drpo2 / dreq2 * tan(d_geographic_lat));
+        // Earth (Geographic) Coordinates are converted to Radians
+        d_geographic_lat = rlat * deg_to_rad;
+        d_geographic_lon = rlon * deg_to_rad;
 
-            r_earth = drpo / sqrt(1.0 - (dreq2 - drpo2) / dreq2 * cos(d_geocentric_lat) * cos(d_geocentric_lat));
+        d_geocentric_lat = m.atan(drpo2 / dreq2 * m.tan(d_geographic_lat));
 
-            r_1 = dh - r_earth * cos(d_geocentric_lat) * cos(d_geographic_lon - d_geographic_ssl);
+        r_earth = drpo / sqrt(1.0 - (dreq2 - drpo2) / dreq2 * m.cos(d_geocentric_lat) * m.cos(d_geocentric_lat));
 
-            r_2 = -(r_earth * cos(d_geocentric_lat) * sin(d_geographic_lon - d_geographic_ssl));
+        r_1 = dh - r_earth * m.cos(d_geocentric_lat) * m.cos(d_geographic_lon - d_geographic_ssl);
 
-            r_3 = r_earth * sin(d_geocentric_lat);
+        r_2 = -(r_earth * m.cos(d_geocentric_lat) * m.sin(d_geographic_lon - d_geographic_ssl));
 
-            if ((r_1 > dh))  {
-                xlin = Double.NaN;
-                xele = Double.NaN;
-            } else {
-                lamda = asin(-(r_2 / sqrt(r_1 * r_1 + r_2 * r_2 + r_3 * r_3)));
-                theta = atan(r_3 / r_1);
+        r_3 = r_earth * m.sin(d_geocentric_lat);
 
-                // image line and element
-                rlin = (theta - loff) / lfac;
-                rele = (lamda - coff) / cfac;
+        if ((r_1 > dh))  {
+            xlin = Double.NaN;
+            xele = Double.NaN;
+        } else {
+            lamda = m.asin(-(r_2 / sqrt(r_1 * r_1 + r_2 * r_2 + r_3 * r_3)));
+            theta = m.atan(r_3 / r_1);
 
-                // Adjust using Base RESolution
-                xlin = (rlin * bres) + (bres - 1) / 2.0;
-                xele = (rele * bres) + (bres - 1) / 2.0;
-            }
-            // end of ll_to_img
+            // image line and element
+            rlin = (theta - loff) / lfac;
+            rele = (lamda - coff) / cfac;
 
-            lineEles[indexLine][point] = xlin;
-            lineEles[indexEle][point] = xele;
+            // Adjust using Base RESolution
+            xlin = (rlin * bres) + (bres - 1) / 2.0;
+            xele = (rele * bres) + (bres - 1) / 2.0;
         }
-        return imageCoordToAreaCoord(lineEles, lineEles);
+        // end of ll_to_img
+
+        lines[lineIndex] = xlin;
+        eles[eleIndex] = xele;
     }
 }
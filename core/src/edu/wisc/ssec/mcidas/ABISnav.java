@@ -155,6 +155,15 @@ public class ABISnav extends AREAnav {
     }
   }
 
+  /**
+   * Angle between neighbouring image pixels, for fast math.
+   *
+   * @return pixel angle in radians
+   */
+  protected double getPixelAngle() {
+    return lpsi2 * Math.min(Math.abs(deltax), Math.abs(deltay)) * cdr / 4.0;
+  }
+
   /**
    * converts from satellite coordinates to latitude/longitude
    *
@@ -170,64 +179,158 @@ public class ABISnav extends AREAnav {
    */
   public double[][] toLatLon(double[][] linele) {
 
-    int number = linele[0].length;
-    double[][] latlon = new double[2][number];
-    //  transform line/pixel to geographic coordinates:
-    double imglinele[][] = areaCoordToImageCoord(linele);
-    double xlin, xele, xele2, xlin2, x, y, xr, yr, rs, tanx, tany, val1, val2,
+    double[][] latlon = new double[2][linele[0].length];
+    toLatLon(linele, latlon);
+    return latlon;
+  }
+
+  /**
+   * converts a single point from image coordinates to latitude/longitude
+   *
+   * @param  xlin      image line
+   * @param  xele      image element
+   * @param  lats      array to put the latitude in
+   * @param  latIndex  index into lats
+   * @param  lons      array to put the longitude in
+   * @param  lonIndex  index into lons
+   */
+  protected void imageToLatLon(double xlin, double xele,
+                               double[] lats, int latIndex,
+                               double[] lons, int lonIndex) {
+    final NavMath m = navMath;
+
+    double xele2, xlin2, x, y, xr, yr, rs, tanx, tany, val1, val2,
            yk;
     double vmu, cosrf, sinrf, xt, yt, zt, teta, xfi, xla, ylat, ylon;
 
-    for (int point = 0; point < number; point++) {
-
-      xlin = imglinele[indexLine][point];
-      xele = imglinele[indexEle][point];
-      xele2 = xele / 4.;
-      xlin2 = xlin / 4.;
-      x = (nstep / 2.) - xele2;
-      y = ((nstepfullres - xlin)/4.) - ioff[2] - ioff[1] + ioff[0];
-      xr = x;
-      yr = y;
-      x = xr * lpsi2 * deltax * cdr;
-      y = yr * lpsi2 * deltay * cdr;
-      rs = re + h;
-      tanx = Math.tan(x);
-      tany = Math.tan(y);
-      val1 = 1. + tanx * tanx;
-      val2 = 1. + (tany * tany) * ((1. + a) * (1. + a));
-      yk = rs / re;
-      if ((val1 * val2) > ((yk * yk) / (yk * yk - 1))) {
-        latlon[indexLat][point] = Double.NaN;
-        latlon[indexLon][point] = Double.NaN;
-        continue;
-      }
-      vmu = (rs -
-             (re *
-              (Math.sqrt((yk * yk) -
-                         (yk * yk - 1) * val1 * val2)))) / (val1 * val2);
-      cosrf = Math.cos(rflon * cdr);
-      sinrf = Math.sin(rflon * cdr);
-      xt = (rs * cosrf) + (vmu * (tanx * sinrf - cosrf));
-      yt = (rs * sinrf) - (vmu * (tanx * cosrf + sinrf));
-      zt = vmu * tany / Math.cos(x);
-      teta = Math.asin(zt / rp);
-      xfi = (Math.atan(((Math.tan(teta)) * re) / rp)) * crd;
-      xla = -Math.atan(yt / xt) * crd;
+    xele2 = xele / 4.;
+    xlin2 = xlin / 4.;
+    x = (nstep / 2.) - xele2;
+    y = ((nstepfullres - xlin)/4.) - ioff[2] - ioff[1] + ioff[0];
+    xr = x;
+    yr = y;
+    x = xr * lpsi2 * deltax * cdr;
+    y = yr * lpsi2 * deltay * cdr;
+    rs = re + h;
+    tanx = m.tan(x);
+    tany = m.tan(y);
+    val1 = 1. + tanx * tanx;
+    val2 = 1. + (tany * tany) * ((1. + a) * (1. + a));
+    yk = rs / re;
+    if ((val1 * val2) > ((yk * yk) / (yk * yk - 1))) {
+      lats[latIndex] = Double.NaN;
+      lons[lonIndex] = Double.NaN;
+      return;
+    }
+    vmu = (rs -
+           (re *
+            (Math.sqrt((yk * yk) -
+                       (yk * yk - 1) * val1 * val2)))) / (val1 * val2);
+    cosrf = m.cos(rflon * cdr);
+    sinrf = m.sin(rflon * cdr);
+    xt = (rs * cosrf) + (vmu * (tanx * sinrf - cosrf));
+    yt = (rs * sinrf) - (vmu * (tanx * cosrf + sinrf));
+    zt = vmu * tany / m.cos(x);
+    teta = m.asin(zt / rp);
+    xfi = (m.atan(((m.tan(teta)) * re) / rp)) * crd;
+    xla = -m.atan(yt / xt) * crd;
 //
 //-- CHANGE LONGITUDE FOR CORRECT SUBPOINT
 //
-      xla = xla + sublon;
-      //if (itype == 1) {
-      ylat = xfi;
-      ylon = xla;
-      //call nllxyz(ylat,ylon,xfi,xla,z)
-      //}
-      latlon[indexLat][point] = ylat;
-      latlon[indexLon][point] = -ylon; // McIDAS uses west positive
+    xla = xla + sublon;
+    //if (itype == 1) {
+    ylat = xfi;
+    ylon = xla;
+    //call nllxyz(ylat,ylon,xfi,xla,z)
+    //}
+    lats[latIndex] = ylat;
+    lons[lonIndex] = -ylon; // McIDAS uses west positive
+  }
+
+
+  /** converts a grid of image coordinates to latitude/longitude.
+   * The scan angles depend on the line alone and the element alone,
+   * so their tangents and cosines are computed once per line and
+   * once per element, and tan(asin(w)) is done as w/sqrt(1-w*w).
+   *
+   * @param  lines     image lines
+   * @param  eles      image elements
+   * @param  lats      array to put the latitudes in, row by row
+   * @param  lons      array to put the longitudes in, row by row
+   */
+  protected void imageGridToLatLon(double[] lines, double[] eles,
+                                   double[] lats, double[] lons) {
+    final NavMath m = navMath;
+    double rs = re + h;
+    double yk = rs / re;
+    double cosrf = m.cos(rflon * cdr);
+    double sinrf = m.sin(rflon * cdr);
+
+    // per line
+    double[] tany = new double[lines.length];
+    double[] val2 = new double[lines.length];
+    for (int i = 0; i < lines.length; i++) {
+      double y = ((nstepfullres - lines[i])/4.) - ioff[2] - ioff[1] + ioff[0];
+      tany[i] = m.tan(y * lpsi2 * deltay * cdr);
+      val2[i] = 1. + (tany[i] * tany[i]) * ((1. + a) * (1. + a));
+    }
+
+    // per element
+    double[] tanx = new double[eles.length];
+    double[] cosx = new double[eles.length];
+    for (int j = 0; j < eles.length; j++) {
+      double x = ((nstep / 2.) - eles[j] / 4.) * lpsi2 * deltax * cdr;
+      tanx[j] = m.tan(x);
+      cosx[j] = m.cos(x);
+    }
+
+    int point = 0;
+    for (int i = 0; i < lines.length; i++) {
+      for (int j = 0; j < eles.length; j++, point++) {
+        double val12 = (1. + tanx[j] * tanx[j]) * val2[i];
+        if (val12 > ((yk * yk) / (yk * yk - 1))) {
+          lats[point] = Double.NaN;
+          lons[point] = Double.NaN;
+          continue;
+        }
+        double vmu = (rs - (re * Math.sqrt((yk * yk) -
+                                           (yk * yk - 1) * val12))) / val12;
+        double xt = (rs * cosrf) + (vmu * (tanx[j] * sinrf - cosrf));
+        double yt = (rs * sinrf) - (vmu * (tanx[j] * cosrf + sinrf));
+        double w = vmu * tany[i] / cosx[j] / rp;
+        double xfi = m.atan(w / Math.sqrt(1. - w * w) * re / rp) * crd;
+        double xla = -m.atan(yt / xt) * crd + sublon;
+        lats[point] = xfi;
+        lons[point] = -xla; // McIDAS uses west positive
+      }
     }
-    return latlon;
   }
 
+  /** computes the image elements of a line that see the earth, from
+   * where val1*val2 reaches yk*yk/(yk*yk-1) with val1 = 1 + tan(x)^2.
+   *
+   * @param  xlin      image line
+   * @param  span      array to put the first and last image element in
+   *
+   * @return true
+   */
+  protected boolean imageLineEarthSpan(double xlin, double[] span) {
+    double rs = re + h;
+    double yk = rs / re;
+    double y = ((nstepfullres - xlin)/4.) - ioff[2] - ioff[1] + ioff[0];
+    double tany = Math.tan(y * lpsi2 * deltay * cdr);
+    double val2 = 1. + (tany * tany) * ((1. + a) * (1. + a));
+    double tan2 = (yk * yk) / ((yk * yk - 1) * val2) - 1.;
+    if (!(tan2 > 0.)) {
+      span[0] = Double.NaN;
+      span[1] = Double.NaN;
+      return true;
+    }
+    double x = Math.atan(Math.sqrt(tan2)) / (lpsi2 * deltax * cdr);
+    span[0] = 4. * ((nstep / 2.) - x);
+    span[1] = 4. * ((nstep / 2.) + x);
+    return true;
+  }
 
   /**
    * toLinEle converts lat/long to satellite line/element
@@ -242,70 +345,83 @@ public class ABISnav extends AREAnav {
    */
   public double[][] toLinEle(double[][] latlon) {
 
-    int number = latlon[0].length;
-    double[][] linele = new double[2][number];
-    //  transform line/pixel to geographic coordinates:
-    double x1, y1, xfi, xla, rom, y, r1, r2, rs, reph, rpph, coslo, sinlo,
+    double[][] linele = new double[2][latlon[0].length];
+    toLinEle(latlon, linele);
+    return linele;
+  }
+
+  /**
+   * converts a single lat/long to image coordinates
+   *
+   * @param  x1        latitude
+   * @param  y1        longitude
+   * @param  lines     array to put the image line in
+   * @param  lineIndex index into lines
+   * @param  eles      array to put the image element in
+   * @param  eleIndex  index into eles
+   */
+  protected void latLonToImage(double x1, double y1,
+                               double[] lines, int lineIndex,
+                               double[] eles, int eleIndex) {
+    final NavMath m = navMath;
+
+    double xfi, xla, rom, y, r1, r2, rs, reph, rpph, coslo, sinlo,
            teta, xt, yt;
     double zt, px, py, xr, yr;
 
-    for (int point = 0; point < number; point++) {
-      x1 = latlon[indexLat][point];
-      y1 = latlon[indexLon][point]; // seems to want east postitive
+    // y1 seems to want east postitive
 
-      /*  not used.
-      if(itype == 1) {
-         x=vfi;
-         y=vla;
-         //call nxyzll(x,y,z,x1,y1)
-         y1=-y1;
-      }
-      */
+    /*  not used.
+    if(itype == 1) {
+       x=vfi;
+       y=vla;
+       //call nxyzll(x,y,z,x1,y1)
+       y1=-y1;
+    }
+    */
 //
 //-- CORRECT FOR SUBLON
 //
-      y1 = y1 + sublon;
-      xfi = x1 * cdr;
-      xla = y1 * cdr;
-      rom = (re * rp) /
-            Math.sqrt(rp * rp * Math.cos(xfi) * Math.cos(xfi) +
-                      re * re * Math.sin(xfi) * Math.sin(xfi));
-      y = Math.sqrt(h * h + rom * rom -
-                    2 * h * rom * Math.cos(xfi) * Math.cos(xla));
-      r1 = y * y + rom * rom;
-      r2 = h * h;
-      if (r1 > r2) {
-        linele[indexLine][point] = Double.NaN;
-        linele[indexEle][point] = Double.NaN;
-        continue;
-      }
-      rs = re + h;
-      reph = re;
-      rpph = rp;
-      coslo = Math.cos(rflon * cdr);
-      sinlo = Math.sin(rflon * cdr);
-      teta = Math.atan((rpph / reph) * Math.tan(xfi));
-      xt = reph * Math.cos(teta) * Math.cos(xla);
-      yt = reph * Math.cos(teta) * Math.sin(xla);
-      zt = rpph * Math.sin(teta);
-      px = Math.atan((coslo * (yt - rs * sinlo) -
-                      (xt - rs * coslo) * sinlo) / (sinlo *
-                      (yt - rs * sinlo) + (xt - rs * coslo) * coslo));
-      py = Math.atan(zt *
-                     ((Math.tan(px) * sinlo - coslo) / (xt - rs * coslo)) *
-                     Math.cos(px));
-      px = px * crd;
-      py = py * crd;
-      xr = px / (deltax * lpsi2);
-      yr = py / (deltay * lpsi2);
-      xr = (nstep / 2.) - xr;
-      yr = yr + ioff[2] + ioff[1] - ioff[0];
-      xr = xr * 4;
-      yr = nstepfullres - yr * 4;
-      linele[indexLine][point] = yr;
-      linele[indexEle][point] = xr;
+    y1 = y1 + sublon;
+    xfi = x1 * cdr;
+    xla = y1 * cdr;
+    rom = (re * rp) /
+          Math.sqrt(rp * rp * m.cos(xfi) * m.cos(xfi) +
+                    re * re * m.sin(xfi) * m.sin(xfi));
+    y = Math.sqrt(h * h + rom * rom -
+                  2 * h * rom * m.cos(xfi) * m.cos(xla));
+    r1 = y * y + rom * rom;
+    r2 = h * h;
+    if (r1 > r2) {
+      lines[lineIndex] = Double.NaN;
+      eles[eleIndex] = Double.NaN;
+      return;
     }
-    return imageCoordToAreaCoord(linele, linele);
+    rs = re + h;
+    reph = re;
+    rpph = rp;
+    coslo = m.cos(rflon * cdr);
+    sinlo = m.sin(rflon * cdr);
+    teta = m.atan((rpph / reph) * m.tan(xfi));
+    xt = reph * m.cos(teta) * m.cos(xla);
+    yt = reph * m.cos(teta) * m.sin(xla);
+    zt = rpph * m.sin(teta);
+    px = m.atan((coslo * (yt - rs * sinlo) -
+                    (xt - rs * coslo) * sinlo) / (sinlo *
+                    (yt - rs * sinlo) + (xt - rs * coslo) * coslo));
+    py = m.atan(zt *
+                   ((m.tan(px) * sinlo - coslo) / (xt - rs * coslo)) *
+                   m.cos(px));
+    px = px * crd;
+    py = py * crd;
+    xr = px / (deltax * lpsi2);
+    yr = py / (deltay * lpsi2);
+    xr = (nstep / 2.) - xr;
+    yr = yr + ioff[2] + ioff[1] - ioff[0];
+    xr = xr * 4;
+    yr = nstepfullres - yr * 4;
+    lines[lineIndex] = yr;
+    eles[eleIndex] = xr;
   }
 
   /**
@@ -322,6 +438,7 @@ public class ABISnav extends AREAnav {
    *
    */
   public float[][] toLatLon(float[][] linele) {
+    final NavMath m = navMath;
 
     int number = linele[0].length;
     float[][] latlon = new float[2][number];
@@ -344,8 +461,8 @@ public class ABISnav extends AREAnav {
       x = xr * lpsi2 * deltax * cdr;
       y = yr * lpsi2 * deltay * cdr;
       rs = re + h;
-      tanx = Math.tan(x);
-      tany = Math.tan(y);
+      tanx = m.tan(x);
+      tany = m.tan(y);
       val1 = 1. + tanx * tanx;
       val2 = 1. + (tany * tany) * ((1. + a) * (1. + a));
       yk = rs / re;
@@ -358,14 +475,14 @@ public class ABISnav extends AREAnav {
              (re *
               (Math.sqrt((yk * yk) -
                          (yk * yk - 1) * val1 * val2)))) / (val1 * val2);
-      cosrf = Math.cos(rflon * cdr);
-      sinrf = Math.sin(rflon * cdr);
+      cosrf = m.cos(rflon * cdr);
+      sinrf = m.sin(rflon * cdr);
       xt = (rs * cosrf) + (vmu * (tanx * sinrf - cosrf));
       yt = (rs * sinrf) - (vmu * (tanx * cosrf + sinrf));
-      zt = vmu * tany / Math.cos(x);
-      teta = Math.asin(zt / rp);
-      xfi = (Math.atan(((Math.tan(teta)) * re) / rp)) * crd;
-      xla = -Math.atan(yt / xt) * crd;
+      zt = vmu * tany / m.cos(x);
+      teta = m.asin(zt / rp);
+      xfi = (m.atan(((m.tan(teta)) * re) / rp)) * crd;
+      xla = -m.atan(yt / xt) * crd;
 //
 //-- CHANGE LONGITUDE FOR CORRECT SUBPOINT
 //
@@ -394,6 +511,7 @@ public class ABISnav extends AREAnav {
    *                     (not "image" coordinates);
    */
   public float[][] toLinEle(float[][] latlon) {
+    final NavMath m = navMath;
 
     int number = latlon[0].length;
     float[][] linele = new float[2][number];
@@ -421,10 +539,10 @@ public class ABISnav extends AREAnav {
       xfi = x1 * cdr;
       xla = y1 * cdr;
       rom = (re * rp) /
-            Math.sqrt(rp * rp * Math.cos(xfi) * Math.cos(xfi) +
-                      re * re * Math.sin(xfi) * Math.sin(xfi));
+            Math.sqrt(rp * rp * m.cos(xfi) * m.cos(xfi) +
+                      re * re * m.sin(xfi) * m.sin(xfi));
       y = Math.sqrt(h * h + rom * rom -
-                    2 * h * rom * Math.cos(xfi) * Math.cos(xla));
+                    2 * h * rom * m.cos(xfi) * m.cos(xla));
       r1 = y * y + rom * rom;
       r2 = h * h;
       if (r1 > r2) {
@@ -435,18 +553,18 @@ public class ABISnav extends AREAnav {
       rs = re + h;
       reph = re;
       rpph = rp;
-      coslo = Math.cos(rflon * cdr);
-      sinlo = Math.sin(rflon * cdr);
-      teta = Math.atan((rpph / reph) * Math.tan(xfi));
-      xt = reph * Math.cos(teta) * Math.cos(xla);
-      yt = reph * Math.cos(teta) * Math.sin(xla);
-      zt = rpph * Math.sin(teta);
-      px = Math.atan((coslo * (yt - rs * sinlo) -
+      coslo = m.cos(rflon * cdr);
+      sinlo = m.sin(rflon * cdr);
+      teta = m.atan((rpph / reph) * m.tan(xfi));
+      xt = reph * m.cos(teta) * m.cos(xla);
+      yt = reph * m.cos(teta) * m.sin(xla);
+      zt = rpph * m.sin(teta);
+      px = m.atan((coslo * (yt - rs * sinlo) -
                       (xt - rs * coslo) * sinlo) / (sinlo *
                       (yt - rs * sinlo) + (xt - rs * coslo) * coslo));
-      py = Math.atan(zt *
-                     ((Math.tan(px) * sinlo - coslo) / (xt - rs * coslo)) *
-                     Math.cos(px));
+      py = m.atan(zt *
+                     ((m.tan(px) * sinlo - coslo) / (xt - rs * coslo)) *
+                     m.cos(px));
       px = px * crd;
       py = py * crd;
       xr = px / (deltax * lpsi2);
@@ -30,6 +30,8 @@ import static java.lang.Class.forName;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * The AREAnav is the superclass for AREA file navigation modules.
@@ -75,7 +77,7 @@ import java.lang.reflect.InvocationTargetException;
  * 
  */
 public abstract class AREAnav 
-    implements java.io.Serializable
+    implements java.io.Serializable, Cloneable
 {
     
     static final long serialVersionUID = 2334637524537406773L;
@@ -186,6 +188,33 @@ public abstract class AREAnav
     private float startImageLine = 0.f;
     private float startImageElement = 0.f;
 
+    // error allowed by setFastMath, in image pixels (0 for exact math),
+    // and the math routines used by the navigation code
+    private double fastMathError = 0.0;
+    NavMath navMath = NavMath.EXACT;
+
+    /** share of the fast math error allowed for each approximation.
+        Measured over sample full disks (see NavMath.main), the worst
+        pixel error stays below half the budget up to a share of 1 and
+        exceeds it at 2; half of 1 leaves room for the other areas */
+    private static final double FAST_MATH_SHARE = 0.5;
+
+    /** number of points tried across a line when searching it for the
+        earth (see getEarthSpans) */
+    private static final int SPAN_SAMPLES = 256;
+
+    // nav and aux block contents this was made from (null if the
+    // subclass was constructed directly rather than via makeAreaNav)
+    private int[] navBlock = null;
+    private int[] auxBlock = null;
+
+    /** maximum number of navigations kept by makeAreaNav */
+    private static final int NAV_CACHE_SIZE = 32;
+
+    /** makeAreaNav cache, least recently used entries dropped first */
+    private static final GridSupport.Cache<NavKey, AREAnav> navCache =
+        new GridSupport.Cache<NavKey, AREAnav>(NAV_CACHE_SIZE, false);
+
     /** converts from satellite coordinates to latitude/longitude
      *
      * @param  linele	  array of line/element pairs.  Where 
@@ -252,6 +281,481 @@ public abstract class AREAnav
        return doubleToFloat(toLinEle(floatToDouble(latlon)));
     }
 
+    /** converts from satellite coordinates to latitude/longitude,
+     * writing the results into a caller supplied array.  No arrays
+     * are allocated, so this is suitable for navigating the same
+     * tile over and over.
+     *
+     * @param  linele	  array of line/element pairs.  Where
+     *                     linele[indexLine][] is a 'line' and
+     *                     linele[indexEle][] is an element. These are in
+     *                     'file' coordinates (not "image" coordinates.)
+     *
+     * @param  latlon      output array of lat/long pairs, at least as
+     *                     long as linele.  latlon[indexLat][] gets the
+     *                     latitudes and latlon[indexLon][] the longitudes.
+     *                     May be the same array as linele.
+     */
+    public void toLatLon(double[][] linele, double[][] latlon) {
+        toLatLon(linele, latlon, 0, linele[indexLine].length);
+    }
+
+    /** converts a range of satellite coordinates to latitude/longitude,
+     * writing the results into the same range of a caller supplied array.
+     * The area to image coordinate adjustment is done point by point, so
+     * no intermediate arrays are allocated.
+     *
+     * @param  linele	  array of line/element pairs in 'file'
+     *                     coordinates (not "image" coordinates.)
+     *
+     * @param  latlon      output array of lat/long pairs.
+     *                     May be the same array as linele.
+     *
+     * @param  offset      index of the first point to convert
+     *
+     * @param  length      number of points to convert
+     */
+    public void toLatLon(double[][] linele, double[][] latlon,
+                         int offset, int length) {
+        double[] lines = linele[indexLine];
+        double[] eles = linele[indexEle];
+        double[] lats = latlon[indexLat];
+        double[] lons = latlon[indexLon];
+        for (int point = offset; point < offset + length; point++) {
+            imageToLatLon(areaLineToImageLine(lines[point]),
+                          areaEleToImageEle(eles[point]),
+                          lats, point, lons, point);
+        }
+    }
+
+    /**
+     * toLinEle converts lat/long to satellite line/element, writing
+     * the results into a caller supplied array.  No arrays are allocated.
+     *
+     * @param  latlon	 array of lat/long pairs. Where latlon[indexLat][]
+     *                    are latitudes and latlon[indexLon][] are longitudes.
+     *
+     * @param  linele     output array of line/element pairs, at least as
+     *                    long as latlon.  These are in 'file' coordinates
+     *                    (not "image" coordinates).  May be the same
+     *                    array as latlon.
+     */
+    public void toLinEle(double[][] latlon, double[][] linele) {
+        toLinEle(latlon, linele, 0, latlon[indexLat].length);
+    }
+
+    /**
+     * toLinEle converts a range of lat/long to satellite line/element,
+     * writing the results into the same range of a caller supplied array.
+     * The image to area coordinate adjustment is done point by point, so
+     * no intermediate arrays are allocated.
+     *
+     * @param  latlon	 array of lat/long pairs.
+     *
+     * @param  linele     output array of line/element pairs in 'file'
+     *                    coordinates.  May be the same array as latlon.
+     *
+     * @param  offset     index of the first point to convert
+     *
+     * @param  length     number of points to convert
+     */
+    public void toLinEle(double[][] latlon, double[][] linele,
+                         int offset, int length) {
+        double[] lats = latlon[indexLat];
+        double[] lons = latlon[indexLon];
+        double[] lines = linele[indexLine];
+        double[] eles = linele[indexEle];
+        for (int point = offset; point < offset + length; point++) {
+            latLonToImage(lats[point], lons[point],
+                          lines, point, eles, point);
+            lines[point] = imageLineToAreaLine(lines[point]);
+            eles[point] = imageEleToAreaEle(eles[point]);
+        }
+    }
+
+    /** converts a single satellite coordinate to latitude/longitude.
+     * Intended for probes and cursor readouts; nothing is allocated.
+     *
+     * @param  line       line in 'file' coordinates
+     *
+     * @param  elem       element in 'file' coordinates
+     *
+     * @param  latlon     output array of at least 2 values;
+     *                    latlon[indexLat] gets the latitude and
+     *                    latlon[indexLon] the longitude.
+     */
+    public void toLatLon(double line, double elem, double[] latlon) {
+        imageToLatLon(areaLineToImageLine(line), areaEleToImageEle(elem),
+                      latlon, indexLat, latlon, indexLon);
+    }
+
+    /**
+     * toLinEle converts a single lat/long to satellite line/element.
+     * Intended for probes and station lookups; nothing is allocated.
+     *
+     * @param  lat        latitude
+     *
+     * @param  lon        longitude
+     *
+     * @param  linele     output array of at least 2 values;
+     *                    linele[indexLine] gets the line and
+     *                    linele[indexEle] the element, in 'file'
+     *                    coordinates (not "image" coordinates).
+     */
+    public void toLinEle(double lat, double lon, double[] linele) {
+        latLonToImage(lat, lon, linele, indexLine, linele, indexEle);
+        linele[indexLine] = imageLineToAreaLine(linele[indexLine]);
+        linele[indexEle] = imageEleToAreaEle(linele[indexEle]);
+    }
+
+    /**
+     * Converts a grid of satellite coordinates, every combination of a
+     * set of lines and a set of elements, to latitude/longitude.  For
+     * navigations whose scan angles depend on the line alone and the
+     * element alone, work that depends on just one of them is done once
+     * per line and once per element rather than once per point.  To
+     * navigate a whole image in less memory, call this for bands of
+     * lines at a time.
+     *
+     * @param  lines       lines in 'file' coordinates
+     *
+     * @param  elems       elements in 'file' coordinates
+     *
+     * @param  latlon      output array of lat/long pairs, at least
+     *                     lines.length * elems.length long; the point for
+     *                     lines[i] and elems[j] is at
+     *                     i * elems.length + j.
+     */
+    public void toLatLonGrid(double[] lines, double[] elems,
+                             double[][] latlon)
+    {
+        double[] imageLines = new double[lines.length];
+        double[] imageElems = new double[elems.length];
+        for (int i = 0; i < lines.length; i++) {
+            imageLines[i] = areaLineToImageLine(lines[i]);
+        }
+        for (int j = 0; j < elems.length; j++) {
+            imageElems[j] = areaEleToImageEle(elems[j]);
+        }
+        imageGridToLatLon(imageLines, imageElems,
+                          latlon[indexLat], latlon[indexLon]);
+    }
+
+    /**
+     * Converts a grid of image coordinates to latitude/longitude; the
+     * transform behind {@link #toLatLonGrid}.  For a separable
+     * navigation (see {@link #isSeparable()}) this implementation combines
+     * the latitude and longitude axes, and otherwise converts point by
+     * point with
+     * {@link #imageToLatLon(double, double, double[], int, double[], int)};
+     * navigations with separable scan angles override it.
+     *
+     * @param  lines    image lines
+     * @param  elems    image elements
+     * @param  lats     array to put the latitudes in, row by row
+     * @param  lons     array to put the longitudes in, row by row
+     */
+    protected void imageGridToLatLon(double[] lines, double[] elems,
+                                     double[] lats, double[] lons)
+    {
+        if (isSeparable()) {
+            double[] lonAxis = new double[elems.length];
+            for (int j = 0; j < elems.length; j++) {
+                lonAxis[j] = imageEleToLongitude(elems[j]);
+            }
+            int point = 0;
+            for (int i = 0; i < lines.length; i++) {
+                double lat = imageLineToLatitude(lines[i]);
+                for (int j = 0; j < elems.length; j++, point++) {
+                    double lon = lonAxis[j];
+                    boolean off = Double.isNaN(lat) || Double.isNaN(lon);
+                    lats[point] = off ? Double.NaN : lat;
+                    lons[point] = off ? Double.NaN : lon;
+                }
+            }
+            return;
+        }
+        int point = 0;
+        for (int i = 0; i < lines.length; i++) {
+            for (int j = 0; j < elems.length; j++, point++) {
+                imageToLatLon(lines[i], elems[j], lats, point, lons, point);
+            }
+        }
+    }
+
+    /**
+     * Gets the latitudes of a set of lines, for a separable navigation
+     * (see {@link #isSeparable()}).  Together with
+     * {@link #getLongitudeAxis(double[])} this describes an image in
+     * O(lines + elements) values rather than one lat/lon per pixel.
+     *
+     * @param  lines       lines in 'file' coordinates
+     *
+     * @return latitude of each line, NaN where the line is off the map
+     *
+     * @throws UnsupportedOperationException if the navigation is not
+     *         separable
+     */
+    public double[] getLatitudeAxis(double[] lines)
+    {
+        double[] lats = new double[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            lats[i] = imageLineToLatitude(areaLineToImageLine(lines[i]));
+        }
+        return lats;
+    }
+
+    /**
+     * Gets the longitudes of a set of elements, for a separable
+     * navigation (see {@link #isSeparable()}).
+     *
+     * @param  elems       elements in 'file' coordinates
+     *
+     * @return longitude of each element, NaN where the element is off
+     *         the map
+     *
+     * @throws UnsupportedOperationException if the navigation is not
+     *         separable
+     */
+    public double[] getLongitudeAxis(double[] elems)
+    {
+        double[] lons = new double[elems.length];
+        for (int j = 0; j < elems.length; j++) {
+            lons[j] = imageEleToLongitude(areaEleToImageEle(elems[j]));
+        }
+        return lons;
+    }
+
+    /**
+     * Converts an image line to latitude, for separable navigations.
+     * This implementation throws an exception.
+     *
+     * @param  line     image line
+     *
+     * @return latitude of the line, NaN if off the map
+     */
+    protected double imageLineToLatitude(double line)
+    {
+        throw new UnsupportedOperationException(
+            "Navigation type " + this + " is not separable");
+    }
+
+    /**
+     * Converts an image element to longitude, for separable
+     * navigations.  This implementation throws an exception.
+     *
+     * @param  elem     image element
+     *
+     * @return longitude of the element, NaN if off the map
+     */
+    protected double imageEleToLongitude(double elem)
+    {
+        throw new UnsupportedOperationException(
+            "Navigation type " + this + " is not separable");
+    }
+
+    /**
+     * Finds the elements of each line of an image that navigate to the
+     * earth, as the first and last such element.  The elements between
+     * them are taken to be on the earth too, as they are when the earth
+     * is seen as a disk, so passes over the image can skip space pixels
+     * without navigating them.  Navigations that view the earth disk
+     * compute the span of a line from where its scan meets the earth
+     * ellipsoid; for the others the line is searched.  In both cases the
+     * ends are settled with the point transform, so they agree with
+     * {@link #toLatLon(double, double, double[])}.
+     *
+     * <p>Lines and elements are 'file' coordinates, which should be set
+     * up (see {@link AreaFile#getNavigation()}) such that they are the
+     * indices into the data arrays.</p>
+     *
+     * @param  lines     number of lines in the image
+     *
+     * @param  elements  number of elements in the image
+     *
+     * @return spans[lines]; spans[line] is {first, last} element on the
+     *         earth, or null if the line misses the earth
+     */
+    public int[][] getEarthSpans(int lines, int elements)
+    {
+        int[][] spans = new int[lines][];
+        double[] span = new double[2];
+        double[] latlon = new double[2];
+        int previous = -1;
+
+        for (int line = 0; line < lines; line++) {
+            int seed = -1;
+            int first = -1;
+            int last = -1;
+            if (imageLineEarthSpan(areaLineToImageLine(line), span)) {
+                if (Double.isNaN(span[0]) || Double.isNaN(span[1])) {
+                    previous = -1;
+                    continue;
+                }
+                double ele1 = imageEleToAreaEle(span[0]);
+                double ele2 = imageEleToAreaEle(span[1]);
+                first = (int) Math.max(-1.0,
+                                       Math.ceil(Math.min(ele1, ele2)));
+                last = (int) Math.min(elements,
+                                      Math.floor(Math.max(ele1, ele2)));
+                int mid = (Math.max(first, 0) +
+                           Math.min(last, elements - 1)) / 2;
+                if (first <= last && isOnEarth(line, mid, latlon)) {
+                    seed = mid;
+                }
+            }
+
+            // no span computed, or it was off; search the line
+            if (seed < 0 && previous >= 0 &&
+                    isOnEarth(line, previous, latlon)) {
+                seed = previous;
+            }
+            for (int sample = 0; seed < 0 && sample <= SPAN_SAMPLES;
+                    sample++) {
+                int ele = (int) ((long) sample * (elements - 1) /
+                                 SPAN_SAMPLES);
+                if (isOnEarth(line, ele, latlon)) seed = ele;
+            }
+            if (seed < 0) {
+                previous = -1;
+                continue;
+            }
+
+            first = earthEdge(line, seed, first, -1, elements, latlon);
+            last = earthEdge(line, seed, last, 1, elements, latlon);
+            spans[line] = new int[] {first, last};
+            previous = (first + last) / 2;
+        }
+        return spans;
+    }
+
+    /**
+     * Makes a mask of the pixels of an image that navigate to the earth,
+     * from {@link #getEarthSpans(int, int)}.
+     *
+     * @param  lines     number of lines in the image
+     *
+     * @param  elements  number of elements in the image
+     *
+     * @return mask with bit line * elements + element set for the
+     *         pixels on the earth
+     */
+    public BitSet getEarthMask(int lines, int elements)
+    {
+        BitSet mask = new BitSet(lines * elements);
+        int[][] spans = getEarthSpans(lines, elements);
+        for (int line = 0; line < lines; line++) {
+            if (spans[line] == null) continue;
+            mask.set(line * elements + spans[line][0],
+                     line * elements + spans[line][1] + 1);
+        }
+        return mask;
+    }
+
+    /**
+     * Computes where an image line crosses the earth, for
+     * {@link #getEarthSpans(int, int)}.  The answer need only be close;
+     * the ends are checked against the point transform.  This
+     * implementation computes nothing, so the line is searched instead.
+     *
+     * @param  line     image line
+     * @param  span     array to put the first and last image element on
+     *                  the earth in, both NaN if the line misses the earth
+     *
+     * @return true if the span was computed
+     */
+    protected boolean imageLineEarthSpan(double line, double[] span)
+    {
+        return false;
+    }
+
+    /** whether a file line/element navigates to the earth */
+    private boolean isOnEarth(int line, int elem, double[] latlon)
+    {
+        toLatLon(line, elem, latlon);
+        return !Double.isNaN(latlon[indexLat]) &&
+               !Double.isNaN(latlon[indexLon]);
+    }
+
+    /**
+     * Finds the last element on the earth going from seed, which is on
+     * the earth, in direction step.  guess is checked first; otherwise
+     * the edge is found by bisection.
+     */
+    private int earthEdge(int line, int seed, int guess, int step,
+                          int elements, double[] latlon)
+    {
+        int end = (step < 0) ? 0 : elements - 1;
+        if (isOnEarth(line, end, latlon)) return end;
+        if (guess != end && (guess - seed) * step >= 0 &&
+                guess >= 0 && guess < elements &&
+                isOnEarth(line, guess, latlon) &&
+                !isOnEarth(line, guess + step, latlon)) {
+            return guess;
+        }
+        int on = seed;
+        int off = end;
+        while (Math.abs(off - on) > 1) {
+            int mid = (on + off) / 2;
+            if (isOnEarth(line, mid, latlon)) {
+                on = mid;
+            } else {
+                off = mid;
+            }
+        }
+        return on;
+    }
+
+    /**
+     * Converts a single point in image coordinates to latitude/longitude.
+     * This is the per-point transform behind the array methods that take
+     * an output array; subclasses should override it with their real
+     * math.  This implementation goes back through
+     * {@link #toLatLon(double[][])}, which allocates.
+     *
+     * @param  line     image line
+     * @param  elem     image element
+     * @param  lats     array to put the latitude in
+     * @param  latIndex index into lats
+     * @param  lons     array to put the longitude in
+     * @param  lonIndex index into lons
+     */
+    protected void imageToLatLon(double line, double elem,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex) {
+        double[][] linele = new double[2][1];
+        linele[indexLine][0] = imageLineToAreaLine(line);
+        linele[indexEle][0] = imageEleToAreaEle(elem);
+        double[][] latlon = toLatLon(linele);
+        lats[latIndex] = latlon[indexLat][0];
+        lons[lonIndex] = latlon[indexLon][0];
+    }
+
+    /**
+     * Converts a single latitude/longitude to image coordinates.
+     * This is the per-point transform behind the array methods that take
+     * an output array; subclasses should override it with their real
+     * math.  This implementation goes back through
+     * {@link #toLinEle(double[][])}, which allocates.
+     *
+     * @param  lat       latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double lat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex) {
+        double[][] latlon = new double[2][1];
+        latlon[indexLat][0] = lat;
+        latlon[indexLon][0] = lon;
+        double[][] linele = toLinEle(latlon);
+        lines[lineIndex] = areaLineToImageLine(linele[indexLine][0]);
+        eles[eleIndex] = areaEleToImageEle(linele[indexEle][0]);
+    }
+
     /** 
      * Define the resolution of the image.
      * values range from 1 (highest) to n (lowest). Note
@@ -381,7 +885,69 @@ public abstract class AREAnav
         return isLineFlipped;
     }
 
-    /** Get the lat,lon of the subpoint if available
+    /**
+     * Use faster, approximate trigonometry in the line/element to
+     * latitude/longitude conversions.  The approximations are chosen so
+     * that the position error stays below <code>maxPixelError</code>
+     * image pixels, which is ample for display.  Only the geostationary
+     * navigations support this; others ignore it and stay exact.
+     *
+     * @param  maxPixelError  largest error allowed, in image pixels, or
+     *                        0 to use exact math (the default)
+     *
+     * @return  true if fast math is now in use, false if the navigation
+     *          stays exact
+     */
+    public boolean setFastMath(double maxPixelError)
+    {
+        if (!(maxPixelError >= 0)) {
+            throw new IllegalArgumentException(
+                "Pixel error must not be negative: " + maxPixelError);
+        }
+        double angle = getPixelAngle();
+        fastMathError = maxPixelError;
+        navMath = (angle > 0)
+                  ? NavMath.getInstance(maxPixelError * angle * FAST_MATH_SHARE)
+                  : NavMath.EXACT;
+        return navMath != NavMath.EXACT;
+    }
+
+    /**
+     * Get the error allowed by {@link #setFastMath(double)}.
+     *
+     * @return  largest error allowed, in image pixels, 0 for exact math
+     */
+    public double getFastMath()
+    {
+        return fastMathError;
+    }
+
+    /**
+     * Determine if the navigation is using approximate math.
+     *
+     * @return  true if {@link #setFastMath(double)} is in effect
+     */
+    public boolean isFastMath()
+    {
+        return navMath != NavMath.EXACT;
+    }
+
+    /**
+     * Get the angle between neighbouring image pixels, as seen from the
+     * satellite.  Navigations that support {@link #setFastMath(double)}
+     * override this.
+     *
+     * @return  the smaller of the line and element pixel angles in
+     *          radians, or NaN if not known
+     */
+    protected double getPixelAngle()
+    {
+        return Double.NaN;
+    }
+
+    /** Get the lat,lon of the subpoint if available.  The longitude
+    * has the same sign convention as the navigated longitudes (see
+    * {@link #isEastPositive()}).
     *
     * @return double[2] {lat, lon}
     *
@@ -391,6 +957,17 @@ public abstract class AREAnav
       return new double[] {Double.NaN, Double.NaN};
     }
 
+    /**
+     * Determine if the longitudes of this navigation are positive East
+     * (the default) rather than positive West.
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive()
+    {
+        return true;
+    }
+
 
     /**
      * Get the line offset for flipped coordinates
@@ -402,6 +979,56 @@ public abstract class AREAnav
         return (double) lineOffset;
     }
 
+    /**
+     * Converts a line value from AREA (file) to Image coordinates.
+     *
+     * @param   line  line in AREA coordinates
+     * @return  line in Image coordinates
+     */
+    public double areaLineToImageLine(double line)
+    {
+        // account for flipped coordinates
+        if (isLineFlipped) line = lineOffset - line;
+        return startImageLine + (resLine * (line - startLine)) / magLine;
+    }
+
+    /**
+     * Converts an element value from AREA (file) to Image coordinates.
+     *
+     * @param   elem  element in AREA coordinates
+     * @return  element in Image coordinates
+     */
+    public double areaEleToImageEle(double elem)
+    {
+        return startImageElement +
+               (resElement * (elem - startElement)) / magElement;
+    }
+
+    /**
+     * Converts a line value from Image to AREA (file) coordinates.
+     *
+     * @param   line  line in Image coordinates
+     * @return  line in AREA coordinates
+     */
+    public double imageLineToAreaLine(double line)
+    {
+        line = startLine + (magLine * (line - startImageLine)) / resLine;
+        // account for flipped coordinates
+        return isLineFlipped ? lineOffset - line : line;
+    }
+
+    /**
+     * Converts an element value from Image to AREA (file) coordinates.
+     *
+     * @param   elem  element in Image coordinates
+     * @return  element in AREA coordinates
+     */
+    public double imageEleToAreaEle(double elem)
+    {
+        return startElement +
+               (magElement * (elem - startImageElement)) / resElement;
+    }
+
     /**
      * Converts line/element array values from AREA (file) to Image 
      * coordinates.  Creates new array instead of mucking with input.
@@ -579,8 +1206,35 @@ public abstract class AREAnav
      return (makeAreaNav(navBlock, null) ); 
   }
 
+  /**
+   * Return an AREAnav based on the input nav and aux blocks.  Navigations
+   * are cached by block content, so asking for the same navigation again
+   * (say, for every frame of a loop) does not redo the set up.  Each
+   * call returns its own copy, so the res/mag/start settings may be
+   * changed freely.
+   *
+   * @param navBlock  block to use
+   * @param auxBlock  aux block to use (may be null)
+   * @return corresponding navigation routine.
+   */
   public static AREAnav makeAreaNav(int[] navBlock, int[] auxBlock) 
                        throws McIDASException {
+    NavKey key = new NavKey(navBlock, auxBlock);
+    AREAnav anav = navCache.get(key);
+    if (anav == null) {
+        // build from the key's copies so later changes to the
+        // caller's arrays can't alter the cached navigation
+        anav = createAreaNav(key.navBlock, key.auxBlock);
+        if (anav == null) return null;
+        anav.navBlock = key.navBlock;
+        anav.auxBlock = key.auxBlock;
+        navCache.put(key, anav);
+    }
+    return anav.copy();
+  }
+
+  private static AREAnav createAreaNav(int[] navBlock, int[] auxBlock) 
+                       throws McIDASException {
     AREAnav anav = null;
     //System.out.println("nav = " + McIDASUtil.intBitsToString(navBlock[0]));
     try
@@ -669,21 +1323,47 @@ public abstract class AREAnav
     return anav;
   }
 
+  /**
+   * Returns a copy of this navigation with its own res/mag/start
+   * settings.  The navigation parameters are shared with the copy, so
+   * subclasses that change state while navigating must override this
+   * to give the copy its own.
+   *
+   * @return copy of this navigation
+   */
+  protected AREAnav copy() {
+    try {
+        return (AREAnav) clone();
+    }
+    catch (CloneNotSupportedException excp) {
+        throw new IllegalStateException(excp.toString());
+    }
+  }
+
+  /**
+   * Tells whether this navigation was made by {@link #makeAreaNav}, in
+   * which case {@link #equals(Object)} compares the nav block contents.
+   *
+   * @return true if the nav block is known
+   */
+  boolean hasNavBlock() {
+    return navBlock != null;
+  }
+
   /**
    * Determines whether or not the <code>Object</code> in question is
-   * the same as this <code>AREAnav</code>.   Right now, this returns
-   * false until we can figure out when two navigations are equal.  
-   * Subclasses could override if desired.
+   * the same as this <code>AREAnav</code>.  Two navigations are the
+   * same if they are of the same type, have the same res/mag/start
+   * and fast math settings and were made from the same nav and aux
+   * block contents.  Subclasses could override if desired.
    *
    * @param obj the AREAnav in question
    */
   public boolean equals(Object obj)
   {
     // return false; WLH 13 April 2000, this broke visad.data.mcidas.TestArea
-    if (obj instanceof AREAnav)
+    if (obj instanceof AREAnav && obj.getClass() == getClass())
     {
-        // this should really be done in the subclasses, but that will
-        // have to wait for another day.
         AREAnav nav = (AREAnav) obj;
         return (resLine == nav.resLine &&
                 resElement == nav.resElement &&
@@ -694,7 +1374,10 @@ public abstract class AREAnav
                 startImageLine == nav.startImageLine &&
                 startImageElement == nav.startImageElement &&
                 isLineFlipped == nav.isLineFlipped &&
-                lineOffset == nav.lineOffset);
+                lineOffset == nav.lineOffset &&
+                navMath == nav.navMath &&
+                Arrays.equals(navBlock, nav.navBlock) &&
+                Arrays.equals(auxBlock, nav.auxBlock));
     }
     else
     {
@@ -702,6 +1385,29 @@ public abstract class AREAnav
     }
   }
 
+  /**
+   * Returns a hash code consistent with {@link #equals(Object)}.
+   *
+   * @return hash code for this navigation
+   */
+  public int hashCode()
+  {
+    int hash = getClass().hashCode();
+    hash = 31*hash + Float.floatToIntBits(resLine);
+    hash = 31*hash + Float.floatToIntBits(resElement);
+    hash = 31*hash + Float.floatToIntBits(magLine);
+    hash = 31*hash + Float.floatToIntBits(magElement);
+    hash = 31*hash + Float.floatToIntBits(startLine);
+    hash = 31*hash + Float.floatToIntBits(startElement);
+    hash = 31*hash + Float.floatToIntBits(startImageLine);
+    hash = 31*hash + Float.floatToIntBits(startImageElement);
+    hash = 31*hash + (isLineFlipped ? 1 : 0);
+    hash = 31*hash + Float.floatToIntBits(lineOffset);
+    hash = 31*hash + Arrays.hashCode(navBlock);
+    hash = 31*hash + Arrays.hashCode(auxBlock);
+    return hash;
+  }
+
   /**
    * Return a <code>String</code> representation of this nav module
    * @return wordy string.
@@ -713,6 +1419,18 @@ public abstract class AREAnav
     return className.substring(0,className.indexOf("nav"));
   }
 
+  /**
+   * See if latitude depends on the line alone and longitude on the
+   * element alone, so that {@link #getLatitudeAxis(double[])} and
+   * {@link #getLongitudeAxis(double[])} describe the whole image.  A
+   * point is off the map (NaN) if its line or its element is.
+   * Subclasses can override
+   * @return false
+   */
+  public boolean isSeparable() {
+      return false;
+  }
+
   /**
    * See if we can approximate by a spline.  Subclasses can override
    * @return true
@@ -764,4 +1482,33 @@ public abstract class AREAnav
     }
     return val;
   }
+
+  /**
+   * makeAreaNav cache key: private copies of the nav and aux blocks,
+   * compared by content.
+   */
+  private static final class NavKey {
+
+    final int[] navBlock;
+    final int[] auxBlock;
+    private final int hash;
+
+    NavKey(int[] navBlock, int[] auxBlock) {
+      this.navBlock = navBlock.clone();
+      this.auxBlock = (auxBlock == null) ? null : auxBlock.clone();
+      hash = 31*Arrays.hashCode(this.navBlock) + Arrays.hashCode(this.auxBlock);
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof NavKey)) return false;
+      NavKey key = (NavKey) obj;
+      return hash == key.hash &&
+             Arrays.equals(navBlock, key.navBlock) &&
+             Arrays.equals(auxBlock, key.auxBlock);
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+  }
 }
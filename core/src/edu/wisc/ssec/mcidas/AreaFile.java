@@ -48,6 +48,7 @@ import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -256,6 +257,9 @@ public class AreaFile implements java.io.Serializable {
   /** line prefix length */
   private int linePrefixLength;
 
+  /** line prefixes, read with all the data if the calibrator uses them */
+  private int[][] linePrefixes;
+
   /** position indicator */
   private long position;
 
@@ -295,6 +299,12 @@ public class AreaFile implements java.io.Serializable {
   /** flag for remote data */
   private boolean isRemote = false;
 
+  /** number of image lines calibrated at a time */
+  private static final int LINE_BLOCK = 64;
+
+  /** flag for calibrating blocks of lines in parallel */
+  private boolean parallel = true;
+
   // master of all subsetting paramters
   private class Subset {
 
@@ -851,6 +861,9 @@ public class AreaFile implements java.io.Serializable {
    *
    */
   public int[][][] getData() throws AreaFileException {
+    if (hasReadData && data != null) {
+      return data;
+    }
     data = new int[origNumBands][dir[AD_NUMLINES]][dir[AD_NUMELEMS]];
     return getData(data);
   }
@@ -914,6 +927,25 @@ public class AreaFile implements java.io.Serializable {
     return calType;
   }
 
+  /**
+   * Set whether <code>getFloatData()</code> and
+   * <code>getQuantizedData()</code> calibrate blocks of lines of every
+   * band in parallel.  Calibrators that are not thread safe are always
+   * used by one thread.  The default is <code>true</code>.
+   * @param parallel <code>true</code> to use multiple threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get whether calibration is done in parallel.
+   * @return <code>true</code> if multiple threads are used
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
 
   /**
    * Read the AREA file and return the contents as floats. If the calibration
@@ -933,6 +965,135 @@ public class AreaFile implements java.io.Serializable {
       new float[dir[AD_NUMBANDS]][dir[AD_NUMLINES]][dir[AD_NUMELEMS]];
 
     // create the appropriate calibrator
+    Calibrator calibrator = getDataCalibrator();
+
+    // get all bands
+    if (subset == null) {
+      int[] bands = new int[inData.length];
+      for (int band_idx = 0; band_idx < inData.length; band_idx++) {
+        bands[band_idx] = band_idx + 1;
+      }
+      calibrateBands(calibrator, bands, inData, outData);
+
+      // just subsetted band
+    }
+    else {
+      calibrateBands(calibrator, new int[] {subset.bandNumber}, inData,
+                     outData);
+    }
+
+    return outData;
+  }
+
+  /**
+   * Read the AREA file and return one band of it calibrated as by
+   * <code>getFloatData()</code>.  Only that band is calibrated.
+   *
+   * @param bandIndex index of the band in the array returned by
+   * <code>getFloatData()</code>
+   * @return data[lines][elements] of the band
+   * @throws AreaFileException on error reading data.
+   * @see Calibrator
+   */
+  public float[][] getFloatData(int bandIndex) throws AreaFileException {
+
+    int[][][] inData = getData();
+    if (bandIndex < 0 || bandIndex >= inData.length) {
+      throw new IllegalArgumentException("no band at index " + bandIndex);
+    }
+    int[][] in = inData[bandIndex];
+    float[][] outData =
+      new float[in.length][(in.length > 0) ? in[0].length : 0];
+
+    int band = (subset == null) ? bandIndex + 1 : subset.bandNumber;
+    calibrateBands(getDataCalibrator(), new int[] {band},
+                   new int[][][] {in}, new float[][][] {outData});
+
+    return outData;
+  }
+
+  /**
+   * Read the AREA file and return the contents calibrated as by
+   * <code>getFloatData()</code>, but stored as shorts in half the
+   * memory.  The scale and offset of each band are fitted to its values.
+   *
+   * @return data[band][lines][elements] as described above
+   * @throws AreaFileException on error reading data.
+   * @see QuantizedData
+   */
+  public QuantizedData getQuantizedData() throws AreaFileException {
+    return getQuantizedData(null, null);
+  }
+
+  /**
+   * Read the AREA file and return the contents calibrated as by
+   * <code>getFloatData()</code>, but stored as shorts in half the
+   * memory with the given scale and offset for each band.  Bands are
+   * calibrated one at a time, so the float data of the whole file is
+   * never held.
+   *
+   * @param scales scale of each band, or null to fit each band
+   * @param offsets offset of each band, or null to fit each band
+   * @return data[band][lines][elements] as described above
+   * @throws AreaFileException on error reading data.
+   * @see QuantizedData
+   */
+  public QuantizedData getQuantizedData(float[] scales, float[] offsets)
+          throws AreaFileException {
+
+    if ((scales == null) != (offsets == null)) {
+      throw new IllegalArgumentException(
+        "scales and offsets must both be given or both be null");
+    }
+
+    int[][][] inData = getData();
+    int numBands = inData.length;
+    if (scales != null &&
+        (scales.length < numBands || offsets.length < numBands)) {
+      throw new IllegalArgumentException(
+        "need a scale and offset for every band");
+    }
+    short[][][] outData = new short[numBands][][];
+    float[] bandScales = new float[numBands];
+    float[] bandOffsets = new float[numBands];
+
+    Calibrator calibrator = getDataCalibrator();
+
+    // one band of floats, reused for every band
+    float[][] values = null;
+    for (int band_idx = 0; band_idx < numBands; band_idx++) {
+      int[][] in = inData[band_idx];
+      if (values == null || values.length != in.length) {
+        values = new float[in.length][(in.length > 0) ? in[0].length : 0];
+      }
+      int band = (subset == null) ? band_idx + 1 : subset.bandNumber;
+      calibrateBands(calibrator, new int[] {band}, new int[][][] {in},
+                     new float[][][] {values});
+      if (scales == null) {
+        float[] fit = QuantizedData.fit(values);
+        bandScales[band_idx] = fit[0];
+        bandOffsets[band_idx] = fit[1];
+      }
+      else {
+        bandScales[band_idx] = scales[band_idx];
+        bandOffsets[band_idx] = offsets[band_idx];
+      }
+      outData[band_idx] = QuantizedData.quantize(values,
+        bandScales[band_idx], bandOffsets[band_idx]);
+    }
+
+    return new QuantizedData(outData, bandScales, bandOffsets);
+  }
+
+  /**
+   * Get the calibrator for <code>getFloatData()</code>: one for the
+   * sensor if the data are local and the calibration type set differs
+   * from the type in the file.
+   *
+   * @return the calibrator, or null to return the data as read
+   */
+  private Calibrator getDataCalibrator() {
+
     Calibrator calibrator = null;
 
     int origType =
@@ -950,42 +1111,145 @@ public class AreaFile implements java.io.Serializable {
       }
     }
 
-    // get all bands
-    if (subset == null) {
-      for (int band_idx = 0; band_idx < inData.length; band_idx++) {
-        for (int line = 0; line < inData[0].length; line++) {
-          for (int elem = 0; elem < inData[0][0].length; elem++) {
-            if (calibrator != null) {
-              outData[band_idx][line][elem] =
-                calibrator.calibrate((float)inData[band_idx][line][elem],
-                                     band_idx + 1, calType);
-            }
-            else {
-              outData[band_idx][line][elem] = inData[band_idx][line][elem];
-            }
-          }
+    return calibrator;
+  }
+
+  /**
+   * Calibrate the lines of bands, in blocks of lines that run in
+   * parallel unless <code>setParallel(false)</code> was called or the
+   * calibrator is not thread safe.
+   *
+   * @param calibrator  calibrator, or null to just copy the data
+   * @param bands       band number of each band
+   * @param inData      data[bands][lines][elements] as read
+   * @param outData     data[bands][lines][elements] to put the values in
+   */
+  private void calibrateBands(final Calibrator calibrator, final int[] bands,
+                              final int[][][] inData,
+                              final float[][][] outData) {
+    final int lines = (bands.length > 0) ? inData[0].length : 0;
+    final int blocks = (lines + LINE_BLOCK - 1) / LINE_BLOCK;
+    boolean threadSafe = (calibrator == null || calibrator.isThreadSafe());
+
+    // measure only if someone is listening
+    CalibrationListener[] listeners = CalibratorFactory.getListeners();
+    final boolean measure = (calibrator != null && listeners.length > 0);
+    final AtomicLongArray nanos =
+      measure ? new AtomicLongArray(bands.length) : null;
+    final AtomicLongArray tablePixels =
+      measure ? new AtomicLongArray(bands.length) : null;
+    final CalibrationTable[] tables =
+      measure ? new CalibrationTable[bands.length] : null;
+    if (measure) {
+      for (int band_idx = 0; band_idx < bands.length; band_idx++) {
+        tables[band_idx] = calibrator.getTable(bands[band_idx], calType);
+      }
+    }
+
+    GridSupport.forEach(bands.length * blocks, parallel && threadSafe,
+                        task -> {
+      int band_idx = task / blocks;
+      int first = (task % blocks) * LINE_BLOCK;
+      int last = Math.min(first + LINE_BLOCK, lines);
+      long start = measure ? System.nanoTime() : 0L;
+      calibrateLines(calibrator, bands[band_idx], inData[band_idx],
+                     outData[band_idx], first, last);
+      if (measure) {
+        nanos.addAndGet(band_idx, System.nanoTime() - start);
+        tablePixels.addAndGet(band_idx, countTablePixels(tables[band_idx],
+                              inData[band_idx], first, last));
+      }
+    });
+
+    if (measure) {
+      for (int band_idx = 0; band_idx < bands.length; band_idx++) {
+        long pixels = 0;
+        for (int[] row : inData[band_idx]) {
+          pixels += row.length;
+        }
+        for (CalibrationListener listener : listeners) {
+          listener.bandCalibrated(calibrator.getClass(), bands[band_idx],
+                                  calType, pixels,
+                                  tablePixels.get(band_idx),
+                                  nanos.get(band_idx));
         }
       }
+    }
+  }
 
-      // just subsetted band
+  /**
+   * Count the pixels of some lines whose counts are in a table.
+   *
+   * @param table   the table, or null
+   * @param inData  data[lines][elements] as read
+   * @param first   first line
+   * @param last    line after the last one
+   *
+   * @return number of pixels in the table
+   */
+  private static long countTablePixels(CalibrationTable table,
+                                       int[][] inData, int first, int last) {
+    if (table == null) {
+      return 0;
+    }
+    int size = table.getSize();
+    long count = 0;
+    for (int line = first; line < last; line++) {
+      for (int value : inData[line]) {
+        if (value >= 0 && value < size) count++;
+      }
     }
-    else {
-      for (int line = 0; line < inData[0].length; line++) {
-        for (int elem = 0; elem < inData[0][0].length; elem++) {
-          if (!isRemote && calType != Calibrator.CAL_NONE &&
-              calibrator != null) {
-            outData[0][line][elem] =
-              calibrator.calibrate((float)inData[0][line][elem],
-                                   subset.bandNumber, calType);
-          }
-          else {
-            outData[0][line][elem] = inData[0][line][elem];
-          }
+    return count;
+  }
+
+  /**
+   * Calibrate some lines of a band.
+   *
+   * @param calibrator  calibrator, or null to just copy the data
+   * @param band        band number
+   * @param inData      data[lines][elements] as read
+   * @param outData     data[lines][elements] to put the values in
+   * @param first       first line
+   * @param last        line after the last one
+   */
+  private void calibrateLines(Calibrator calibrator, int band,
+                              int[][] inData, float[][] outData,
+                              int first, int last) {
+    for (int line = first; line < last; line++) {
+      int[] in = inData[line];
+      float[] out = outData[line];
+      if (calibrator != null) {
+        int[] prefix = (linePrefixes == null) ? null : linePrefixes[line];
+        calibrator.calibrate(prefix, in, 0, out, 0, in.length, band,
+                             calType);
+      }
+      else {
+        for (int elem = 0; elem < in.length; elem++) {
+          out[elem] = in[elem];
         }
       }
     }
+  }
 
-    return outData;
+  /**
+   * Get the prefix of every line, read with the data.  Prefixes hold
+   * information about each line, such as the detector that scanned it,
+   * and are passed to the calibrator with each line by
+   * <code>getFloatData()</code>.  They are only kept for sensors whose
+   * calibrator uses them, at present the FY-2 imagers.  Words are in the
+   * byte order of the data.
+   *
+   * @return prefix[lines][words], or null if the lines have no prefix,
+   *         the sensor's calibrator does not use them or only a subset of
+   *         the data was read.  A line that could not be read has a null
+   *         prefix.
+   * @throws AreaFileException on error reading data.
+   */
+  public int[][] getLinePrefixes() throws AreaFileException {
+    if (!hasReadData) {
+      getData();
+    }
+    return linePrefixes;
   }
 
   /**
@@ -1200,6 +1464,23 @@ public class AreaFile implements java.io.Serializable {
     }
   }
 
+  /**
+   * Read a line prefix at the current position.
+   *
+   * @return the prefix words
+   *
+   * @throws IOException
+   */
+  private int[] readLinePrefix() throws IOException {
+    int[] prefix = new int[linePrefixLength / 4];
+    for (int word = 0; word < prefix.length; word++) {
+      int intdata = af.readInt();
+      prefix[word] = flipwords ? flipInt(intdata) : intdata;
+    }
+    af.skipBytes(linePrefixLength - 4 * prefix.length);
+    return prefix;
+  }
+
   /**
    * Read all data including all bands.
    *
@@ -1230,9 +1511,21 @@ public class AreaFile implements java.io.Serializable {
     short shdata;
     int intdata;
 
+    // kept only for calibrators that use them, such as FY-2's
+    boolean keepPrefixes = linePrefixLength > 0 &&
+      CalibratorFactory.usesLinePrefixes(dir[AD_SENSORID]);
+    linePrefixes = keepPrefixes ? new int[numLines][] : null;
+
     for (i = 0; i < numLines; i++) {
 
       try {
+        if (linePrefixes != null) {
+          newPosition = (long)(datLoc + i * lineLength);
+          skipByteCount = (int)(newPosition - position);
+          af.skipBytes(skipByteCount);
+          linePrefixes[i] = readLinePrefix();
+          position = newPosition + linePrefixLength;
+        }
         newPosition = (long)(datLoc + linePrefixLength + i * lineLength);
         skipByteCount = (int)(newPosition - position);
         af.skipBytes(skipByteCount);
@@ -233,12 +233,16 @@ public final class AreaFileFactory {
    * specified defaults:
    * <pre>
    * NAME      DEFAULT
-   * linele  - 0 0 a  Must be used with size.
-   *                  NOTE: only type 'a' is supported at this time
-   * size    - 0 0    Must be used with linele.
-   * mag     - 1 1    Only with linele and size, but not required.
-   * band    - 1      Can be used separately, not required.
-   * unit    - RAW    Calibration type
+   * linele    - 0 0 a  Must be used with size.
+   *                    NOTE: only types 'a' and 'i' are supported
+   * latlon    - none   Lat/lon centre point of a window of the given size.
+   * latlonbox - none   N S W E bounds, in degrees with west longitudes
+   *                    negative; the window just covering the box.
+   *                    Replaces linele and size.
+   * size      - 0 0    Must be used with linele.
+   * mag       - 1 1    Only with linele and size, but not required.
+   * band      - 1      Can be used separately, not required.
+   * unit      - RAW    Calibration type
    * </pre>
    * A file url might look like:
    * <pre>
@@ -290,6 +294,8 @@ public final class AreaFileFactory {
         boolean linele = false;
         boolean size = false;
         boolean mag = false;
+        double[] latlon = null;
+        double[] latlonbox = null;
         int availableLines = numLines;
         int availableEles = numEles;
 
@@ -330,14 +336,37 @@ public final class AreaFileFactory {
             String[] vals = kv[1].split(whtspc);
             startLine = Integer.parseInt(vals[0]);
             startElem = Integer.parseInt(vals[1]);
-            if (vals.length >= 3 && !vals[2].equalsIgnoreCase("a")) {
-              //throw new AddeURLException("Image and earth types are not currenly supported");
+            if (vals.length >= 3 && vals[2].equalsIgnoreCase("i")) {
+              // image coordinates, convert to area (file) coordinates
+              int[] dir = af.getDir();
+              startLine = (startLine - dir[AreaFile.AD_STLINE]) /
+                          dir[AreaFile.AD_LINERES];
+              startElem = (startElem - dir[AreaFile.AD_STELEM]) /
+                          dir[AreaFile.AD_ELEMRES];
+            }
+            else if (vals.length >= 3 && !vals[2].equalsIgnoreCase("a")) {
+              throw new AreaFileException("Unsupported linele type: " +
+                                          vals[2]);
             }
             availableLines -= startLine;
             availableEles -= startElem;
             linele = true;
           }
 
+          if (kv[0].equalsIgnoreCase("latlon")) {
+            String[] vals = kv[1].split(whtspc);
+            latlon = new double[] {Double.parseDouble(vals[0]),
+                                   Double.parseDouble(vals[1])};
+          }
+
+          if (kv[0].equalsIgnoreCase("latlonbox")) {
+            String[] vals = kv[1].split(whtspc);
+            latlonbox = new double[4];
+            for (int j = 0; j < latlonbox.length; j++) {
+              latlonbox[j] = Double.parseDouble(vals[j]);
+            }
+          }
+
           if (kv[0].equalsIgnoreCase("unit")) {
             calType = calStrToInt(kv[1]);
             switch (calType) {
@@ -356,7 +385,57 @@ public final class AreaFileFactory {
 
         }
 
-        if (mag) {
+        // earth locations; these replace any linele
+        if (latlon != null || latlonbox != null) {
+          AREAnav nav = af.getNavigation();
+          if (nav == null) {
+            throw new AreaFileException(
+              "Navigation is needed to subset by latitude/longitude");
+          }
+          int totalLines = af.getAreaDirectory().getLines();
+          int totalEles = af.getAreaDirectory().getElements();
+          int lineStep = Math.max(1, Math.abs(lineMag));
+          int eleStep = Math.max(1, Math.abs(eleMag));
+          int windowLines;
+          int windowEles;
+          if (latlonbox != null) {
+            int[] window = getLineEleWindow(nav, totalLines, totalEles,
+                                            latlonbox[0], latlonbox[1],
+                                            latlonbox[2], latlonbox[3]);
+            if (window == null) {
+              throw new AreaFileException(
+                "Latitude/longitude box is not in the image");
+            }
+            startLine = window[0];
+            windowLines = window[1];
+            startElem = window[2];
+            windowEles = window[3];
+          }
+          else {
+            double[] center = new double[2];
+            nav.toLinEle(latlon[0], latlon[1], center);
+            if (Double.isNaN(center[nav.indexLine]) ||
+                Double.isNaN(center[nav.indexEle])) {
+              throw new AreaFileException(
+                "Latitude/longitude point is not in the image");
+            }
+            windowLines = size ? numLines * lineStep : totalLines;
+            windowEles = size ? numEles * eleStep : totalEles;
+            startLine = (int) Math.round(center[nav.indexLine]) -
+                        windowLines / 2;
+            startElem = (int) Math.round(center[nav.indexEle]) -
+                        windowEles / 2;
+            startLine = Math.max(0, Math.min(startLine, totalLines - 1));
+            startElem = Math.max(0, Math.min(startElem, totalEles - 1));
+          }
+          availableLines = (totalLines - startLine) / lineStep;
+          availableEles = (totalEles - startElem) / eleStep;
+          numLines = Math.min(availableLines,
+                              (windowLines + lineStep - 1) / lineStep);
+          numEles = Math.min(availableEles,
+                             (windowEles + eleStep - 1) / eleStep);
+        }
+        else if (mag) {
           availableLines = availableLines / (Math.abs(lineMag) == 0
                                              ? 1
                                              : Math.abs(lineMag));
@@ -416,6 +495,138 @@ public final class AreaFileFactory {
                         numEles, eleMag, band);
   }
 
+  /**
+   * Find a line/element window of an image that just covers a
+   * latitude/longitude box.  The box may cross the dateline (west &gt;
+   * east).  Both the box edges navigated into the image and the image
+   * pixels navigated to the earth are used, so a box that runs off the
+   * earth's limb or off the image edge is clipped to the part that is
+   * in the image.  The window is padded by one pixel on every side.
+   *
+   * @param nav       navigation of the image, with line and element values
+   *                  that are indices into the data (see
+   *                  {@link AreaFile#getNavigation()})
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   * @param north     northern latitude of the box
+   * @param south     southern latitude of the box
+   * @param west      western longitude of the box (west negative)
+   * @param east      eastern longitude of the box (west negative)
+   *
+   * @return {startLine, numLines, startElem, numEles}, or null if no part
+   *         of the box is in the image
+   */
+  public static int[] getLineEleWindow(AREAnav nav, int lines, int elements,
+                                       double north, double south,
+                                       double west, double east) {
+    if (north < south) {
+      double t = north;
+      north = south;
+      south = t;
+    }
+    if (east - west >= 360.0) {
+      west = -180.0;
+      east = 180.0;
+    }
+    else {
+      west = normalizeLon(west);
+      east = normalizeLon(east);
+      if (east < west) east += 360.0;  // crosses the dateline
+    }
+    int[] bounds = {Integer.MAX_VALUE, Integer.MIN_VALUE,
+                    Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    // box edges and interior, navigated into the image
+    int n = BOX_SAMPLES;
+    double[][] latlon = new double[2][(n + 1) * (n + 1)];
+    int k = 0;
+    for (int i = 0; i <= n; i++) {
+      for (int j = 0; j <= n; j++, k++) {
+        latlon[nav.indexLat][k] = south + (north - south) * i / n;
+        latlon[nav.indexLon][k] = normalizeLon(west + (east - west) * j / n);
+      }
+    }
+    nav.toLinEle(latlon, latlon);
+    for (k = 0; k < latlon[0].length; k++) {
+      addToWindow(bounds, latlon[nav.indexLine][k],
+                  latlon[nav.indexEle][k], 0, lines, elements);
+    }
+
+    // image perimeter and a coarse interior grid, navigated to the earth,
+    // which catches the parts of the box cut off by the image edge or limb
+    int step = Math.max(1, Math.min(lines, elements) / 256);
+    int nl = (lines - 1) / step + 1;
+    int ne = (elements - 1) / step + 1;
+    double[][] points = new double[2][nl * ne + 2 * (lines + elements)];
+    k = 0;
+    for (int i = 0; i < nl; i++) {
+      for (int j = 0; j < ne; j++, k++) {
+        points[nav.indexLine][k] = i * step;
+        points[nav.indexEle][k] = j * step;
+      }
+    }
+    for (int i = 0; i < lines; i++, k += 2) {
+      points[nav.indexLine][k] = i;
+      points[nav.indexEle][k] = 0;
+      points[nav.indexLine][k + 1] = i;
+      points[nav.indexEle][k + 1] = elements - 1;
+    }
+    for (int j = 0; j < elements; j++, k += 2) {
+      points[nav.indexLine][k] = 0;
+      points[nav.indexEle][k] = j;
+      points[nav.indexLine][k + 1] = lines - 1;
+      points[nav.indexEle][k + 1] = j;
+    }
+    double[] line = points[nav.indexLine].clone();
+    double[] ele = points[nav.indexEle].clone();
+    nav.toLatLon(points, points);
+    for (k = 0; k < line.length; k++) {
+      double lat = points[nav.indexLat][k];
+      double lon = normalizeLon(points[nav.indexLon][k]);
+      if (lon < west) lon += 360.0;
+      if (lat >= south && lat <= north && lon <= east) {
+        // interior points stand for the coarse cell around them
+        int pad = (k < nl * ne) ? step : 0;
+        addToWindow(bounds, line[k], ele[k], pad, lines, elements);
+      }
+    }
+
+    if (bounds[0] > bounds[1]) return null;
+    int startLine = Math.max(0, bounds[0] - 1);
+    int endLine = Math.min(lines - 1, bounds[1] + 1);
+    int startElem = Math.max(0, bounds[2] - 1);
+    int endElem = Math.min(elements - 1, bounds[3] + 1);
+    return new int[] {startLine, endLine - startLine + 1,
+                      startElem, endElem - startElem + 1};
+  }
+
+  /** number of divisions of each side of a lat/lon box that are sampled */
+  private static final int BOX_SAMPLES = 64;
+
+  /** longitude in the range [-180, 180) */
+  private static double normalizeLon(double lon) {
+    return lon - 360.0 * Math.floor((lon + 180.0) / 360.0);
+  }
+
+  /**
+   * extend {minLine, maxLine, minEle, maxEle} to include a point and its
+   * padding, if the point is in the image
+   */
+  private static void addToWindow(int[] bounds, double line, double ele,
+                                  int pad, int lines, int elements) {
+    // NaN fails these tests
+    if (!(line > -0.5 && line < lines - 0.5 &&
+          ele > -0.5 && ele < elements - 0.5)) {
+      return;
+    }
+    int l = (int) (line + 0.5);
+    int e = (int) (ele + 0.5);
+    bounds[0] = Math.min(bounds[0], Math.max(0, l - pad));
+    bounds[1] = Math.max(bounds[1], Math.min(lines - 1, l + pad));
+    bounds[2] = Math.min(bounds[2], Math.max(0, e - pad));
+    bounds[3] = Math.max(bounds[3], Math.min(elements - 1, e + pad));
+  }
+
   /**
    * Copy an area file from one place to another
    * @param source  source file or ADDE url
@@ -0,0 +1,102 @@
+//
+// BritTable.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * The temperature of every brightness value, 0 to 255, as given by a
+ * calibrator's <code>convertBritToTemp(int)</code>, for converting whole
+ * brightness images with one lookup per value.  Values are truncated to
+ * an int first, as <code>convertBritToTemp(float[])</code> does, and
+ * those outside 0 to 255 are passed to the calibrator.
+ */
+final class BritTable {
+
+  /** number of brightness values */
+  static final int SIZE = 256;
+
+  private final Calibrator calibrator;
+  private final float[] temps = new float[SIZE];
+
+  /**
+   * Make the table for a calibrator.
+   *
+   * @param calibrator  calibrator whose conversion is tabulated
+   */
+  BritTable(Calibrator calibrator) {
+    this.calibrator = calibrator;
+    for (int brit = 0; brit < SIZE; brit++) {
+      temps[brit] = calibrator.convertBritToTemp(brit);
+    }
+  }
+
+  /**
+   * Convert one brightness value to temperature.
+   *
+   * @param brit  brightness value
+   *
+   * @return the temperature
+   */
+  float toTemp(int brit) {
+    if (brit >= 0 && brit < SIZE) {
+      return temps[brit];
+    }
+    return calibrator.convertBritToTemp(brit);
+  }
+
+  /**
+   * Convert a run of brightness values.  input and output may be the same
+   * array.
+   *
+   * @param input         brightness values
+   * @param inputOffset   index of the first value
+   * @param output        temperatures
+   * @param outputOffset  index for the first temperature
+   * @param length        number of values
+   */
+  void toTemp(float[] input, int inputOffset, float[] output,
+              int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = toTemp((int) input[inputOffset + i]);
+    }
+  }
+
+  /**
+   * Convert a run of unsigned 1 byte brightness values.
+   *
+   * @param input         brightness values
+   * @param inputOffset   index of the first value
+   * @param output        temperatures
+   * @param outputOffset  index for the first temperature
+   * @param length        number of values
+   */
+  void toTemp(byte[] input, int inputOffset, float[] output,
+              int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = temps[input[inputOffset + i] & 0xff];
+    }
+  }
+}
@@ -0,0 +1,73 @@
+//
+// CalibrationListener.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Receives measurements of calibration work, for finding out how much
+ * time calibration takes and which sensors would gain from tables.
+ * Register listeners with
+ * {@link CalibratorFactory#addListener(CalibrationListener)}.  When none
+ * are registered nothing is measured.
+ *
+ * <p>Listeners are called on the thread that did the work, which may be
+ * any thread, so they must be thread safe and should return quickly.
+ * Both methods do nothing by default.</p>
+ */
+public interface CalibrationListener {
+
+  /**
+   * Called when {@link CalibratorFactory} has handed out a calibrator.
+   *
+   * @param sensorId         sensor id asked for
+   * @param calibratorClass  class of the calibrator
+   * @param cacheHit         <code>true</code> if the calibrator was copied
+   *                         from a kept one rather than made
+   * @param nanos            time taken, in nanoseconds
+   */
+  public default void calibratorCreated(int sensorId,
+                                        Class<?> calibratorClass,
+                                        boolean cacheHit, long nanos) {
+  }
+
+  /**
+   * Called when {@link AreaFile} has calibrated a band.
+   *
+   * @param calibratorClass  class of the calibrator
+   * @param band             band number
+   * @param calTypeOut       units calibrated to
+   * @param pixels           number of pixels calibrated
+   * @param tablePixels      number of those whose count was in the
+   *                         calibrator's {@link CalibrationTable}; 0 if it
+   *                         has none
+   * @param nanos            time taken, in nanoseconds, summed over the
+   *                         threads that did the work
+   */
+  public default void bandCalibrated(Class<?> calibratorClass, int band,
+                                     int calTypeOut, long pixels,
+                                     long tablePixels, long nanos) {
+  }
+}
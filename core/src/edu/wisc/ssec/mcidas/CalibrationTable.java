@@ -0,0 +1,308 @@
+//
+// CalibrationTable.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The calibrated value of every integer count of a band, for one
+ * calibration from the calibrator's source type to an output type.  For
+ * sensors whose counts have a small range this turns calibration into a
+ * table lookup.  Since the table is made by calling the calibrator for
+ * every count, chained calibrations, such as RAW to TEMP to BRIT, give
+ * the same values as the calibrator does.  Counts outside the table, and
+ * values that are not whole numbers, are passed to the calibrator.
+ *
+ * <p>A table does not change once made, so it may be used by many
+ * threads at once if its calibrator is thread safe.  Get tables with
+ * {@link Calibrator#getTable(int, int)}, which keeps the ones it makes,
+ * or make one for any calibrator with {@link #compile}.</p>
+ */
+public final class CalibrationTable {
+
+  private final Calibrator calibrator;
+  private final int band;
+  private final int calTypeOut;
+  private final float[] values;
+
+  private CalibrationTable(Calibrator calibrator, int band, int calTypeOut,
+                           float[] values) {
+    this.calibrator = calibrator;
+    this.band = band;
+    this.calTypeOut = calTypeOut;
+    this.values = values;
+  }
+
+  /**
+   * Make a table by calibrating counts 0 to size - 1.  The table keeps
+   * the calibrator for the counts it does not hold, so the calibrator's
+   * source type must not be changed afterwards.
+   *
+   * @param calibrator  calibrator, set to its source type
+   * @param band        channel/band number
+   * @param calTypeOut  units to convert to
+   * @param size        number of counts in the table
+   *
+   * @return the table
+   */
+  public static CalibrationTable compile(Calibrator calibrator, int band,
+                                         int calTypeOut, int size) {
+    float[] values = new float[size];
+    for (int count = 0; count < size; count++) {
+      values[count] = calibrator.calibrate((float) count, band, calTypeOut);
+    }
+    return new CalibrationTable(calibrator, band, calTypeOut, values);
+  }
+
+  /**
+   * Get the number of counts in the table.
+   *
+   * @return counts 0 to getSize() - 1 are looked up
+   */
+  public int getSize() {
+    return values.length;
+  }
+
+  /**
+   * Get the band the table calibrates.
+   *
+   * @return channel/band number
+   */
+  public int getBand() {
+    return band;
+  }
+
+  /**
+   * Get the units the table calibrates to.
+   *
+   * @return one of the types defined in the Calibrator interface
+   */
+  public int getCalType() {
+    return calTypeOut;
+  }
+
+  /**
+   * Calibrate one count.
+   *
+   * @param count  input count
+   *
+   * @return the calibrated value
+   */
+  public float calibrate(int count) {
+    if (count >= 0 && count < values.length) {
+      return values[count];
+    }
+    return calibrator.calibrate((float) count, band, calTypeOut);
+  }
+
+  /**
+   * Calibrate one value.
+   *
+   * @param value  input value
+   *
+   * @return the calibrated value
+   */
+  public float calibrate(float value) {
+    int count = (int) value;
+    if (count == value && count >= 0 && count < values.length) {
+      return values[count];
+    }
+    return calibrator.calibrate(value, band, calTypeOut);
+  }
+
+  /**
+   * Calibrate a run of counts.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values; may not be input
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(int[] input, int inputOffset, float[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = calibrate(input[inputOffset + i]);
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 2 byte counts.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(short[] input, int inputOffset, float[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = calibrate(input[inputOffset + i] & 0xffff);
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 1 byte counts.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(byte[] input, int inputOffset, float[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = calibrate(input[inputOffset + i] & 0xff);
+    }
+  }
+
+  /**
+   * Calibrate a run of counts to whole numbers, see {@link #toShort}.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(int[] input, int inputOffset, short[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = toShort(calibrate(input[inputOffset + i]));
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 2 byte counts to whole numbers, see
+   * {@link #toShort}.  input and output may be the same array.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(short[] input, int inputOffset, short[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        toShort(calibrate(input[inputOffset + i] & 0xffff));
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 1 byte counts to whole numbers, see
+   * {@link #toShort}.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   */
+  public void calibrate(byte[] input, int inputOffset, short[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        toShort(calibrate(input[inputOffset + i] & 0xff));
+    }
+  }
+
+  /**
+   * Convert a calibrated value to a short: rounded to the nearest whole
+   * number and limited to the range of a short, with NaN as 0.  This is
+   * for output types that are whole numbers, like RAW and BRIT.
+   *
+   * @param value  calibrated value
+   *
+   * @return the value as a short
+   */
+  public static short toShort(float value) {
+    // Math.round gives 0 for NaN
+    int rounded = Math.round(value);
+    return (short) Math.max(Short.MIN_VALUE,
+                            Math.min(Short.MAX_VALUE, rounded));
+  }
+
+  /**
+   * Calibrate a run of values.  input and output may be the same array.
+   *
+   * @param input         input values
+   * @param inputOffset   index of the first value
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of values
+   */
+  public void calibrate(float[] input, int inputOffset, float[] output,
+                        int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = calibrate(input[inputOffset + i]);
+    }
+  }
+
+  /**
+   * Tables a calibrator has made, for its getTable method.  Tables are
+   * kept for the source type they were made for.
+   */
+  static final class Cache {
+
+    private final Map<Long, CalibrationTable> tables =
+      new ConcurrentHashMap<Long, CalibrationTable>();
+
+    /**
+     * Get a table, making it if need be.
+     *
+     * @param calibrator  calibrator the table is for
+     * @param calTypeIn   calibrator's source type
+     * @param band        channel/band number
+     * @param calTypeOut  units to convert to
+     * @param size        number of counts in the table
+     *
+     * @return the table
+     */
+    CalibrationTable get(Calibrator calibrator, int calTypeIn, int band,
+                         int calTypeOut, int size) {
+      Long key = Long.valueOf(((calTypeIn & 0xffffL) << 48) |
+                              ((calTypeOut & 0xffffL) << 32) |
+                              (band & 0xffffffffL));
+      CalibrationTable table = tables.get(key);
+      if (table == null) {
+        // made from a private copy, so that setCalType on any of the
+        // calibrators sharing this cache can't change what the table
+        // falls back to; two threads may both make the same table
+        Calibrator owner = calibrator.copy();
+        table = compile((owner != null) ? owner : calibrator, band,
+                        calTypeOut, size);
+        tables.put(key, table);
+      }
+      return table;
+    }
+  }
+}
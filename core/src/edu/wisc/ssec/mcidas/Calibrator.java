@@ -29,6 +29,14 @@ package edu.wisc.ssec.mcidas;
 /**
  * interface for creating Calibrator classes.
  *
+ * <p>A calibrator is set up when it is made and by
+ * <code>setCalType</code> and <code>setIsPreCalibrated</code>.  After
+ * that, a thread safe calibrator (see {@link #isThreadSafe()}) does not
+ * change in the <code>calibrate</code> and <code>convertBritToTemp</code>
+ * methods, so one calibrator may be used by many threads at once, for
+ * example for different bands or frames.  The setup methods must not be
+ * called while another thread is calibrating.</p>
+ *
  * @version 1.2 16 Nov 1998
  * @author Tommy Jasmin, SSEC
  */
@@ -119,6 +127,196 @@ public interface Calibrator {
     int calTypeOut
   );
 
+  /**
+   * Calibrate a run of counts, such as a line from
+   * <code>AreaFile.getData()</code>.  If the calibrator makes tables
+   * (see {@link #getTable}) the counts are looked up, otherwise each
+   * one is calibrated with <code>calibrate(float, int, int)</code>.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(int[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        calibrate((float) input[inputOffset + i], band, calTypeOut);
+    }
+  }
+
+  /**
+   * Calibrate the counts of one image line, given the line's prefix.
+   * Calibrators for sensors whose calibration changes from line to line,
+   * such as the FY-2 visible detectors, read what they need from the
+   * prefix; others calibrate as
+   * {@link #calibrate(int[], int, float[], int, int, int, int)} does.
+   *
+   * @param linePrefix    the line's prefix, as from
+   *                      {@link AreaFile#getLinePrefixes()}, or
+   *                      <code>null</code> if not known
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(int[] linePrefix, int[] input,
+                                int inputOffset, float[] output,
+                                int outputOffset, int length, int band,
+                                int calTypeOut) {
+    calibrate(input, inputOffset, output, outputOffset, length, band,
+              calTypeOut);
+  }
+
+  /**
+   * Calibrate a run of unsigned 2 byte counts, as
+   * {@link #calibrate(int[], int, float[], int, int, int, int)} does.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(short[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        calibrate((float) (input[inputOffset + i] & 0xffff), band,
+                  calTypeOut);
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 1 byte counts, as
+   * {@link #calibrate(int[], int, float[], int, int, int, int)} does.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(byte[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        calibrate((float) (input[inputOffset + i] & 0xff), band,
+                  calTypeOut);
+    }
+  }
+
+  /**
+   * Calibrate a run of counts to whole numbers, for output types like
+   * RAW and BRIT; values are converted with
+   * {@link CalibrationTable#toShort}.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(int[] input, int inputOffset,
+                                short[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = CalibrationTable.toShort(
+        calibrate((float) input[inputOffset + i], band, calTypeOut));
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 2 byte counts to whole numbers, as
+   * {@link #calibrate(int[], int, short[], int, int, int, int)} does.
+   * input and output may be the same array.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(short[] input, int inputOffset,
+                                short[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = CalibrationTable.toShort(
+        calibrate((float) (input[inputOffset + i] & 0xffff), band,
+                  calTypeOut));
+    }
+  }
+
+  /**
+   * Calibrate a run of unsigned 1 byte counts to whole numbers, as
+   * {@link #calibrate(int[], int, short[], int, int, int, int)} does.
+   *
+   * @param input         input counts
+   * @param inputOffset   index of the first count
+   * @param output        calibrated values
+   * @param outputOffset  index for the first calibrated value
+   * @param length        number of counts
+   * @param band          channel/band number
+   * @param calTypeOut    units to convert to
+   */
+  public default void calibrate(byte[] input, int inputOffset,
+                                short[] output, int outputOffset,
+                                int length, int band, int calTypeOut) {
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(input, inputOffset, output, outputOffset, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = CalibrationTable.toShort(
+        calibrate((float) (input[inputOffset + i] & 0xff), band,
+                  calTypeOut));
+    }
+  }
+
   public int[] calibratedList (
           int band,
           boolean isPreCal
@@ -136,9 +334,91 @@ public interface Calibrator {
           float[] inputData
   );
 
+  /**
+   * Convert a run of brightness values to temperatures into an output
+   * buffer, as {@link #convertBritToTemp(float[])} does.  input and
+   * output may be the same array.  The calibrators in this package look
+   * the values up in a table of the 256 brightness values.
+   *
+   * @param input         brightness values
+   * @param inputOffset   index of the first value
+   * @param output        temperatures
+   * @param outputOffset  index for the first temperature
+   * @param length        number of values
+   */
+  public default void convertBritToTemp(float[] input, int inputOffset,
+                                        float[] output, int outputOffset,
+                                        int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        convertBritToTemp((int) input[inputOffset + i]);
+    }
+  }
+
+  /**
+   * Convert a run of unsigned 1 byte brightness values, such as 8 bit
+   * images, to temperatures.
+   *
+   * @param input         brightness values
+   * @param inputOffset   index of the first value
+   * @param output        temperatures
+   * @param outputOffset  index for the first temperature
+   * @param length        number of values
+   */
+  public default void convertBritToTemp(byte[] input, int inputOffset,
+                                        float[] output, int outputOffset,
+                                        int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] =
+        convertBritToTemp(input[inputOffset + i] & 0xff);
+    }
+  }
+
   public boolean getIsPreCalibrated();
 
   public void setIsPreCalibrated(
           boolean isPreCalibrated
   );
+
+  /**
+   * Get a table of the calibrated values of every count of a band, from
+   * the current source type.  Calibrators for sensors with a small range
+   * of counts make the table when first asked for and keep it; a table
+   * got after <code>setCalType</code> is for the new source type.
+   *
+   * @param band        channel/band number
+   * @param calTypeOut  units to convert to
+   *
+   * @return the table, or <code>null</code> if this calibrator does not
+   *         make tables
+   */
+  public default CalibrationTable getTable(int band, int calTypeOut) {
+    return null;
+  }
+
+  /**
+   * Get a copy of this calibrator with its own cal type settings, so
+   * that <code>setCalType</code> on either does not affect the other.
+   * {@link CalibratorFactory} keeps the calibrators it makes and hands
+   * out copies of them; calibrators that can not be copied are made
+   * again for every caller.
+   *
+   * @return the copy, or <code>null</code> if this calibrator can not be
+   *         copied
+   */
+  public default Calibrator copy() {
+    return null;
+  }
+
+  /**
+   * Whether this calibrator follows the thread safety contract in the
+   * class description.  Calibrators that do not say so are assumed to
+   * keep state between calls, and must be used by one thread at a time.
+   *
+   * @return <code>true</code> if the calibrate methods may be called by
+   *         several threads at once
+   */
+  public default boolean isThreadSafe() {
+    return false;
+  }
 }
@@ -51,7 +51,10 @@ public class CalibratorDefault implements Calibrator {
   // public static final int CAL_MAX  = 5;
 
   // var to store current cal type
-  protected static int curCalType = 0;
+  protected int curCalType = 0;
+
+  // brightness to temperature table, made when first needed
+  private volatile BritTable britTable;
 
   public boolean isPreCalibrated = false;
   /**
@@ -107,9 +110,15 @@ public class CalibratorDefault implements Calibrator {
     // create the output data buffer
     float[] outputData = new float[inputData.length];
 
-    // just call the other calibrate routine for each data point
-    for (int i = 0; i < inputData.length; i++) {
-      outputData[i] = calibrate(inputData[i], band, calTypeOut);
+    // look up each data point if there is a table, otherwise just call
+    // the other calibrate routine for each data point
+    CalibrationTable table = getTable(band, calTypeOut);
+    if (table != null) {
+      table.calibrate(inputData, 0, outputData, 0, inputData.length);
+    } else {
+      for (int i = 0; i < inputData.length; i++) {
+        outputData[i] = calibrate(inputData[i], band, calTypeOut);
+      }
     }
 
     // return the calibrated buffer
@@ -213,16 +222,37 @@ public class CalibratorDefault implements Calibrator {
     // create the output data buffer
     float[] outputData = new float[inputData.length];
 
-    // just call the other calibrate routine for each data point
-    for (int i = 0; i < inputData.length; i++) {
-      outputData[i] = convertBritToTemp((int) inputData[i]);
-    }
+    // look up each data point
+    getBritTable().toTemp(inputData, 0, outputData, 0, inputData.length);
 
     // return the calibrated buffer
     return outputData;
 
   }
 
+  public void convertBritToTemp(float[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length) {
+    getBritTable().toTemp(input, inputOffset, output, outputOffset, length);
+  }
+
+  public void convertBritToTemp(byte[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length) {
+    getBritTable().toTemp(input, inputOffset, output, outputOffset, length);
+  }
+
+  /** get the brightness table, making it if need be */
+  private BritTable getBritTable() {
+    BritTable table = britTable;
+    if (table == null) {
+      // two threads may both make it; they make the same table
+      table = new BritTable(this);
+      britTable = table;
+    }
+    return table;
+  }
+
   /**
    *
    * return isPrecalibrated value
@@ -240,4 +270,14 @@ public class CalibratorDefault implements Calibrator {
   public void setIsPreCalibrated(boolean isPrecalibrated){
     this.isPreCalibrated = isPrecalibrated;
   }
+
+  /**
+   *
+   * the default calibrator keeps no state between calls, so is thread
+   * safe.
+   *
+   */
+  public boolean isThreadSafe() {
+    return true;
+  }
 }
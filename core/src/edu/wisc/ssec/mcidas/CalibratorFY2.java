@@ -32,9 +32,9 @@ import java.io.IOException;
  *
  */
 
-public class CalibratorFY2 extends CalibratorDefault implements Calibrator {
+public class CalibratorFY2 extends CalibratorDefault
+    implements Calibrator, Cloneable {
 
-	private boolean isVis = false;
     /** 
      * Current cal type as set by <code>setCalType</code>
      */
@@ -46,10 +46,12 @@ public class CalibratorFY2 extends CalibratorDefault implements Calibrator {
     private static final int VIS_BAND_OFFSET = 192;
     private int[][] albedoFromRaw = new int[numFY2Bands][256];
     private int[][] britFromAlbedo = new int[numFY2Bands][256];
-    private int[] tempTable = new int[1024];
-    private int[] radTable = new int[1024];
-    private int[] britTable = new int[1024];
-    private int lastBand = -1;
+    // IR tables for bands 2 to numFY2Bands, made with the calibrator
+    private int[][] tempTable = new int[numFY2Bands - 1][];
+    private int[][] radTable = new int[numFY2Bands - 1][];
+    private int[][] britTable = new int[numFY2Bands - 1][];
+    // tables made by getTable
+    private final CalibrationTable.Cache tables = new CalibrationTable.Cache();
 	
 	public CalibratorFY2(int[] prefix, int[] areaDir, int[] calBlock)
 			throws IOException {
@@ -84,6 +86,55 @@ public class CalibratorFY2 extends CalibratorDefault implements Calibrator {
                 albedoFromRaw[i][j + 3] = (int) Math.round(albedo * 100.0f);
 			}
 		}
+
+		// IR tables, made here rather than as bands are asked for so
+		// that calibrate does not change the calibrator
+		for (int band = 2; band <= numFY2Bands; band++) {
+			int irOffset = calBlock[(band - 2) * 2 + 8] / 4;
+			if (irOffset < 0 || irOffset >= calBlock.length) {
+				// no calibration for the band; its values come out 0, as
+				// for units the calibrator does not know
+				int[] none = new int[1024];
+				tempTable[band - 2] = none;
+				radTable[band - 2] = none;
+				britTable[band - 2] = none;
+				continue;
+			}
+			int[] temps = new int[1024];
+			int[] rads = new int[1024];
+			int[] brits = new int[1024];
+			for (int i = 0; i < 1024; i++) {
+				float temperature = calBlock[irOffset] / 1000.0f;
+				float radiance = tempToRad(temperature, band);
+				temps[i] = Math.round(temperature * 100.f);
+				rads[i] = Math.round(radiance * 1000.f);
+				if (temperature >= 242.0f) {
+					brits[i] = Math.max(660 - (int) (2 * temperature), 0);
+				} else {
+					brits[i] = Math.min(418 - (int) (temperature), 255);
+				}
+			}
+			tempTable[band - 2] = temps;
+			radTable[band - 2] = rads;
+			britTable[band - 2] = brits;
+		}
+	}
+
+	/**
+	 * 
+	 * returns a copy of this calibrator with its own cal type settings.
+	 * The tables are shared with the copy.
+	 * 
+	 */
+
+	public Calibrator copy() {
+		// not CalibratorFY2, which here names the Calibrator member class
+		try {
+			return (Calibrator) clone();
+		}
+		catch (CloneNotSupportedException excp) {
+			throw new IllegalStateException(excp.toString());
+		}
 	}
 
 	public int[] calibratedList( final int band, final boolean isPreCal ) {
@@ -115,70 +166,30 @@ public class CalibratorFY2 extends CalibratorDefault implements Calibrator {
 	@Override
 	public float calibrate(float inVal, int band, int calTypeOut) {
 		
-		int detector = 0;
-		int irOffset = 0;
-		float radiance = 0.0f;
-		float temperature = 0.0f;
 		float outVal = 0.0f;
 		
 		// first set the vis-or-ir flag
-		if (band == 1) {
-			isVis = true;
-		} else {
-			isVis = false;
-		}
-		
-		if (isVis) {
-			// read the detector number from line prefix
-			detector = 1;
-			for (int i = 0; i < numFY2Bands; i++) {
-				if (visDetectorId[i] == prefix[1]) {
-					detector = i + 1;
-				}
-			}
-		}
-		
-		// for IR data, we will generate new tables when the band changes
-		if (! isVis) {
-			if (band != lastBand) {
-				irOffset = calBlock[(band - 2) * 2 + 8] / 4;
-				for (int i = 0; i < 1024; i++) {
-					temperature = calBlock[irOffset] / 1000.0f;
-					radiance = tempToRad(temperature, band);
-					tempTable[i] = Math.round(temperature * 100.f);
-					radTable[i] = Math.round(radiance * 1000.f);
-					if (temperature >= 242.0f) {
-						britTable[i] = Math.max(660 - (int) (2 * temperature), 0);
-					} else {
-						britTable[i] = Math.min(418 - (int) (temperature), 255);
-					}
-				}
-			}
-		}
-		
-		// update last band seen
-		lastBand = band;
+		boolean isVis = (band == 1);
 		
 		// finally, do the calibration
 		if (calTypeOut == curCalType) {
 			outVal = inVal;
 		} else {
 			if (isVis) {
-				if (calTypeOut == Calibrator.CAL_ALB) {
-					outVal = albedoFromRaw[detector][(int) inVal];
-				}
-				if (calTypeOut == Calibrator.CAL_BRIT) {
-					outVal = britFromAlbedo[detector][(int) inVal];
+				// read the detector number from line prefix
+				int[] visTable = getVisTable(getDetector(prefix), calTypeOut);
+				if (visTable != null) {
+					outVal = visTable[(int) inVal];
 				}
 			} else {
 				if (calTypeOut == Calibrator.CAL_RAD) {
-					outVal = radTable[(int) inVal];
+					outVal = radTable[band - 2][(int) inVal];
 				}
 				if (calTypeOut == Calibrator.CAL_TEMP) {
-					outVal = tempTable[(int) inVal];
+					outVal = tempTable[band - 2][(int) inVal];
 				}
 				if (calTypeOut == Calibrator.CAL_BRIT) {
-					outVal = britTable[(int) inVal];
+					outVal = britTable[band - 2][(int) inVal];
 				}
 			}
 		}
@@ -186,7 +197,115 @@ public class CalibratorFY2 extends CalibratorDefault implements Calibrator {
 		return outVal;
 		
 	}
+
+	/**
+	 * 
+	 * calibrate the counts of one image line, reading the visible
+	 * detector from the line's prefix once for the whole line
+	 * 
+	 * @param linePrefix
+	 *            the line's prefix, or null to use the prefix given to
+	 *            the constructor
+	 * @param input
+	 *            input counts
+	 * @param inputOffset
+	 *            index of the first count
+	 * @param output
+	 *            calibrated values
+	 * @param outputOffset
+	 *            index for the first calibrated value
+	 * @param length
+	 *            number of counts
+	 * @param band
+	 *            channel/band number
+	 * @param calTypeOut
+	 *            units to convert to
+	 * 
+	 */
+
+	public void calibrate(int[] linePrefix, int[] input, int inputOffset,
+			float[] output, int outputOffset, int length, int band,
+			int calTypeOut) {
+		if (band != 1 || calBlock == null || calTypeOut == curCalType) {
+			calibrate(input, inputOffset, output, outputOffset, length,
+			          band, calTypeOut);
+			return;
+		}
+		int[] visTable = getVisTable(
+			getDetector((linePrefix != null) ? linePrefix : prefix),
+			calTypeOut);
+		for (int i = 0; i < length; i++) {
+			output[outputOffset + i] = (visTable != null)
+				? visTable[input[inputOffset + i]] : 0.0f;
+		}
+	}
+
+	/**
+	 * 
+	 * get the visible detector of a line from its prefix
+	 * 
+	 * @param linePrefix
+	 *            the line's prefix
+	 * 
+	 * @return index of the detector's tables; the first detector if
+	 *         the prefix does not name one
+	 * 
+	 */
+
+	private int getDetector(int[] linePrefix) {
+		if (linePrefix != null && linePrefix.length > 1) {
+			for (int i = 0; i < visDetectorId.length; i++) {
+				if (visDetectorId[i] == linePrefix[1]) {
+					return i;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 
+	 * get a visible detector's table of calibrated values of every count
+	 * 
+	 * @param detector
+	 *            index of the detector's tables
+	 * @param calTypeOut
+	 *            units to convert to
+	 * 
+	 * @return the table, or null if the units are not ALB or BRIT
+	 * 
+	 */
+
+	private int[] getVisTable(int detector, int calTypeOut) {
+		if (calTypeOut == Calibrator.CAL_ALB) {
+			return albedoFromRaw[detector];
+		}
+		if (calTypeOut == Calibrator.CAL_BRIT) {
+			return britFromAlbedo[detector];
+		}
+		return null;
+	}
 	
+	/**
+	 * 
+	 * get a table of the calibrated values of every count of a band;
+	 * visible counts are 8 bits and IR counts 10 bits.
+	 * 
+	 * @param band
+	 *            channel/band number
+	 * @param calTypeOut
+	 *            units to convert to
+	 * 
+	 */
+
+	public CalibrationTable getTable(int band, int calTypeOut) {
+		if (calBlock == null) {
+			return null;
+		}
+		return tables.get(this, curCalType, band, calTypeOut,
+		                  (band == 1) ? 256 : 1024);
+	}
+
 	/**
 	 * 
 	 * calibrate from temperature to radiance
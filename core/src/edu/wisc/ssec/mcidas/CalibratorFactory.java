@@ -26,16 +26,82 @@ MA 02111-1307, USA
 
 package edu.wisc.ssec.mcidas;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * Utility class for creating <code>Calibrator</code> instances.
  * 
+ * <p>Calibrators are kept for the most recently used sensor, source type
+ * and cal block combinations, so that frames with the same cal block do
+ * not parse it again.  Every call returns its own copy, made with
+ * {@link Calibrator#copy()}, which can have its cal type settings changed,
+ * but which shares the coefficients and the compiled
+ * {@link CalibrationTable}s of the kept calibrator.  Calibrators that can
+ * not be copied are not kept.</p>
+ * 
+ * <p>Calibration work done by this class and by <code>AreaFile</code> is
+ * reported to the {@link CalibrationListener}s added here.</p>
+ * 
  * @author Bruce Flynn, SSEC
  * @version $Id: CalibratorFactory.java,v 1.7 2009-05-06 18:45:53 rickk Exp $
  */
 public final class CalibratorFactory {
 
+	/** maximum number of calibrators kept by getCalibrator */
+	private static final int CACHE_SIZE = 16;
+
+	/** getCalibrator cache, least recently used entries dropped first */
+	private static final GridSupport.Cache<Key, Calibrator> cache =
+		new GridSupport.Cache<Key, Calibrator>(CACHE_SIZE, false);
+
+	/** registered listeners; replaced, never changed, when one is added */
+	private static volatile CalibrationListener[] listeners =
+		new CalibrationListener[0];
+
 	/** Disallow instatiantion. */
 	private CalibratorFactory() {}
+
+	/**
+	 * Add a listener for measurements of calibration work.
+	 * @param listener listener to add
+	 */
+	public static void addListener(CalibrationListener listener) {
+		synchronized (CalibratorFactory.class) {
+			CalibrationListener[] added =
+				Arrays.copyOf(listeners, listeners.length + 1);
+			added[listeners.length] = listener;
+			listeners = added;
+		}
+	}
+
+	/**
+	 * Remove a listener added by <code>addListener</code>.
+	 * @param listener listener to remove
+	 */
+	public static void removeListener(CalibrationListener listener) {
+		synchronized (CalibratorFactory.class) {
+			for (int i = 0; i < listeners.length; i++) {
+				if (listeners[i] == listener) {
+					CalibrationListener[] removed =
+						new CalibrationListener[listeners.length - 1];
+					System.arraycopy(listeners, 0, removed, 0, i);
+					System.arraycopy(listeners, i + 1, removed, i,
+					                 removed.length - i);
+					listeners = removed;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the registered listeners.  The array must not be modified.
+	 * @return listeners, empty if there are none
+	 */
+	static CalibrationListener[] getListeners() {
+		return listeners;
+	}
 	
     /**
      * Get an appropriate <code>Calibrator</code> for the sensor id provided.
@@ -64,7 +130,9 @@ public final class CalibratorFactory {
      * @param srcType the source data type from the directory block
      * @param cal Calibration block used to initialize the 
      *        <code>Calibrator</code>
-     * @return initialized <code>Calibrator</code>.
+     * @return initialized <code>Calibrator</code>, a copy of a kept one if
+     *         the same sensor, source type and cal block were asked for
+     *         before.
      * @throws CalibratorException on an error initializing the object or if the
      *         sensor is unknown.
      */
@@ -72,6 +140,41 @@ public final class CalibratorFactory {
 			final int id, final int srcType, final int[] cal) 
 		throws CalibratorException {
 		
+		CalibrationListener[] listening = listeners;
+		long start = (listening.length > 0) ? System.nanoTime() : 0L;
+
+		Key key = new Key(id, srcType, cal);
+		Calibrator calibrator = cache.get(key);
+		boolean cacheHit = (calibrator != null);
+		if (cacheHit) {
+			calibrator = calibrator.copy();
+		}
+		else {
+			// made outside the lock; two threads may both make the same one
+			calibrator = createCalibrator(id, cal);
+			calibrator.setCalType(srcType);
+			// only calibrators that can be copied are kept
+			Calibrator copy = calibrator.copy();
+			if (copy != null) {
+				cache.put(key, calibrator);
+				calibrator = copy;
+			}
+		}
+
+		if (listening.length > 0) {
+			long nanos = System.nanoTime() - start;
+			for (CalibrationListener listener : listening) {
+				listener.calibratorCreated(id, calibrator.getClass(), cacheHit,
+				                           nanos);
+			}
+		}
+		return calibrator;
+	}
+
+	/** make a new calibrator for a sensor, parsing the cal block */
+	private static Calibrator createCalibrator(final int id, final int[] cal)
+		throws CalibratorException {
+
 		Calibrator calibrator = null;
 	    switch (id) {
 	      
@@ -79,49 +182,57 @@ public final class CalibratorFactory {
 		  case Calibrator.SENSOR_MSG9_IMGR:
 		  case Calibrator.SENSOR_MSG10_IMGR:
 	    	  calibrator = new CalibratorMsg(cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 	        
 	      case Calibrator.SENSOR_GOES8_IMGR:
 	      case Calibrator.SENSOR_GOES8_SNDR:
 	    	  calibrator = new CalibratorGvarG8(id, cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 	    	  
 	      case Calibrator.SENSOR_GOES9_IMGR:
 	      case Calibrator.SENSOR_GOES9_SNDR:
 	    	  calibrator = new CalibratorGvarG9(id, cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 	    	  
 	      case Calibrator.SENSOR_GOES10_IMGR:
 	      case Calibrator.SENSOR_GOES10_SNDR:
 	    	  calibrator = new CalibratorGvarG10(id, cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 	    	  
 	      case Calibrator.SENSOR_GOES12_IMGR:
 	      case Calibrator.SENSOR_GOES12_SNDR:
 	    	  calibrator = new CalibratorGvarG12(id, cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 	    	  
 	      case Calibrator.SENSOR_GOES13_IMGR:
 	      case Calibrator.SENSOR_GOES13_SNDR:
 	    	  calibrator = new CalibratorGvarG13(id, cal);
-	    	  calibrator.setCalType(srcType);
 	    	  break;
 
 		  case Calibrator.SENSOR_GOES14_IMGR:
 		  case Calibrator.SENSOR_GOES14_SNDR:
 			  calibrator = new CalibratorGvarG14(id, cal);
-			  calibrator.setCalType(srcType);
 			  break;
 
 		  case Calibrator.SENSOR_GOES15_IMGR:
 		  case Calibrator.SENSOR_GOES15_SNDR:
 			  calibrator = new CalibratorGvarG15(id, cal);
-			  calibrator.setCalType(srcType);
+			  break;
+
+		  case Calibrator.SENSOR_FY2D:
+		  case Calibrator.SENSOR_FY2E:
+		  case Calibrator.SENSOR_FY2F:
+		  case Calibrator.SENSOR_FY2G:
+		  case Calibrator.SENSOR_FY2H:
+			  // no default line prefix: the visible detector is read from
+			  // the prefix passed with each line
+			  try {
+				  calibrator = new CalibratorFY2(null, null, cal);
+			  }
+			  catch (IOException e) {
+				  throw new CalibratorException(
+					  "Error initializing FY-2 calibrator", e);
+			  }
 			  break;
 
 	      default:
@@ -131,6 +242,35 @@ public final class CalibratorFactory {
 	    }
 	    return calibrator;
 	}
+
+	/** getCalibrator cache key: sensor, source type and cal block */
+	private static final class Key {
+
+		private final int id;
+		private final int srcType;
+		private final int[] cal;
+		private final int hash;
+
+		Key(int id, int srcType, int[] cal) {
+			this.id = id;
+			this.srcType = srcType;
+			// own copy, so later changes to the caller's block do not matter
+			this.cal = (cal == null) ? null : cal.clone();
+			int h = 31*id + srcType;
+			this.hash = 31*h + Arrays.hashCode(cal);
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return id == other.id && srcType == other.srcType &&
+			       hash == other.hash && Arrays.equals(cal, other.cal);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+	}
   
   /**
    * Check if there is a <code>Calibrator</code> implemented for a sensor.
@@ -161,9 +301,26 @@ public final class CalibratorFactory {
       case Calibrator.SENSOR_MSG8_IMGR:
 	  case Calibrator.SENSOR_MSG9_IMGR:
 	  case Calibrator.SENSOR_MSG10_IMGR:
+	  case Calibrator.SENSOR_FY2D:
+	  case Calibrator.SENSOR_FY2E:
+	  case Calibrator.SENSOR_FY2F:
+	  case Calibrator.SENSOR_FY2G:
+	  case Calibrator.SENSOR_FY2H:
         return true;
       default:
         return false;
     }
   }
+
+  /**
+   * Check if the <code>Calibrator</code> for a sensor needs the prefix of
+   * each line, which is passed with the line to the calibrate method that
+   * takes a line prefix.
+   *
+   * @param id Id of the sensor
+   * @return True if line prefixes are used, false otherwise.
+   */
+  static boolean usesLinePrefixes(int id) {
+    return id >= Calibrator.SENSOR_FY2D && id <= Calibrator.SENSOR_FY2H;
+  }
 }
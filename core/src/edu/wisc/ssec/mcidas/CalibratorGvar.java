@@ -29,6 +29,7 @@ package edu.wisc.ssec.mcidas;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * CalibratorGvar creates a Calibrator object designed specifically
@@ -39,7 +40,7 @@ import java.nio.ByteBuffer;
  * @author Tommy Jasmin, SSEC
  */
 
-public abstract class CalibratorGvar implements Calibrator {
+public abstract class CalibratorGvar implements Calibrator, Cloneable {
 
   protected static final int NUM_BANDS_IMAGER = 5;
   protected static final int NUM_BANDS_SOUNDER = 18;
@@ -52,8 +53,7 @@ public abstract class CalibratorGvar implements Calibrator {
   protected static final int LOOKUP_TABLE_SZ_SNDR = 32768;
 
   // var to store current cal type
-  protected static int curCalType = 0;
-  protected static int index = 0;
+  protected int curCalType = 0;
 
   protected float [] visBiasCoef  = new float [NUM_VIS_DETECTORS];
   protected float [] visGain1Coef = new float [NUM_VIS_DETECTORS];
@@ -66,14 +66,18 @@ public abstract class CalibratorGvar implements Calibrator {
   protected float [][] irGainCoef = new float [NUM_IR_DETECTORS][NUM_IR_BANDS];
   protected float [] sBiasCoef = new float [NUM_BANDS_SOUNDER];
   protected float [] sGainCoef = new float [NUM_BANDS_SOUNDER];
-  protected float [][] lookupTable;
 
-  // used in calibrator method
-  private static float gain = 0.0f;
-  private static float bias = 0.0f;
-  private static int scale = 1;
-  private static int bandNum = 0;
-  private static int sid = 0;
+  // tables made by getTable
+  private final CalibrationTable.Cache tables = new CalibrationTable.Cache();
+
+  // tables made by getPlanckTable
+  private final PlanckTable.Cache planckTables = new PlanckTable.Cache();
+
+  // brightness to temperature table, made when first needed
+  private volatile BritTable britTable;
+
+  // sensor id, set when the calibrator is made
+  private int sid = 0;
 
   //
   public boolean isPreCalibrated = false;
@@ -122,15 +126,6 @@ public abstract class CalibratorGvar implements Calibrator {
     //System.out.println("xxx sid = "+sid);
     if ((sid % 2) == 0) {
 
-      // initialize lookup table
-      lookupTable = new float [NUM_BANDS_IMAGER] [LOOKUP_TABLE_SZ_IMGR];
-
-      for (int i = 0; i < NUM_BANDS_IMAGER; i++) {
-        for (int j = 0; j < LOOKUP_TABLE_SZ_IMGR; j++) {
-          lookupTable [i][j] = Float.NaN;
-        }
-      }
-
       // read in an imager format cal block
       for (int i = 0; i < NUM_VIS_DETECTORS; i++) {
         visBiasCoef[i] = (float) 
@@ -185,14 +180,6 @@ public abstract class CalibratorGvar implements Calibrator {
 
     } else {
 
-      // initialize lookup table
-      lookupTable = new float [NUM_BANDS_SOUNDER + 1] [LOOKUP_TABLE_SZ_SNDR];
-      for (int i = 0; i < NUM_BANDS_SOUNDER + 1; i++) {
-        for (int j = 0; j < LOOKUP_TABLE_SZ_SNDR; j++) {
-          lookupTable [i][j] = Float.NaN;
-        }
-      }
-
       // read in a sounder format cal block
       for (int i = 0; i < NUM_VIS_DETECTORS / 2; i++) {
         visBiasCoef[i] = (float) 
@@ -265,6 +252,74 @@ public abstract class CalibratorGvar implements Calibrator {
 
   public abstract float radToTemp(float inVal, int band, int sId);
 
+  /**
+   *
+   * calibrate data buffer from radiance to temperature, interpolating
+   * in the band's PlanckTable if it has one and converting each value
+   * exactly otherwise.
+   *
+   * @param inVals      input radiances
+   * @param band        channel/band number
+   *
+   * @return temperatures, or NaN if the band has no temperatures
+   *
+   */
+
+  public float[] radToTemp(float[] inVals, int band) {
+    float[] outVals = new float[inVals.length];
+    int irBand = getTempBand(band);
+    PlanckTable table = getPlanckTable(band);
+    if (table != null) {
+      table.toTemp(inVals, 0, outVals, 0, inVals.length);
+    } else if (irBand < 0) {
+      Arrays.fill(outVals, Float.NaN);
+    } else {
+      for (int i = 0; i < inVals.length; i++) {
+        outVals[i] = radToTemp(inVals[i], irBand, sid);
+      }
+    }
+    return outVals;
+  }
+
+  /**
+   *
+   * get a table for converting radiance to temperature in a band without
+   * a log for every value.
+   *
+   * @param band        channel/band number
+   *
+   * @return the table, or null if the band has no temperatures
+   *
+   */
+
+  public PlanckTable getPlanckTable(int band) {
+    final int irBand = getTempBand(band);
+    if (irBand < 0) {
+      return null;
+    }
+    return planckTables.get(irBand,
+                            rad -> radToTemp((float) rad, irBand, sid));
+  }
+
+  /**
+   *
+   * get the band whose constants convert a band's radiances to
+   * temperature; imager band 6 uses band 5's, as in calibrate.
+   *
+   * @param band        channel/band number
+   *
+   * @return the band, or -1 for the visible band
+   *
+   */
+
+  private int getTempBand(int band) {
+    if ((sid % 2) == 0) {
+      if (band == 1) return -1;
+      return (band == 6) ? 5 : band;
+    }
+    return (band == 19) ? -1 : band;
+  }
+
   /**
    *
    * calibrate data buffer to specified units.
@@ -283,13 +338,18 @@ public abstract class CalibratorGvar implements Calibrator {
 
   {
 
+    // radiances convert through the band's inverse Planck table
+    if (curCalType == CAL_RAD && calTypeOut == CAL_TEMP &&
+        getTempBand(band) > 0) {
+      return radToTemp(inputData, band);
+    }
+
     // create the output data buffer
     float[] outputData = new float[inputData.length];
 
-    // just call the other calibrate routine for each data point
-    for (int i = 0; i < inputData.length; i++) {
-      outputData[i] = calibrate(inputData[i], band, calTypeOut);
-    }
+    // look up each data point
+    getTable(band, calTypeOut).calibrate(inputData, 0, outputData, 0,
+                                         inputData.length);
 
     // return the calibrated buffer
     return outputData;
@@ -298,7 +358,24 @@ public abstract class CalibratorGvar implements Calibrator {
 
   /**
    *
-   * calibrate single value to specified units.
+   * get a table of the calibrated values of every count of a band.
+   * Imager counts are 10 bits times 32, sounder counts 15 bits times 2.
+   *
+   * @param band        channel/band number
+   * @param calTypeOut  units to convert to
+   *
+   */
+
+  public CalibrationTable getTable(int band, int calTypeOut) {
+    int size = ((sid % 2) == 0) ? LOOKUP_TABLE_SZ_IMGR * 32
+                                : LOOKUP_TABLE_SZ_SNDR * 2;
+    return tables.get(this, curCalType, band, calTypeOut, size);
+  }
+
+  /**
+   *
+   * calibrate single value to specified units.  Only reads the
+   * calibrator's state, so may be called by several threads at once.
    *
    * @param inputPixel  input data value 
    * @param band        channel/band number  
@@ -322,48 +399,34 @@ public abstract class CalibratorGvar implements Calibrator {
 
     // load gain and bias constants based on band requested
     // If this is imager and band 6, change to band 5
-    if (band != bandNum) {
-      bandNum = band;
-      if ((sid % 2) == 0) {
-        if (band == 1) {
-          gain = visGain1Coef[0];
-          bias = visBiasCoef[0];
-        } else {
-          if( band == 6) {
-            band = 5;
-          }
-          gain = irGainCoef[0][band - 2];
-          bias = irBiasCoef[0][band - 2];
-
-          //System.out.println("####  band="+band+"  gain="+gain+"  bias"+bias);
-        }
-        scale = 32;
-
+    float gain;
+    float bias;
+    int scale;
+    if ((sid % 2) == 0) {
+      if (band == 1) {
+        gain = visGain1Coef[0];
+        bias = visBiasCoef[0];
       } else {
-        if (band == 19) {
-          gain = visGain1Coef[0];
-          bias = visBiasCoef[0];
-        } else {
-          gain = sGainCoef[band - 1];
-          bias = sBiasCoef[band - 1];
+        if( band == 6) {
+          band = 5;
         }
-        scale = 2;
+        gain = irGainCoef[0][band - 2];
+        bias = irBiasCoef[0][band - 2];
+
+        //System.out.println("####  band="+band+"  gain="+gain+"  bias"+bias);
       }
-    }
+      scale = 32;
 
-    // check lookup table first, if there is an entry, use it
-    if (curCalType == CAL_BRIT) {
-      // one byte values are signed, so take absolute value for index
-      index = (int) inputPixel + 128; 
     } else {
-      // otherwise scale down the 1K possible 15 bit values to an index
-      index = (int) inputPixel / scale;
+      if (band == 19) {
+        gain = visGain1Coef[0];
+        bias = visBiasCoef[0];
+      } else {
+        gain = sGainCoef[band - 1];
+        bias = sBiasCoef[band - 1];
+      }
+      scale = 2;
     }
-    //System.out.println("xxx band = "+band+" index = "+index+" scale="+scale+ " inputPixel"+inputPixel);
-
-    //if (!(Float.isNaN(lookupTable[band - 1][index]))) {
-    //  return (lookupTable[band - 1][index]);
-   // }
 
     // validate, then calibrate for each combination starting with cur type
     switch (curCalType) {
@@ -443,6 +506,9 @@ public abstract class CalibratorGvar implements Calibrator {
 
       case CAL_RAD:
         outputData = inputPixel;
+        if (calTypeOut == CAL_TEMP && getTempBand(band) > 0) {
+          outputData = radToTemp(inputPixel, band, sid);
+        }
         break;
 
       case CAL_ALB:
@@ -555,21 +621,66 @@ public abstract class CalibratorGvar implements Calibrator {
     // create the output data buffer
     float[] outputData = new float[inputData.length];
 
-    // just call the other calibrate routine for each data point
-    for (int i = 0; i < inputData.length; i++) {
-      outputData[i] = convertBritToTemp((int) inputData[i]);
-    }
+    // look up each data point
+    getBritTable().toTemp(inputData, 0, outputData, 0, inputData.length);
 
     // return the calibrated buffer
     return outputData;
 
   }
 
+  public void convertBritToTemp(float[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length) {
+    getBritTable().toTemp(input, inputOffset, output, outputOffset, length);
+  }
+
+  public void convertBritToTemp(byte[] input, int inputOffset,
+                                float[] output, int outputOffset,
+                                int length) {
+    getBritTable().toTemp(input, inputOffset, output, outputOffset, length);
+  }
+
+  /** get the brightness table, making it if need be */
+  private BritTable getBritTable() {
+    BritTable table = britTable;
+    if (table == null) {
+      // two threads may both make it; they make the same table
+      table = new BritTable(this);
+      britTable = table;
+    }
+    return table;
+  }
+
 
   public boolean getIsPreCalibrated(){
     return isPreCalibrated;
   }
 
+  /**
+   *
+   * returns a copy of this calibrator with its own cal type settings.
+   * The coefficients and tables are shared with the copy.
+   *
+   */
+  public CalibratorGvar copy() {
+    try {
+      return (CalibratorGvar) clone();
+    }
+    catch (CloneNotSupportedException excp) {
+      throw new IllegalStateException(excp.toString());
+    }
+  }
+
+  /**
+   *
+   * GVAR calibrators keep no state between calls, so are thread safe.
+   *
+   */
+  public boolean isThreadSafe() {
+    return true;
+  }
+
   public void setIsPreCalibrated(boolean isPrecalibrated){
     this.isPreCalibrated = isPrecalibrated;
   }
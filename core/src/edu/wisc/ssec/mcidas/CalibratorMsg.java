@@ -70,7 +70,7 @@ package edu.wisc.ssec.mcidas;
  * @author Bruce Flynn, SSEC
  * @version $Id: CalibratorMsg.java,v 1.7 2009-03-02 23:34:50 curtis Exp $
  */
-public class CalibratorMsg implements Calibrator {
+public class CalibratorMsg implements Calibrator, Cloneable {
 
     private static final int C1W3 = 0;
     private static final int C2W = 1;
@@ -107,8 +107,18 @@ public class CalibratorMsg implements Calibrator {
     /** Coefficients used in the inverse planck function. */
     private double[][] planckCoefs;
 
+    /** Number of raw counts, which are 10 bits. */
+    private static final int RAW_COUNTS = 1024;
+
     /** Cal block converted from an int array. */
     private byte[] calBytes;
+
+    /** Tables made by <code>getTable</code>. */
+    private final CalibrationTable.Cache tables = new CalibrationTable.Cache();
+    /** Tables made by <code>getPlanckTable</code>. */
+    private final PlanckTable.Cache planckTables = new PlanckTable.Cache();
+    /** Brightness to temperature table, made when first needed. */
+    private volatile BritTable britTable;
     /** 
      * Current cal type as set by <code>setCalType</code>
      */
@@ -194,16 +204,42 @@ public class CalibratorMsg implements Calibrator {
         if (calTypeOut == curCalType || calTypeOut == CAL_NONE) { // no-op
           return (float[])input.clone();
         }
+
+        // radiances convert through the band's inverse Planck table
+        if (curCalType == CAL_RAD && calTypeOut == CAL_TEMP) {
+            return radToTemp(input, band);
+        }
       
         float[] output = new float[input.length];
 
-        for (int i = 0; i < input.length; i++) {
-            output[i] = calibrate(input[i], band, calTypeOut);
+        CalibrationTable table = getTable(band, calTypeOut);
+        if (table != null) {
+            table.calibrate(input, 0, output, 0, input.length);
+        } else {
+            for (int i = 0; i < input.length; i++) {
+                output[i] = calibrate(input[i], band, calTypeOut);
+            }
         }
 
         return output;
     }
 
+    /**
+     * Get a table of the calibrated values of every raw count of a band.
+     * Tables are only made from RAW data.
+     *
+     * @param band channel for which to perform calibration.
+     * @param calTypeOut Calibration type constant.
+     * @return the table, or <code>null</code> if the source type is not
+     * RAW or there are no calibration coefficients.
+     */
+    public CalibrationTable getTable(final int band, final int calTypeOut) {
+        if (curCalType != CAL_RAW || planckCoefs == null) {
+            return null;
+        }
+        return tables.get(this, curCalType, band, calTypeOut, RAW_COUNTS);
+    }
+
     /**
      * Calibrate a pixel from the current calibration type according to the 
      * parameters provided.
@@ -238,9 +274,14 @@ public class CalibratorMsg implements Calibrator {
                     "Calibration from brightness not implemented"
                 );
             case CAL_RAD:
-                throw new UnsupportedOperationException(
-                    "Calibration from radiance not implemented"
-                );
+                if (calTypeOut != CAL_TEMP) {
+                    throw new UnsupportedOperationException(
+                        "Calibration from radiance only implemented to "
+                        + "temperature"
+                    );
+                }
+                pxl = radToTemp(inputPixel, band);
+                break;
             case CAL_RAW:
                 pxl = calibrateFromRaw(inputPixel, band, calTypeOut);
                 break;
@@ -343,10 +384,7 @@ public class CalibratorMsg implements Calibrator {
         
             switch (calTypeOut) {
                 case CAL_TEMP: // temperature
-                    if (pxl > 0) {
-                        pxl = (coefs[C2W] / Math.log(1.0 + coefs[C1W3] / pxl) 
-                            - coefs[BETA]) / coefs[ALPHA];
-                    }
+                    pxl = radToTemp(pxl, coefs);
                     break;
 
                 case CAL_RAD: // radiance
@@ -358,9 +396,7 @@ public class CalibratorMsg implements Calibrator {
                 
                 case CAL_BRIT: // brightness
                     if (pxl > 0) {
-                        pxl = (coefs[C2W] / Math.log(1.0 + coefs[C1W3] / pxl) 
-                            - coefs[BETA]) / coefs[ALPHA];
-                        pxl = greyScale(pxl);
+                        pxl = greyScale(radToTemp(pxl, coefs));
                     } else {
                         pxl = 255.0;
                     }
@@ -377,6 +413,75 @@ public class CalibratorMsg implements Calibrator {
         return (float) pxl;
     }
     
+    /**
+     * Convert radiances of an IR band to temperatures, interpolating in
+     * the band's <code>PlanckTable</code> if it has one and converting
+     * each value exactly otherwise.
+     *
+     * @param input radiances to convert.
+     * @param band channel of the radiances.
+     * @return temperatures in kelvin, or <code>Float.NaN</code> if the
+     * band has no temperatures.
+     */
+    public float[] radToTemp(final float[] input, final int band) {
+        float[] output = new float[input.length];
+        PlanckTable table = getPlanckTable(band);
+        if (table != null) {
+            table.toTemp(input, 0, output, 0, input.length);
+        } else {
+            for (int i = 0; i < input.length; i++) {
+                output[i] = radToTemp(input[i], band);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Convert a radiance of an IR band to temperature.
+     *
+     * @param rad radiance.
+     * @param band channel of the radiance.
+     * @return temperature in kelvin, or <code>Float.NaN</code> if the
+     * band has no temperatures.
+     */
+    private float radToTemp(final float rad, final int band) {
+        if (planckCoefs == null || band < 4 || band == 12) {
+            return Float.NaN;
+        }
+        return (float) radToTemp(rad, planckCoefs[band - 1]);
+    }
+
+    /**
+     * Get a table for converting radiance to temperature in an IR band
+     * without a log for every value.
+     *
+     * @param band channel for the table.
+     * @return the table, or <code>null</code> for visible bands or if
+     * there are no calibration coefficients.
+     */
+    public PlanckTable getPlanckTable(final int band) {
+        if (planckCoefs == null || band < 4 || band == 12) {
+            return null;
+        }
+        final double[] coefs = planckCoefs[band - 1];
+        return planckTables.get(band, rad -> radToTemp(rad, coefs));
+    }
+
+    /**
+     * Inverse Planck function of an IR band.
+     *
+     * @param rad radiance.
+     * @param coefs the band's calibration coefficients.
+     * @return temperature in kelvin, or rad itself if not positive.
+     */
+    private static double radToTemp(final double rad, final double[] coefs) {
+        if (rad > 0) {
+            return (coefs[C2W] / Math.log(1.0 + coefs[C1W3] / rad) 
+                - coefs[BETA]) / coefs[ALPHA];
+        }
+        return rad;
+    }
+
     /**
      * Convert a brightness temperature to grey scale.
      * 
@@ -538,16 +643,41 @@ public class CalibratorMsg implements Calibrator {
         // create the output data buffer
         float[] outputData = new float[inputData.length];
 
-        // just call the other calibrate routine for each data point
-        for (int i = 0; i < inputData.length; i++) {
-            outputData[i] = convertBritToTemp((int) inputData[i]);
-        }
+        // look up each data point
+        getBritTable().toTemp(inputData, 0, outputData, 0, inputData.length);
 
         // return the calibrated buffer
         return outputData;
 
     }
 
+    public void convertBritToTemp(final float[] input, final int inputOffset,
+        final float[] output, final int outputOffset, final int length) {
+        getBritTable().toTemp(input, inputOffset, output, outputOffset,
+            length);
+    }
+
+    public void convertBritToTemp(final byte[] input, final int inputOffset,
+        final float[] output, final int outputOffset, final int length) {
+        getBritTable().toTemp(input, inputOffset, output, outputOffset,
+            length);
+    }
+
+    /**
+     * Get the brightness table, making it if need be.
+     *
+     * @return table of <code>convertBritToTemp</code> values
+     */
+    private BritTable getBritTable() {
+        BritTable table = britTable;
+        if (table == null) {
+            // two threads may both make it; they make the same table
+            table = new BritTable(this);
+            britTable = table;
+        }
+        return table;
+    }
+
 
     /**
      *
@@ -566,4 +696,27 @@ public class CalibratorMsg implements Calibrator {
     public void setIsPreCalibrated(boolean isPrecalibrated){
         this.isPreCalibrated = isPrecalibrated;
     }
+
+    /**
+     * Returns a copy of this calibrator with its own cal type settings.
+     * The coefficients and tables are shared with the copy.
+     *
+     * @return copy of this calibrator
+     */
+    public CalibratorMsg copy() {
+        try {
+            return (CalibratorMsg) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * MSG calibrators keep no state between calls, so are thread safe.
+     *
+     * @return <code>true</code>
+     */
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -52,6 +52,8 @@ public class GEOSnav extends AREAnav {
   final double radpol = 6356.5838;
   final double radeq = 6378.1690;
   final double X42 = 42164.0;
+  // 2^16, the scaling of the column and line factors
+  private static final double TWO_16 = 65536.0;
 
   private boolean isEastPositive = true;
 
@@ -84,89 +86,125 @@ public class GEOSnav extends AREAnav {
   }
 
 
+  /**
+   * Angle between neighbouring image pixels, for fast math.
+   *
+   * @return pixel angle in radians
+   */
+  protected double getPixelAngle() {
+    return Math.toRadians(TWO_16 /
+      (Math.max(Math.abs(cfac), Math.abs(lfac)) / 10.)) / bres;
+  }
+
+  /** Determine if longitudes are positive East
+   *
+   * @return  true if positive East, false if positive West
+   */
+  public boolean isEastPositive() {
+    return isEastPositive;
+  }
+
+  /** Get the lat,lon of the subpoint
+   *
+   * @return double[2] {lat, lon}
+   */
+  public double[] getSubpoint() {
+    return new double[] {0.0, isEastPositive ? plon/10. : -plon/10.};
+  }
+
   /**
   * @param latlon lat and lon of points (N and E are positive)
   */
 
   public double[][] toLinEle(double[][] latlon) {
-    double xlat, xlon, xlin, xele, rlin, rele;
+    double[][] linele = new double[2][latlon[0].length];
+    toLinEle(latlon, linele);
+    return linele;
+  }
+
+  protected void latLonToImage(double xlat, double xlon,
+                               double[] lines, int lineIndex,
+                               double[] eles, int eleIndex) {
+    final NavMath m = navMath;
+
+    double xlin, xele, rlin, rele;
     double c_lat, cosc_lat, rn, r1, r2, r3, rl;
     double x,y;
     double lat,lon,splon;
     double ad2, bd, cd, delta2, halfsom, r_eq2, r_pol2;
 
-    int number = latlon[0].length;
-    double[][] linele = new double[2][number];
-
-    for (int point=0; point < number; point++) {
-      xlat = latlon[indexLat][point];
-      xlon = latlon[indexLon][point];
-      if (!isEastPositive) xlon = -xlon;
-
-
-      // --- Coordinates are computed accroding EUMETSAT's LRIT/HRIT Global Spec
-      // --- Doc No: CGMS 03
-
-      // --- Coordinates are converted to Radians
-      lat   = xlat*Math.PI/180.;
-      lon   = xlon*Math.PI/180.0;
-      splon = plon/10. * Math.PI/180.0;
-
-      // --- Intermediate data
-      c_lat=Math.atan(0.993243*Math.tan(lat));
-      cosc_lat=Math.cos(c_lat);
-      r_pol2= radpol * radpol;
-      r_eq2 = radeq * radeq;
-      rl=radpol/(Math.sqrt(1-((r_eq2-r_pol2)/r_eq2)*cosc_lat*cosc_lat));
-      r1=X42-rl*cosc_lat*Math.cos(lon-splon);
-      r2=-rl*cosc_lat*Math.sin(lon-splon);
-      r3=rl*Math.sin(c_lat);
-      rn=Math.sqrt(r1*r1+r2*r2+r3*r3);
-
-      // --- Compute variables useful to check if pixel is visible
-      ad2 = r1*r1 + r2*r2 + r3*r3*r_eq2 / r_pol2;
-      bd = X42*r1;
-      cd = X42*X42 - r_eq2;
-      delta2 = bd*bd-ad2*cd;
-      halfsom = bd*rn/ad2;
-
-      if ((delta2 >= 0.) && (rn <= halfsom)) {
-      // ------- Intermediate coordinates
-        x = Math.atan(-r2/r1);
-        y = Math.asin(-r3/rn);
-        x = x * 180./Math.PI;
-        y = y * 180./Math.PI;
-
-        xele = coff/10. + x / Math.pow(2,16) * cfac/10.;
-        xlin = loff/10. + y / Math.pow(2,16) * lfac/10.;
-        
-        // TJJ Dec 2017 - now checking pixel offset flag for AHI adjustment
-        if (pixelOffsetFlag == 1) {
-            rlin = (xlin * bres) - ((bres - 1) / 2.0);
-            rele = (xele * bres) - ((bres - 1) / 2.0);            
-        } else {
-            rlin = (xlin * bres) - (bres - 1);
-            rele = (xele * bres) - (bres - 1);
-        }
-        
-      } else {
+    if (!isEastPositive) xlon = -xlon;
 
-        rlin=Double.NaN;
-        rele=Double.NaN;
+
+    // --- Coordinates are computed accroding EUMETSAT's LRIT/HRIT Global Spec
+    // --- Doc No: CGMS 03
+
+    // --- Coordinates are converted to Radians
+    lat   = xlat*Math.PI/180.;
+    lon   = xlon*Math.PI/180.0;
+    splon = plon/10. * Math.PI/180.0;
+
+    // --- Intermediate data
+    c_lat=m.atan(0.993243*m.tan(lat));
+    cosc_lat=m.cos(c_lat);
+    r_pol2= radpol * radpol;
+    r_eq2 = radeq * radeq;
+    rl=radpol/(Math.sqrt(1-((r_eq2-r_pol2)/r_eq2)*cosc_lat*cosc_lat));
+    r1=X42-rl*cosc_lat*m.cos(lon-splon);
+    r2=-rl*cosc_lat*m.sin(lon-splon);
+    r3=rl*m.sin(c_lat);
+    rn=Math.sqrt(r1*r1+r2*r2+r3*r3);
+
+    // --- Compute variables useful to check if pixel is visible
+    ad2 = r1*r1 + r2*r2 + r3*r3*r_eq2 / r_pol2;
+    bd = X42*r1;
+    cd = X42*X42 - r_eq2;
+    delta2 = bd*bd-ad2*cd;
+    halfsom = bd*rn/ad2;
+
+    if ((delta2 >= 0.) && (rn <= halfsom)) {
+    // ------- Intermediate coordinates
+      x = m.atan(-r2/r1);
+      y = m.asin(-r3/rn);
+      x = x * 180./Math.PI;
+      y = y * 180./Math.PI;
+
+      xele = coff/10. + x / TWO_16 * cfac/10.;
+      xlin = loff/10. + y / TWO_16 * lfac/10.;
+      
+      // TJJ Dec 2017 - now checking pixel offset flag for AHI adjustment
+      if (pixelOffsetFlag == 1) {
+          rlin = (xlin * bres) - ((bres - 1) / 2.0);
+          rele = (xele * bres) - ((bres - 1) / 2.0);            
+      } else {
+          rlin = (xlin * bres) - (bres - 1);
+          rele = (xele * bres) - (bres - 1);
       }
+      
+    } else {
 
-      linele[indexLine][point] = rlin;
-      linele[indexEle][point] = rele;
+      rlin=Double.NaN;
+      rele=Double.NaN;
     }
 
-    return imageCoordToAreaCoord(linele, linele);
+    lines[lineIndex] = rlin;
+    eles[eleIndex] = rele;
 
   }
 
   public double[][] toLatLon(double[][] linele) {
+    double[][] latlon = new double[2][linele[0].length];
+    toLatLon(linele, latlon);
+    return latlon;
+  }
+
+  protected void imageToLatLon(double rlin, double rele,
+                               double[] lats, int latIndex,
+                               double[] lons, int lonIndex) {
+    final NavMath m = navMath;
 
 
-    double xlat, xlon, xlin, xele, rlin, rele;
+    double xlat, xlon, xlin, xele;
     double x,y;
     double s1, s2, s3, sxy, sn, sd, sdd;
     double aux, aux2;
@@ -177,70 +215,86 @@ public class GEOSnav extends AREAnav {
     // --- Coordinates are computed accroding EUMETSAT's LRIT/HRIT Global Spec
     // --- Doc No: CGMS 03
 
-    int number = linele[0].length;
-    double[][] latlon = new double[2][number];
-    double[][] imglinele = areaCoordToImageCoord(linele);
-
-    for (int point=0; point < number; point++ ) {
-
-      rlin = imglinele[indexLine][point];
-      rele = imglinele[indexEle][point];
-      
-      // use bres to adjust the coordinates
-      // TJJ Dec 2017 - now checking pixel offset flag for AHI adjustment
-      if (pixelOffsetFlag == 1) {
-          xlin = (rlin + ((bres - 1) / 2.0)) / bres;
-          xele = (rele + ((bres - 1) / 2.0)) / bres;
-      } else {
-          xlin = (rlin + (bres - 1)) / bres;
-          xele = (rele + (bres - 1)) / bres;
-      }
+    // use bres to adjust the coordinates
+    // TJJ Dec 2017 - now checking pixel offset flag for AHI adjustment
+    if (pixelOffsetFlag == 1) {
+        xlin = (rlin + ((bres - 1) / 2.0)) / bres;
+        xele = (rele + ((bres - 1) / 2.0)) / bres;
+    } else {
+        xlin = (rlin + (bres - 1)) / bres;
+        xele = (rele + (bres - 1)) / bres;
+    }
 
-      // --- Intermediate coordinates
-      x = (xele - coff/10.) * Math.pow(2,16) / (cfac/10.);
-      y = (xlin - loff/10.) * Math.pow(2,16) / (lfac/10.);
-      x = x * Math.PI/180.;
-      y = y * Math.PI/180.;
-
-      //c --- Intermediate data
-      cosx=Math.cos(x);
-      cosy=Math.cos(y);
-      sinx=Math.sin(x);
-      siny=Math.sin(y);
-
-      aux=X42*cosx*cosy;
-      aux2=cosy*cosy+1.006803*siny*siny;
-      sdd=aux*aux-aux2*1737121856.0;
-      if (sdd < 0.0) {
-        xlat=Double.NaN;
-        xlon=Double.NaN;
-      } else {
+    // --- Intermediate coordinates
+    x = (xele - coff/10.) * TWO_16 / (cfac/10.);
+    y = (xlin - loff/10.) * TWO_16 / (lfac/10.);
+    x = x * Math.PI/180.;
+    y = y * Math.PI/180.;
+
+    //c --- Intermediate data
+    cosx=m.cos(x);
+    cosy=m.cos(y);
+    sinx=m.sin(x);
+    siny=m.sin(y);
+
+    aux=X42*cosx*cosy;
+    aux2=cosy*cosy+1.006803*siny*siny;
+    sdd=aux*aux-aux2*1737121856.0;
+    if (sdd < 0.0) {
+      xlat=Double.NaN;
+      xlon=Double.NaN;
+    } else {
  
-        sd=Math.sqrt(sdd);
-        sn=(aux-sd)/aux2;
-        s1=X42 - sn*cosx*cosy;
-        s2=sn*sinx*cosy;
-        s3= -sn*siny;
-        sxy=Math.sqrt(s1*s1+s2*s2);
+      sd=Math.sqrt(sdd);
+      sn=(aux-sd)/aux2;
+      s1=X42 - sn*cosx*cosy;
+      s2=sn*sinx*cosy;
+      s3= -sn*siny;
+      sxy=Math.sqrt(s1*s1+s2*s2);
  
-        // --- Computation
-        xlon = Math.atan(s2/s1);
-        xlon = xlon * 180./Math.PI + plon/10.;
-        xlat = Math.atan(1.006803*s3/sxy)* 180./Math.PI;
+      // --- Computation
+      xlon = m.atan(s2/s1);
+      xlon = xlon * 180./Math.PI + plon/10.;
+      xlat = m.atan(1.006803*s3/sxy)* 180./Math.PI;
  
-        // --- Longitudes in [-180,180]
-        if(xlon >  180.0) xlon = xlon - 360.;
-        if(xlon < -180.0) xlon = xlon + 360.;
-      }
+      // --- Longitudes in [-180,180]
+      if(xlon >  180.0) xlon = xlon - 360.;
+      if(xlon < -180.0) xlon = xlon + 360.;
+    }
 
-      if (!isEastPositive) xlon = -xlon;
+    if (!isEastPositive) xlon = -xlon;
 
-      latlon[indexLat][point] = xlat;
-      latlon[indexLon][point] = xlon;
+    lats[latIndex] = xlat;
+    lons[lonIndex] = xlon;
 
-    }
+  }
 
-    return latlon;
+  /** computes the image elements of a line that see the earth, from
+   * where sdd reaches 0: cos(x)^2 = aux2*1737121856/(X42*cos(y))^2.
+   *
+   * @param  rlin      image line
+   * @param  span      array to put the first and last image element in
+   *
+   * @return true
+   */
+  protected boolean imageLineEarthSpan(double rlin, double[] span) {
+    double offset = (pixelOffsetFlag == 1) ? (bres - 1) / 2.0 : bres - 1;
+    double xlin = (rlin + offset) / bres;
+    double y = (xlin - loff/10.) * TWO_16 / (lfac/10.) * Math.PI/180.;
+    double cosy = Math.cos(y);
+    double siny = Math.sin(y);
+    double aux2 = cosy*cosy+1.006803*siny*siny;
+    double cos2 = aux2*1737121856.0/(X42*X42*cosy*cosy);
+    if (!(cos2 < 1.0)) {
+      span[0] = Double.NaN;
+      span[1] = Double.NaN;
+      return true;
+    }
+    double x = Math.acos(Math.sqrt(cos2)) * 180./Math.PI;
+    double xele1 = -x * (cfac/10.) / TWO_16 + coff/10.;
+    double xele2 = x * (cfac/10.) / TWO_16 + coff/10.;
+    span[0] = xele1 * bres - offset;
+    span[1] = xele2 * bres - offset;
+    return true;
   }
- 
 }
@@ -185,46 +185,59 @@ public class GMSXnav extends AREAnav
   public synchronized double[][] toLinEle (double[][] latlon) 
   {
 
+    double[][] linele = new double[2][latlon[0].length];
+    toLinEle(latlon, linele);
+    return linele;
+
+  }
+
+  /**
+   *
+   * converts a single lat/lon to image coordinates
+   *
+   * @param lat          latitude
+   * @param lon          longitude
+   * @param lines        array to put the image line in
+   * @param lineIndex    index into lines
+   * @param eles         array to put the image element in
+   * @param eleIndex     index into eles
+   *
+   */
+
+  protected synchronized void latLonToImage (double lat, double lon,
+                                             double[] lines, int lineIndex,
+                                             double[] eles, int eleIndex) 
+  {
+
     int mode = 1;
-    int count = latlon[0].length;
     float [] rtnPoint; 
-    double[][] linele = new double[2][count];
     double line = 0.0d;
     double elem = 0.0d;
-    double lon = 0.0f;
 
-    for (int point = 0; point < count; point++) {
+    // initialize value as not navigable
+    lines[lineIndex] = Double.NaN; 
+    eles[eleIndex] = Double.NaN; 
 
-      // initialize value as not navigable
-      linele[indexLine][point] = Double.NaN; 
-      linele[indexEle][point] = Double.NaN; 
-
-      if (Math.abs(latlon[indexLat][point]) > 90.0) {
-        continue;
-      }
+    if (Math.abs(lat) > 90.0) {
+      return;
+    }
 
-      // normalize to -180 to 180
-      lon = latlon[indexLon][point];
-      if (lon > 180.0) lon = lon - 360.0;
-      if (lon < -180.0) lon = lon + 360.0;
-      if (Math.abs(latlon[indexLon][point]) > 180.0) continue;
-      if (-lon > 90-subLon && -lon < 270-subLon) continue;
+    // normalize to -180 to 180
+    if (Math.abs(lon) > 180.0) return;
+    if (lon > 180.0) lon = lon - 360.0;
+    if (lon < -180.0) lon = lon + 360.0;
+    if (-lon > 90-subLon && -lon < 270-subLon) return;
       
-      rtnPoint = mgivsr (  
-        mode, 
-        (float) elem, 
-        (float) line, 
-        (float) lon, 
-        (float) latlon[indexLat][point]
-      );
-
-      linele[indexLine][point] = rtnPoint[0];
-      linele[indexEle][point] = rtnPoint[1];
-
-    }
+    rtnPoint = mgivsr (  
+      mode, 
+      (float) elem, 
+      (float) line, 
+      (float) lon, 
+      (float) lat
+    );
 
-    // Return in 'File' coordinates
-    return imageCoordToAreaCoord(linele, linele);
+    lines[lineIndex] = rtnPoint[0];
+    eles[eleIndex] = rtnPoint[1];
 
   }
 
@@ -289,46 +302,73 @@ public class GMSXnav extends AREAnav
   public synchronized double[][] toLatLon (double[][] linele) 
   {
 
+    double[][] latlon = new double[2][linele[0].length];
+    toLatLon(linele, latlon);
+    return (latlon);
+
+  }
+
+  /**
+   *
+   * converts a single point from image coordinates to lat/lon
+   *
+   * @param imglin       image line
+   * @param imgele       image element
+   * @param lats         array to put the latitude in
+   * @param latIndex     index into lats
+   * @param lons         array to put the longitude in
+   * @param lonIndex     index into lons
+   *
+   */
+
+  protected synchronized void imageToLatLon (double imglin, double imgele,
+                                             double[] lats, int latIndex,
+                                             double[] lons, int lonIndex) 
+  {
+
     int mode = -1;
-    int count = linele[0].length;
     float [] rtnPoint;
-    double[][] latlon = new double[2][count];
     double lat  = 0.0d;
     double lon  = 0.0d;
 
-    // transform file to image coordinates
-    double[][] imgLinEle = areaCoordToImageCoord(linele);
-
-    for (int point = 0; point < count; point++) {
-
-      // initialize value as not navigable
-      latlon[indexLat][point] = Double.NaN; 
-      latlon[indexLon][point] = Double.NaN; 
-
-      rtnPoint = mgivsr (  
-        mode, 
-        (float) imgLinEle[indexEle][point], 
-        (float) imgLinEle[indexLine][point], 
-        (float) lon, 
-        (float) lat
-      );
+    rtnPoint = mgivsr (  
+      mode, 
+      (float) imgele, 
+      (float) imglin, 
+      (float) lon, 
+      (float) lat
+    );
 
-      // normalize to -180 to 180
-      lon = rtnPoint[1];
-      if (lon > 180.) lon = lon - 360.;
-      if (lon < -180.) lon = lon + 360.;
-      if (Math.abs(lon) > 180. ||  (-lon > 90.-subLon && -lon < 270.-subLon)) {
-          rtnPoint[0] = Float.NaN;
-          lon  = Float.NaN;
-      }
+    // normalize to -180 to 180
+    lon = rtnPoint[1];
+    if (lon > 180.) lon = lon - 360.;
+    if (lon < -180.) lon = lon + 360.;
+    if (Math.abs(lon) > 180. ||  (-lon > 90.-subLon && -lon < 270.-subLon)) {
+        rtnPoint[0] = Float.NaN;
+        lon  = Float.NaN;
+    }
 
-      latlon[indexLat][point] = rtnPoint[0];
-      latlon[indexLon][point] = lon;
+    lats[latIndex] = rtnPoint[0];
+    lons[lonIndex] = lon;
 
-    }
+  }
 
-    return (latlon);
+  /**
+   *
+   * copy this navigation; the satellite and sun vectors are
+   * updated on every transform, so the copy gets its own
+   *
+   * @return copy of this navigation
+   *
+   */
 
+  protected synchronized AREAnav copy()
+  {
+    GMSXnav nav = (GMSXnav) super.copy();
+    nav.sat = sat.clone();
+    nav.sp = sp.clone();
+    nav.ss = ss.clone();
+    return nav;
   }
 
   /** Get the lat,lon of the subpoint if available
@@ -133,6 +133,13 @@ public final class GOESnav extends AREAnav
     private double qy;
     private double qx;
 
+    // satellite state by scan line, shared by all elements on the line
+    private static final int LINE_CACHE_SIZE = 256;
+    private transient SatState[] lineCache;
+
+    // satellite state at the two reference scan times used by toLinEle
+    private transient SatState[] scanStates;
+
     /**
      * Set up for the real math work.  Must pass in the int array
      * of the GOES nav 'codicil'.
@@ -314,16 +321,11 @@ public final class GOESnav extends AREAnav
     {
 
         int ilin;
-        double parlin;
-        double framet;
         double samtim;
         double xlin;
         double xele;
         double ylin;
         double yele;
-        double xcor;
-        double ycor;
-        double rot;
         double coslin;
         double sinlin;
         double cosele;
@@ -361,16 +363,12 @@ public final class GOESnav extends AREAnav
             xlin = imglinele[indexLine][point];
             xele = imglinele[indexEle][point];
             ilin = Math.round( (float) xlin);
-            parlin = (ilin - 1)/numsen + 1;
-            framet = tmpscl*parlin;
-            samtim = framet + pictim;
-            double xyz[] = satvec(samtim);
+            SatState line = lineState(ilin);
+            samtim = line.samtim;
+            double xyz[] = line.xyz;
             ylin = (xlin - piclin) * radlin;
             yele = (xele - picele + gamma + gamdot*samtim)*radele;
-            xcor = b11*xyz[0] + b12*xyz[1] + b13*xyz[2];
-            ycor = b21*xyz[0] + b22*xyz[1] + b23*xyz[2];
-            rot = Math.atan2(ycor, xcor) + Math.PI;
-            yele = yele - rot;
+            yele = yele - line.rot;
             coslin = Math.cos(ylin);
             sinlin = Math.sin(ylin);
             sinele = Math.sin(yele);
@@ -388,8 +386,7 @@ public final class GOESnav extends AREAnav
             onemsq = 1.0 - basq;
             aq = basq + onemsq*Math.pow(eno,2);
             bq = 2.0 * ((elo*xyz[0] + emo*xyz[1])*basq + eno*xyz[2]);
-            cq = (Math.pow(xyz[0],2) + Math.pow(xyz[1],2))*basq +
-                            Math.pow(xyz[2],2) - bsq;
+            cq = line.cq;
             rad = Math.pow(bq,2) - 4.0*aq*cq;
             if (rad < 1.0)
             {
@@ -402,8 +399,8 @@ public final class GOESnav extends AREAnav
                 x = xyz[0] + elo*s;
                 y = xyz[1] + emo*s;
                 z = xyz[2] + eno*s;
-                ct = Math.cos(emega*samtim+xref);
-                st = Math.sin(emega*samtim+xref);
+                ct = line.ct;
+                st = line.st;
                 x1 = ct*x + st*y;
                 y1 = -st*x + ct*y;
                 double ll[] = nxyzll(x1, y1, z);
@@ -421,17 +418,30 @@ public final class GOESnav extends AREAnav
     public double[][] toLatLon(double[][] linele) 
     {
 
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex) 
+    {
+
         int ilin;
-        double parlin;
-        double framet;
         double samtim;
-        double xlin;
-        double xele;
         double ylin;
         double yele;
-        double xcor;
-        double ycor;
-        double rot;
         double coslin;
         double sinlin;
         double cosele;
@@ -458,71 +468,53 @@ public final class GOESnav extends AREAnav
         double x1;
         double y1;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-
-        for (int point=0; point < number; point++) 
+        ilin = Math.round( (float) xlin);
+        SatState line = lineState(ilin);
+        samtim = line.samtim;
+        double xyz[] = line.xyz;
+        ylin = (xlin - piclin) * radlin;
+        yele = (xele - picele + gamma + gamdot*samtim)*radele;
+        yele = yele - line.rot;
+        coslin = Math.cos(ylin);
+        sinlin = Math.sin(ylin);
+        sinele = Math.sin(yele);
+        cosele = Math.cos(yele);
+        eli = rotm11*coslin - rotm13*sinlin;
+        emi = rotm21*coslin - rotm23*sinlin;
+        eni = rotm31*coslin - rotm33*sinlin;
+        temp = eli;
+        eli = cosele*eli + sinele*emi;
+        emi = -sinele*temp + cosele*emi;
+        elo = b11*eli + b21*emi + b31*eni;
+        emo = b12*eli + b22*emi + b32*eni;
+        eno = b13*eli + b23*emi + b33*eni;
+        basq = bsq/asq;
+        onemsq = 1.0 - basq;
+        aq = basq + onemsq*Math.pow(eno,2);
+        bq = 2.0 * ((elo*xyz[0] + emo*xyz[1])*basq + eno*xyz[2]);
+        cq = line.cq;
+        rad = Math.pow(bq,2) - 4.0*aq*cq;
+        if (rad < 1.0)
         {
-            xlin = imglinele[indexLine][point];
-            xele = imglinele[indexEle][point];
-            ilin = Math.round( (float) xlin);
-            parlin = (ilin - 1)/numsen + 1;
-            framet = tmpscl*parlin;
-            samtim = framet + pictim;
-            double xyz[] = satvec(samtim);
-            ylin = (xlin - piclin) * radlin;
-            yele = (xele - picele + gamma + gamdot*samtim)*radele;
-            xcor = b11*xyz[0] + b12*xyz[1] + b13*xyz[2];
-            ycor = b21*xyz[0] + b22*xyz[1] + b23*xyz[2];
-            rot = Math.atan2(ycor, xcor) + Math.PI;
-            yele = yele - rot;
-            coslin = Math.cos(ylin);
-            sinlin = Math.sin(ylin);
-            sinele = Math.sin(yele);
-            cosele = Math.cos(yele);
-            eli = rotm11*coslin - rotm13*sinlin;
-            emi = rotm21*coslin - rotm23*sinlin;
-            eni = rotm31*coslin - rotm33*sinlin;
-            temp = eli;
-            eli = cosele*eli + sinele*emi;
-            emi = -sinele*temp + cosele*emi;
-            elo = b11*eli + b21*emi + b31*eni;
-            emo = b12*eli + b22*emi + b32*eni;
-            eno = b13*eli + b23*emi + b33*eni;
-            basq = bsq/asq;
-            onemsq = 1.0 - basq;
-            aq = basq + onemsq*Math.pow(eno,2);
-            bq = 2.0 * ((elo*xyz[0] + emo*xyz[1])*basq + eno*xyz[2]);
-            cq = (Math.pow(xyz[0],2) + Math.pow(xyz[1],2))*basq +
-                            Math.pow(xyz[2],2) - bsq;
-            rad = Math.pow(bq,2) - 4.0*aq*cq;
-            if (rad < 1.0)
-            {
-                latlon[indexLat][point] = Double.NaN;
-                latlon[indexLon][point] = Double.NaN;
-            }
-            else
-            {
-                s = -(bq + Math.sqrt(rad))/(2.0*aq);
-                x = xyz[0] + elo*s;
-                y = xyz[1] + emo*s;
-                z = xyz[2] + eno*s;
-                ct = Math.cos(emega*samtim+xref);
-                st = Math.sin(emega*samtim+xref);
-                x1 = ct*x + st*y;
-                y1 = -st*x + ct*y;
-                double ll[] = nxyzll(x1, y1, z);
-
-                latlon[indexLat][point] = ll[0];
-                //  put longitude into East Positive (form)
-                latlon[indexLon][point] = (isEastPositive) ? -ll[1] : ll[1];
-            }
-        } // end point for loop
-
-        return latlon;
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+        }
+        else
+        {
+            s = -(bq + Math.sqrt(rad))/(2.0*aq);
+            x = xyz[0] + elo*s;
+            y = xyz[1] + emo*s;
+            z = xyz[2] + eno*s;
+            ct = line.ct;
+            st = line.st;
+            x1 = ct*x + st*y;
+            y1 = -st*x + ct*y;
+            double ll[] = nxyzll(x1, y1, z);
+
+            lats[latIndex] = ll[0];
+            //  put longitude into East Positive (form)
+            lons[lonIndex] = (isEastPositive) ? -ll[1] : ll[1];
+        }
 
     }
 
@@ -560,7 +552,6 @@ public final class GOESnav extends AREAnav
         double vcses2;
         double vcses3;
         double oldlin;
-        double orbtim;
         double xsat;
         double ysat;
         double zsat;
@@ -591,7 +582,6 @@ public final class GOESnav extends AREAnav
 
                 // initialize some variables
                 oldlin = 910.; 
-                orbtim = -99999.; 
                 xsat = ysat = zsat = 0.0;
                 x = y = z = 0.0;
                 xht = znorm = 0.0;
@@ -599,23 +589,17 @@ public final class GOESnav extends AREAnav
                 x1 = xyz[0];
                 y1 = xyz[1];
                 z = xyz[2];
-                samtim = time1;
+                SatState[] scans = scanStates();
 
                 for (int i = 0; i < 2; i++)
                 {
-                    if (Math.abs(samtim - orbtim) >= 0.0005)
-                    {
-                        xyzsat = satvec(samtim);
-                        xsat = xyzsat[0];
-                        ysat = xyzsat[1];
-                        zsat = xyzsat[2];
-                        orbtim = samtim;
-                        xht = Math.sqrt(Math.pow(xyzsat[0],2) +
-                                        Math.pow(xyzsat[1],2) +
-                                        Math.pow(xyzsat[2],2));
-                    }
-                    ct = Math.cos(emega*samtim + xref);
-                    st = Math.sin(emega*samtim + xref);
+                    SatState scan = scans[i];
+                    xsat = scan.xyz[0];
+                    ysat = scan.xyz[1];
+                    zsat = scan.xyz[2];
+                    xht = scan.xht;
+                    ct = scan.ct;
+                    st = scan.st;
                     x = ct*x1 - st*y1;
                     y = st*x1 + ct*y1;
                     vcste1 = x - xsat;
@@ -690,6 +674,26 @@ public final class GOESnav extends AREAnav
     public double[][] toLinEle(double[][] latlon) 
     {
 
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  lat       latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double lat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex) 
+    {
+
         double xpar;
         double ypar;
         double zpar;
@@ -713,7 +717,6 @@ public final class GOESnav extends AREAnav
         double vcses2;
         double vcses3;
         double oldlin;
-        double orbtim;
         double xsat;
         double ysat;
         double zsat;
@@ -724,121 +727,102 @@ public final class GOESnav extends AREAnav
         double x3;
         double xyzsat[] = new double[3];
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
+        xpar = lat;
+        // expects positive West Longitude.
+        ypar = isEastPositive ? -lon : lon;
 
-        for (int point=0; point < number; point++) 
-        {
+        xlin = Double.NaN;
+        xele = Double.NaN;
 
-            xpar = latlon[indexLat][point];
-            // expects positive West Longitude.
-            ypar = isEastPositive 
-                     ? -latlon[indexLon][point]
-                     :  latlon[indexLon][point];
-
-            xlin = Double.NaN;
-            xele = Double.NaN;
+        if (Math.abs(xpar) <= 90.)
+        {
 
-            if (Math.abs(xpar) <= 90.)
+            // initialize some variables
+            oldlin = 910.; 
+            xsat = ysat = zsat = 0.0;
+            x = y = z = 0.0;
+            xht = znorm = 0.0;
+            double xyz[] = nllxyz(xpar, ypar);
+            x1 = xyz[0];
+            y1 = xyz[1];
+            z = xyz[2];
+            xdum = 0.0;
+            SatState[] scans = scanStates();
+
+            for (int i = 0; i < 2; i++)
             {
-
-                // initialize some variables
-                oldlin = 910.; 
-                orbtim = -99999.; 
-                xsat = ysat = zsat = 0.0;
-                x = y = z = 0.0;
-                xht = znorm = 0.0;
-                double xyz[] = nllxyz(xpar, ypar);
-                x1 = xyz[0];
-                y1 = xyz[1];
-                z = xyz[2];
-                xdum = 0.0;
-                samtim = time1;
-
-                for (int i = 0; i < 2; i++)
+                SatState scan = scans[i];
+                xsat = scan.xyz[0];
+                ysat = scan.xyz[1];
+                zsat = scan.xyz[2];
+                xht = scan.xht;
+                ct = scan.ct;
+                st = scan.st;
+                x = ct*x1 - st*y1;
+                y = st*x1 + ct*y1;
+                vcste1 = x - xsat;
+                vcste2 = y - ysat;
+                vcste3 = z - zsat;
+                vcses3 = b31*vcste1 + b32*vcste2 + b33*vcste3;
+                znorm = Math.sqrt(Math.pow(vcste1,2) +
+                                         Math.pow(vcste2,2) +
+                                         Math.pow(vcste3,2));
+                x3 = vcses3/znorm;
+                umv = Math.atan2(x3,Math.sqrt(rfact - Math.pow(x3,2))) - 
+                        roasin;
+                xlin = piclin - umv/radlin;
+                parlin = (double) (xlin - 1.0)/numsen;
+                if (i == 0)
                 {
-                    if (Math.abs(samtim - orbtim) >= 0.0005)
-                    {
-                        xyzsat = satvec(samtim);
-                        xsat = xyzsat[0];
-                        ysat = xyzsat[1];
-                        zsat = xyzsat[2];
-                        orbtim = samtim;
-                        xht = Math.sqrt(Math.pow(xyzsat[0],2) +
-                                        Math.pow(xyzsat[1],2) +
-                                        Math.pow(xyzsat[2],2));
-                    }
-                    ct = Math.cos(emega*samtim + xref);
-                    st = Math.sin(emega*samtim + xref);
-                    x = ct*x1 - st*y1;
-                    y = st*x1 + ct*y1;
-                    vcste1 = x - xsat;
-                    vcste2 = y - ysat;
-                    vcste3 = z - zsat;
-                    vcses3 = b31*vcste1 + b32*vcste2 + b33*vcste3;
-                    znorm = Math.sqrt(Math.pow(vcste1,2) +
-                                             Math.pow(vcste2,2) +
-                                             Math.pow(vcste3,2));
-                    x3 = vcses3/znorm;
-                    umv = Math.atan2(x3,Math.sqrt(rfact - Math.pow(x3,2))) - 
-                            roasin;
-                    xlin = piclin - umv/radlin;
-                    parlin = (double) (xlin - 1.0)/numsen;
-                    if (i == 0)
-                    {
-                        samtim = time2;
-                        oldlin = xlin;
-                    }
-                }
-                double scnnum = ( (double) (oldlin + xlin)/2.0 - 1.0)/numsen;
-                double scnfrc = (scnnum - scan1)/(scan2 - scan1);
-                xlin = oldlin + scnfrc*(xlin - oldlin);
-                samtim = time1 + tmpscl*(scnnum - scan1);
-                xyzsat = satvec(samtim);
-                xsat = xyzsat[0];
-                ysat = xyzsat[1];
-                zsat = xyzsat[2];
-                double cosa = x*xsat + y*ysat + z*zsat;
-                double ctst = 0.0001*r*xht + rsq;
-                if (cosa >= ctst) 
-                {
-                    double xsats1 = b11*xsat + b12*ysat + b13*zsat;
-                    double ysats2 = b21*xsat + b22*ysat + b23*zsat;
-                    ct = Math.cos(emega*samtim + xref);
-                    st = Math.sin(emega*samtim + xref);
-                    x = ct*x1 - st*y1;
-                    y = st*x1 + ct*y1;
-                    vcste1 = x - xsat;
-                    vcste2 = y - ysat;
-                    vcste3 = z - zsat;
-                    vcses1 = b11*vcste1 + b12*vcste2 + b13*vcste3;
-                    vcses2 = b21*vcste1 + b22*vcste2 + b23*vcste3;
-                    vcses3 = b31*vcste1 + b32*vcste2 + b33*vcste3;
-                    xnorm = Math.sqrt(Math.pow(znorm,2) - Math.pow(vcses3,2));
-                    ynorm = Math.sqrt(Math.pow(xsats1,2) + Math.pow(ysats2,2));
-                    znorm = Math.sqrt(Math.pow(vcste1,2) + 
-                                      Math.pow(vcste2,2) + 
-                                      Math.pow(vcste3,2));
-                    x3 = vcses3/znorm;
-                    umv = Math.atan2(x3,Math.sqrt(rfact - Math.pow(x3,2))) - 
-                            roasin;
-                    double slin = Math.sin(umv);
-                    double clin = Math.cos(umv);
-                    double u = rotm11*clin + rotm13*slin;
-                    double v = rotm21*clin + rotm23*slin;
-                    xele = picele + Math.asin(
-                          (xsats1*vcses2 - ysats2*vcses1)/(xnorm*ynorm))/radele;
-                    xele = xele + Math.atan2(v,u)/radele;
-                    xele = xele-gamma-gamdot*samtim;
+                    samtim = time2;
+                    oldlin = xlin;
                 }
             }
-            linele[indexLine][point] = xlin;
-            linele[indexEle][point]  = xele;
-
-        } // end point loop
+            double scnnum = ( (double) (oldlin + xlin)/2.0 - 1.0)/numsen;
+            double scnfrc = (scnnum - scan1)/(scan2 - scan1);
+            xlin = oldlin + scnfrc*(xlin - oldlin);
+            samtim = time1 + tmpscl*(scnnum - scan1);
+            xyzsat = satvec(samtim);
+            xsat = xyzsat[0];
+            ysat = xyzsat[1];
+            zsat = xyzsat[2];
+            double cosa = x*xsat + y*ysat + z*zsat;
+            double ctst = 0.0001*r*xht + rsq;
+            if (cosa >= ctst) 
+            {
+                double xsats1 = b11*xsat + b12*ysat + b13*zsat;
+                double ysats2 = b21*xsat + b22*ysat + b23*zsat;
+                ct = Math.cos(emega*samtim + xref);
+                st = Math.sin(emega*samtim + xref);
+                x = ct*x1 - st*y1;
+                y = st*x1 + ct*y1;
+                vcste1 = x - xsat;
+                vcste2 = y - ysat;
+                vcste3 = z - zsat;
+                vcses1 = b11*vcste1 + b12*vcste2 + b13*vcste3;
+                vcses2 = b21*vcste1 + b22*vcste2 + b23*vcste3;
+                vcses3 = b31*vcste1 + b32*vcste2 + b33*vcste3;
+                xnorm = Math.sqrt(Math.pow(znorm,2) - Math.pow(vcses3,2));
+                ynorm = Math.sqrt(Math.pow(xsats1,2) + Math.pow(ysats2,2));
+                znorm = Math.sqrt(Math.pow(vcste1,2) + 
+                                  Math.pow(vcste2,2) + 
+                                  Math.pow(vcste3,2));
+                x3 = vcses3/znorm;
+                umv = Math.atan2(x3,Math.sqrt(rfact - Math.pow(x3,2))) - 
+                        roasin;
+                double slin = Math.sin(umv);
+                double clin = Math.cos(umv);
+                double u = rotm11*clin + rotm13*slin;
+                double v = rotm21*clin + rotm23*slin;
+                xele = picele + Math.asin(
+                      (xsats1*vcses2 - ysats2*vcses1)/(xnorm*ynorm))/radele;
+                xele = xele + Math.atan2(v,u)/radele;
+                xele = xele-gamma-gamdot*samtim;
+            }
+        }
+        lines[lineIndex] = xlin;
+        eles[eleIndex]  = xele;
 
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
     }
 
     private int icon1(int yymmdd)
@@ -983,6 +967,83 @@ public final class GOESnav extends AREAnav
         return new double[] {xlat, xlon};
     }
 
+    /**
+     * Satellite position and the earth rotation terms at one sample
+     * time.  These depend only on the time, so one is computed per
+     * scan line and shared by all the elements on it.
+     */
+    private final class SatState
+    {
+        final int line;
+        final double samtim;
+        final double[] xyz;
+        final double xht;
+        final double rot;
+        final double cq;
+        final double ct;
+        final double st;
+
+        SatState(int line, double samtim, double[] xyz)
+        {
+            this.line = line;
+            this.samtim = samtim;
+            this.xyz = xyz;
+            xht = Math.sqrt(Math.pow(xyz[0],2) +
+                            Math.pow(xyz[1],2) +
+                            Math.pow(xyz[2],2));
+            double xcor = b11*xyz[0] + b12*xyz[1] + b13*xyz[2];
+            double ycor = b21*xyz[0] + b22*xyz[1] + b23*xyz[2];
+            rot = Math.atan2(ycor, xcor) + Math.PI;
+            cq = (Math.pow(xyz[0],2) + Math.pow(xyz[1],2))*(bsq/asq) +
+                            Math.pow(xyz[2],2) - bsq;
+            ct = Math.cos(emega*samtim+xref);
+            st = Math.sin(emega*samtim+xref);
+        }
+    }
+
+    /**
+     * Get the satellite state for an image line, computing it only
+     * if the line is not already in the cache.
+     */
+    private SatState lineState(int ilin)
+    {
+        SatState[] cache = lineCache;
+        if (cache == null)
+        {
+            cache = new SatState[LINE_CACHE_SIZE];
+            lineCache = cache;
+        }
+        int slot = ilin & (LINE_CACHE_SIZE - 1);
+        SatState state = cache[slot];
+        if (state == null || state.line != ilin)
+        {
+            double parlin = (ilin - 1)/numsen + 1;
+            double samtim = tmpscl*parlin + pictim;
+            state = new SatState(ilin, samtim, satvec(samtim));
+            cache[slot] = state;
+        }
+        return state;
+    }
+
+    /**
+     * Get the satellite state at time1 and time2.  If the times are
+     * within 0.0005 the satellite is not moved for the second one.
+     */
+    private SatState[] scanStates()
+    {
+        SatState[] states = scanStates;
+        if (states == null)
+        {
+            double[] xyz1 = satvec(time1);
+            double[] xyz2 = (Math.abs(time2 - time1) >= 0.0005)
+                             ? satvec(time2) : xyz1;
+            states = new SatState[] {
+                new SatState(0, time1, xyz1), new SatState(0, time2, xyz2) };
+            scanStates = states;
+        }
+        return states;
+    }
+
 /*
 C SATVEC PHILLI 0880 NAVLIB  COMPUTES EARTH SATELLITE AS FUNCTION OF TIM
 C VECTOR EARTH-CENTER-TO-SAT (FUNC OF TIME)
@@ -1057,6 +1118,14 @@ C VECTOR EARTH-CENTER-TO-SAT (FUNC OF TIME)
         return new double[] {x, y, z};
     }
     
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
     /** Get the lat,lon of the subpoint if available
     *
     * @return double[2] {lat, lon}
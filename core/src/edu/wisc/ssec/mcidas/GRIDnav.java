@@ -26,6 +26,8 @@ MA 02111-1307, USA
 
 package edu.wisc.ssec.mcidas;
 
+import java.util.stream.IntStream;
+
 /**
  * GRIDnav is the class for handling the navigation of McIDAS grids.
  * It is basically a Java version of GRDDEF.FOR.
@@ -54,6 +56,8 @@ public class GRIDnav
   final int LAMBERT_CONFORMAL_TANGENT = 6;
   final double EARTH_RADIUS = 6371.23;
   final double xrad = Math.PI/180.;
+  /** number of grid rows converted at a time by toLatLonGrid */
+  private static final int ROW_BLOCK = 16;
   /** "Row" index in row/column array */
   public final int indexRow=1;
   /** "Column" index in row/column array */
@@ -211,31 +215,62 @@ public class GRIDnav
   public double[][] toLatLon(double[][] rowcol)
   {
     double[][] latlon = new double[2][rowcol[0].length];
-    double xlat = Double.NaN; // temp variable for lat
-    double xlon = Double.NaN; // temp variable for lon
-    double xrlon = 0.;
-    double xldif, xedif;
-    double radius;
+    toLatLon(rowcol, latlon, 0, rowcol[0].length);
+    return latlon;
+  }
 
-    for (int i = 0; i < rowcol[0].length; i++)
+  /** 
+   * converts from grid coordinates to latitude/longitude, into an
+   * existing array.  rowcol and latlon may be the same array.
+   *
+   * @param  rowcol      array of row/col pairs.  Where 
+   *                     rowcol[indexRow][] is a row and 
+   *                     rowcol[indexCol][] is a column. 
+   *
+   * @param  latlon      output array of lat/long pairs, at least as
+   *                     long as rowcol.
+   */
+  public void toLatLon(double[][] rowcol, double[][] latlon)
+  {
+    toLatLon(rowcol, latlon, 0, rowcol[0].length);
+  }
+
+  /** 
+   * converts part of an array of grid coordinates to
+   * latitude/longitude, into the same part of an existing array.
+   * rowcol and latlon may be the same array.
+   *
+   * @param  rowcol      array of row/col pairs.  Where 
+   *                     rowcol[indexRow][] is a row and 
+   *                     rowcol[indexCol][] is a column. 
+   *
+   * @param  latlon      output array of lat/long pairs
+   *
+   * @param  offset      index of the first point to convert
+   *
+   * @param  length      number of points to convert
+   */
+  public void toLatLon(double[][] rowcol, double[][] latlon,
+                       int offset, int length)
+  {
+    double[] rows = rowcol[indexRow];
+    double[] cols = rowcol[indexCol];
+    double[] lats = latlon[indexLat];
+    double[] lons = latlon[indexLon];
+    int end = offset + length;
+
+    // one loop for each navigation type, so the type is only looked
+    // at once
+    switch (navType)
     {
-      
-      // account for flipped coordinates
-      double xrow = isRowFlipped ? rowOffset - rowcol[indexRow][i] + 1
-                                 : rowcol[indexRow][i];
-      // adjust row/col based on startRow/startCol
-      xrow = xrow + (startRow - 1);
-      double xcol = rowcol[indexCol][i] - (startColumn - 1);
-
-      if (xrow > xnrow || xrow < 1.0 ||
-          xcol > xncol || xcol < 1.0) {
-        xlat = Double.NaN;
-        xlon = Double.NaN;
-      } else {
-        switch (navType)
-        {
-          case PSEUDO_MERCATOR:
-          case PSEUDO_MERCATOR_GENERAL:
+      case PSEUDO_MERCATOR:
+      case PSEUDO_MERCATOR_GENERAL:
+        for (int i = offset; i < end; i++) {
+          double xrow = gridRow(rows[i]);
+          double xcol = gridColumn(cols[i]);
+          double xlat = Double.NaN;
+          double xlon = Double.NaN;
+          if (inGrid(xrow, xcol)) {
             if (wierd) {
               double x = xrow;
               xcol = xrow;
@@ -243,42 +278,84 @@ public class GRIDnav
             }
             xlat = glamx-((xrow-1.0)*ginct);
             xlon = glomx-((xcol-1.0)*gincn);
-            break;
+          }
+          lats[i] = xlat;
+          lons[i] = -xlon; // convert to east positive
+        }
+        break;
 
-          case EQUIDISTANT:
-            break;
+      case EQUIDISTANT:
+        // not implemented
+        for (int i = offset; i < end; i++) {
+          lats[i] = Double.NaN;
+          lons[i] = Double.NaN;
+        }
+        break;
 
-          case PS_OR_LAMBERT_CONIC:
-          case LAMBERT_CONFORMAL_TANGENT:
+      case PS_OR_LAMBERT_CONIC:
+      case LAMBERT_CONFORMAL_TANGENT:
+        for (int i = offset; i < end; i++) {
+          double xrow = gridRow(rows[i]);
+          double xcol = gridColumn(cols[i]);
+          double xlat = Double.NaN;
+          double xlon = Double.NaN;
+          if (inGrid(xrow, xcol)) {
 
-            xldif = xh * (xrow - xrowi) / xblat;
-            xedif =      (xcoli - xcol) / xblat;
+            double xldif = xh * (xrow - xrowi) / xblat;
+            double xedif =      (xcoli - xcol) / xblat;
 
-            xrlon = 0.;
+            double xrlon = 0.;
             if( !(xldif == 0 && xedif == 0)) xrlon = Math.atan2( xedif,xldif);
       
             xlon = xrlon / xfac / xrad + xqlon;
             if(xlon > 180.) xlon = xlon - 360.;
       
-            radius = Math.sqrt( xldif * xldif + xedif * xedif);
+            double radius = Math.sqrt( xldif * xldif + xedif * xedif);
             if( radius < 1.E-5 ) {
                xlat = xh * 90.;
             } else {
                xlat = xh * (90. - 2. * Math.atan( 
                           Math.exp( Math.log(radius) / xfac)) /xrad);
             }
-            break;
+          }
+          lats[i] = xlat;
+          lons[i] = -xlon; // convert to east positive
+        }
+        break;
 
-          default:
+      default:
+        for (int i = offset; i < end; i++) {
+          double xrow = gridRow(rows[i]);
+          double xcol = gridColumn(cols[i]);
+          double xlat = Double.NaN;
+          double xlon = Double.NaN;
+          if (inGrid(xrow, xcol)) {
             xlat=1.0-(xrow-1.0)/(xnr-1.0);
             xlon=1.0-(xcol-1.0)/(xnc-1.0);
-            break;
+          }
+          lats[i] = xlat;
+          lons[i] = -xlon; // convert to east positive
         }
-      }
-      latlon[indexLat][i] = xlat;
-      latlon[indexLon][i] = -xlon; // convert to east positive
+        break;
     }
-    return latlon;
+  }
+
+  /** 
+   * converts from grid coordinates (x,y) or (col, row) to latitude/longitude
+   *
+   * @param  rowcol      array of row/col pairs.  Where 
+   *                     rowcol[indexRow][] is a row and 
+   *                     rowcol[indexCol][] is a column. 
+   *
+   * @return latlon[][]  array of lat/long pairs. Output array is 
+   *                     latlon[indexLat][] of latitudes and 
+   *                     latlon[indexLon][] of longitudes.
+   */
+  public float[][] toLatLon(float[][] rowcol)
+  {
+    double[][] latlon = AREAnav.floatToDouble(rowcol);
+    toLatLon(latlon, latlon);
+    return AREAnav.doubleToFloat(latlon);
   }
 
   /**
@@ -294,83 +371,293 @@ public class GRIDnav
   public double[][] toRowCol(double[][] latlon)
   {
     double[][] rowcol = new double[2][latlon[0].length];
-    double xrow, xcol, xlat, xlon;
-    double xrlon, xclat, xrlat;
-    double glomx1;
-    double xldif, xedif, xdis, xangl, xange;
+    toRowCol(latlon, rowcol, 0, latlon[0].length);
+    return rowcol;
+  }
+
+  /**
+   * toRowCol converts latitude/longitude to grid row/col, into an
+   * existing array.  latlon and rowcol may be the same array.
+   *
+   * @param  latlon     array of lat/long pairs. Where latlon[indexLat][]
+   *                    are latitudes and latlon[indexLon][] are longitudes.
+   *
+   * @param  rowcol     output array of row/col pairs, at least as long
+   *                    as latlon.
+   */
+  public void toRowCol(double[][] latlon, double[][] rowcol)
+  {
+    toRowCol(latlon, rowcol, 0, latlon[0].length);
+  }
 
-    for (int i = 0; i < latlon[0].length; i++)
+  /**
+   * toRowCol converts part of an array of latitude/longitude to grid
+   * row/col, into the same part of an existing array.  latlon and
+   * rowcol may be the same array.
+   *
+   * @param  latlon     array of lat/long pairs. Where latlon[indexLat][]
+   *                    are latitudes and latlon[indexLon][] are longitudes.
+   *
+   * @param  rowcol     output array of row/col pairs
+   *
+   * @param  offset     index of the first point to convert
+   *
+   * @param  length     number of points to convert
+   */
+  public void toRowCol(double[][] latlon, double[][] rowcol,
+                       int offset, int length)
+  {
+    double[] lats = latlon[indexLat];
+    double[] lons = latlon[indexLon];
+    double[] rows = rowcol[indexRow];
+    double[] cols = rowcol[indexCol];
+    int end = offset + length;
+
+    // one loop for each navigation type, so the type is only looked
+    // at once
+    switch(navType)
     {
-      xrow = Double.NaN;
-      xcol = Double.NaN;
-      xlat = latlon[indexLat][i];
-      xlon = -latlon[indexLon][i];  // convert to McIDAS (west pos)
-      switch(navType)
-      {
-        case PSEUDO_MERCATOR:
-        case PSEUDO_MERCATOR_GENERAL:
-          glomx1 = glomx;
+      case PSEUDO_MERCATOR:
+      case PSEUDO_MERCATOR_GENERAL:
+        for (int i = offset; i < end; i++) {
+          double xlat = lats[i];
+          double xlon = -lons[i];  // convert to McIDAS (west pos)
+          double glomx1 = glomx;
           if (glomx < 0 && glomx*xlon < 0)
             glomx1 = glomx + 360;
-          xrow = (glamx-xlat)/ginct + 1.0;
-          xcol = (glomx1-xlon)/gincn + 1.0;
-          break;
-        case EQUIDISTANT:
-          xrlon = xlon-glomx;
-          xrlat = xlat-glamx;
-          xldif = xblat*xrlat;
-          xedif = xrlon*xblon*Math.cos(xlat*xrad);
-          xdis  = Math.sqrt(xldif*xldif+xedif*xedif);
+          setRowCol((glamx-xlat)/ginct + 1.0, (glomx1-xlon)/gincn + 1.0,
+                    rows, cols, i);
+        }
+        break;
+
+      case EQUIDISTANT:
+        for (int i = offset; i < end; i++) {
+          double xlat = lats[i];
+          double xlon = -lons[i];  // convert to McIDAS (west pos)
+          double xrlon = xlon-glomx;
+          double xrlat = xlat-glamx;
+          double xldif = xblat*xrlat;
+          double xedif = xrlon*xblon*Math.cos(xlat*xrad);
+          double xdis  = Math.sqrt(xldif*xldif+xedif*xedif);
           if( xdis > .001) {
-             xangl = Math.atan2(xldif,xedif)-90.*xrad;
-             xange = Math.atan2(xldif,xedif)+90.*xrad;
+             double xangl = Math.atan2(xldif,xedif)-90.*xrad;
+             double xange = Math.atan2(xldif,xedif)+90.*xrad;
              xldif = xdis*Math.cos(-xrot+xangl);
              xedif = xdis*Math.sin(-xrot+xange);
           }
-          xrow = xrowi-xldif;
-          xcol = xcoli-xedif;
+          setRowCol(xrowi-xldif, xcoli-xedif, rows, cols, i);
+        }
+        break;
 
-          break;
-        case PS_OR_LAMBERT_CONIC:
-        case LAMBERT_CONFORMAL_TANGENT:
+      case PS_OR_LAMBERT_CONIC:
+      case LAMBERT_CONFORMAL_TANGENT:
+        for (int i = offset; i < end; i++) {
+          double xlat = lats[i];
+          double xlon = -lons[i];  // convert to McIDAS (west pos)
 
-          xrlon = xlon - xqlon;
+          double xrlon = xlon - xqlon;
           if(xrlon > 180.) xrlon = xrlon - 360.;
           xrlon = xrlon * xfac * xrad;
      
-          xclat = (90. - xh * xlat) * xrad * .5;
-          xrlat = xblat * Math.pow(Math.tan(xclat), xfac);
+          double xclat = (90. - xh * xlat) * xrad * .5;
+          double xrlat = xblat * Math.pow(Math.tan(xclat), xfac);
      
-          xrow = xh * xrlat * Math.cos(xrlon) + xrowi;
-          xcol = -xrlat * Math.sin(xrlon) + xcoli;
-      
-          break;
-        default:
-          xrow = (1.0 - xlat)*(xnr-1.0)+1;
-          xcol = (1.0 - xlon)*(xnc-1.0)+1;
-          break;
-      }
+          setRowCol(xh * xrlat * Math.cos(xrlon) + xrowi,
+                    -xrlat * Math.sin(xrlon) + xcoli, rows, cols, i);
+        }
+        break;
 
-      if (xrow > xnrow || xrow < 1.0 ||
-          xcol > xncol || xcol < 1.0) {
+      default:
+        for (int i = offset; i < end; i++) {
+          double xlat = lats[i];
+          double xlon = -lons[i];  // convert to McIDAS (west pos)
+          setRowCol((1.0 - xlat)*(xnr-1.0)+1, (1.0 - xlon)*(xnc-1.0)+1,
+                    rows, cols, i);
+        }
+        break;
+    }
+  }
 
-        xrow = Double.NaN;
-        xcol = Double.NaN;
+  /**
+   * toRowCol converts latitude/longitude to grid row/col
+   *
+   * @param  latlon     array of lat/long pairs. Where latlon[indexLat][]
+   *                    are latitudes and latlon[indexLon][] are longitudes.
+   *
+   * @return rowcol[][] array of row/col pairs.  Where
+   *                    rowcol[indexRow][] is a row and rowcol[indexCol][]
+   *                    is an column.  These are in 'grid' coordinates
+   */
+  public float[][] toRowCol(float[][] latlon)
+  {
+    double[][] rowcol = AREAnav.floatToDouble(latlon);
+    toRowCol(rowcol, rowcol);
+    return AREAnav.doubleToFloat(rowcol);
+  }
 
-      } else {
-     
-        // account for non (1,1) origin
-        xrow = xrow - (startRow - 1);
-        xcol = xcol + (startColumn - 1);
-        // account for flipped coordinates
-        if (isRowFlipped) xrow = rowOffset - xrow + 1;
+  /**
+   * See if latitude depends on the row alone and longitude on the
+   * column alone, as for pseudo-mercator grids.  Then
+   * {@link #getLatitudeAxis(int)} and {@link #getLongitudeAxis(int)}
+   * describe the whole grid, and a point is off the grid (NaN) if its
+   * row or its column is.
+   *
+   * @return true if the grid is separable
+   */
+  public boolean isSeparable()
+  {
+    return (navType == PSEUDO_MERCATOR ||
+            navType == PSEUDO_MERCATOR_GENERAL) && !wierd;
+  }
+
+  /**
+   * Get the latitudes of the rows of a separable grid (see
+   * {@link #isSeparable()}).
+   *
+   * @param  rows   number of rows
+   *
+   * @return latitude of rows 1 to rows, NaN where off the grid
+   *
+   * @throws UnsupportedOperationException if the grid is not separable
+   */
+  public double[] getLatitudeAxis(int rows)
+  {
+    if (!isSeparable()) {
+      throw new UnsupportedOperationException(
+        "Grid navigation type " + navType + " is not separable");
+    }
+    double[] lats = new double[rows];
+    for (int row = 0; row < rows; row++) {
+      double xrow = gridRow(row + 1);
+      lats[row] = (xrow > xnrow || xrow < 1.0)
+                  ? Double.NaN : glamx-((xrow-1.0)*ginct);
+    }
+    return lats;
+  }
 
+  /**
+   * Get the longitudes of the columns of a separable grid (see
+   * {@link #isSeparable()}).
+   *
+   * @param  columns   number of columns
+   *
+   * @return longitude of columns 1 to columns, NaN where off the grid
+   *
+   * @throws UnsupportedOperationException if the grid is not separable
+   */
+  public double[] getLongitudeAxis(int columns)
+  {
+    if (!isSeparable()) {
+      throw new UnsupportedOperationException(
+        "Grid navigation type " + navType + " is not separable");
+    }
+    double[] lons = new double[columns];
+    for (int col = 0; col < columns; col++) {
+      double xcol = gridColumn(col + 1);
+      lons[col] = (xcol > xncol || xcol < 1.0)
+                  ? Double.NaN : -(glomx-((xcol-1.0)*gincn));
+    }
+    return lons;
+  }
+
+  /**
+   * Converts a whole grid to latitude/longitude in one call.  Separable
+   * grids are filled in from their axes; for the others the rows are
+   * converted in blocks that run in parallel.
+   *
+   * @param  rows      number of rows
+   *
+   * @param  columns   number of columns
+   *
+   * @return latlon[2][rows * columns], latlon[indexLat] the latitudes
+   *         and latlon[indexLon] the longitudes; row i+1, column j+1 is
+   *         at i * columns + j.
+   */
+  public float[][] toLatLonGrid(final int rows, final int columns)
+  {
+    final float[][] latlon = new float[2][rows * columns];
+    if (isSeparable()) {
+      double[] lats = getLatitudeAxis(rows);
+      double[] lons = getLongitudeAxis(columns);
+      int point = 0;
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < columns; col++, point++) {
+          boolean off = Double.isNaN(lats[row]) || Double.isNaN(lons[col]);
+          latlon[indexLat][point] = off ? Float.NaN : (float) lats[row];
+          latlon[indexLon][point] = off ? Float.NaN : (float) lons[col];
+        }
+      }
+      return latlon;
+    }
+
+    int nblocks = (rows + ROW_BLOCK - 1) / ROW_BLOCK;
+    IntStream.range(0, nblocks).parallel().forEach(block -> {
+      // own scratch array for each block
+      int first = block * ROW_BLOCK;
+      int last = Math.min(first + ROW_BLOCK, rows);
+      int count = (last - first) * columns;
+      double[][] points = new double[2][count];
+      int point = 0;
+      for (int row = first; row < last; row++) {
+        for (int col = 0; col < columns; col++, point++) {
+          points[indexRow][point] = row + 1;
+          points[indexCol][point] = col + 1;
+        }
       }
+      toLatLon(points, points, 0, count);
+      int offset = first * columns;
+      for (point = 0; point < count; point++) {
+        latlon[indexLat][offset + point] = (float) points[indexLat][point];
+        latlon[indexLon][offset + point] = (float) points[indexLon][point];
+      }
+    });
+    return latlon;
+  }
+
+  /** row in calculation coordinates */
+  private double gridRow(double row)
+  {
+    // account for flipped coordinates
+    double xrow = isRowFlipped ? rowOffset - row + 1 : row;
+    // adjust row/col based on startRow/startCol
+    return xrow + (startRow - 1);
+  }
+
+  /** column in calculation coordinates */
+  private double gridColumn(double col)
+  {
+    return col - (startColumn - 1);
+  }
+
+  /** whether a calculation row/column is on the grid */
+  private boolean inGrid(double xrow, double xcol)
+  {
+    return !(xrow > xnrow || xrow < 1.0 ||
+             xcol > xncol || xcol < 1.0);
+  }
+
+  /** store a calculation row/column, NaN if off the grid */
+  private void setRowCol(double xrow, double xcol,
+                         double[] rows, double[] cols, int i)
+  {
+    if (xrow > xnrow || xrow < 1.0 ||
+        xcol > xncol || xcol < 1.0) {
+
+      xrow = Double.NaN;
+      xcol = Double.NaN;
+
+    } else {
+     
+      // account for non (1,1) origin
+      xrow = xrow - (startRow - 1);
+      xcol = xcol + (startColumn - 1);
+      // account for flipped coordinates
+      if (isRowFlipped) xrow = rowOffset - xrow + 1;
 
-      rowcol[indexRow][i] = xrow;
-      rowcol[indexCol][i] = xcol;
     }
-    return rowcol;
+
+    rows[i] = xrow;
+    cols[i] = xcol;
   }
 
 
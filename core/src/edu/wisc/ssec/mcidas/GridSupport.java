@@ -0,0 +1,138 @@
+//
+// GridSupport.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Plumbing for the classes that work through whole images a block at a
+ * time and keep their results for reuse, such as {@link Remapper} and
+ * {@link ViewingGeometry}.
+ */
+final class GridSupport {
+
+  private GridSupport() {}
+
+  /**
+   * Run a task for every block.
+   *
+   * @param blocks    number of blocks; the task is given 0 to blocks - 1
+   * @param parallel  <code>true</code> to run blocks on multiple threads
+   * @param task      work for one block
+   */
+  static void forEach(int blocks, boolean parallel, IntConsumer task) {
+    IntStream range = IntStream.range(0, blocks);
+    if (parallel) range = range.parallel();
+    range.forEach(task);
+  }
+
+  /**
+   * A map of a fixed number of entries, least recently used entries
+   * dropped first, that may be used by many threads.  Values may be held
+   * softly, so the garbage collector can drop large ones when memory is
+   * short.
+   */
+  static final class Cache<K, V> {
+
+    private final boolean soft;
+    private final Map<K, Supplier<V>> map;
+
+    /**
+     * Make an empty cache.
+     *
+     * @param maxSize  most entries kept
+     * @param soft     <code>true</code> to hold values by SoftReference
+     */
+    Cache(final int maxSize, boolean soft) {
+      this.soft = soft;
+      map = new LinkedHashMap<K, Supplier<V>>(maxSize, 0.75f, true) {
+        protected boolean removeEldestEntry(
+            Map.Entry<K, Supplier<V>> eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key  its key
+     *
+     * @return the value, or <code>null</code> if it is not kept
+     */
+    synchronized V get(K key) {
+      Supplier<V> holder = map.get(key);
+      if (holder == null) return null;
+      V value = holder.get();
+      if (value == null) map.remove(key);
+      return value;
+    }
+
+    /**
+     * Keep a value, replacing any kept under the same key.
+     *
+     * @param key    its key
+     * @param value  the value
+     */
+    synchronized void put(K key, V value) {
+      map.put(key, hold(value));
+    }
+
+    /**
+     * Keep a value unless one is already kept under the same key.
+     *
+     * @param key    its key
+     * @param value  the value
+     *
+     * @return the value kept before, or <code>value</code> if there was
+     *         none
+     */
+    synchronized V putIfAbsent(K key, V value) {
+      V kept = get(key);
+      if (kept != null) return kept;
+      map.put(key, hold(value));
+      return value;
+    }
+
+    /** Drop all the values. */
+    synchronized void clear() {
+      map.clear();
+    }
+
+    private Supplier<V> hold(V value) {
+      if (soft) {
+        return new SoftReference<V>(value)::get;
+      }
+      return () -> value;
+    }
+  }
+}
@@ -0,0 +1,532 @@
+//
+// InverseNavigator.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Converts latitude/longitude to line/element within an image using
+ * only the forward (line/element to latitude/longitude) transform of an
+ * {@link AREAnav}.  This is for navigations whose inverse iterates,
+ * such as GMSX, when many points are to be located, as in remapping or
+ * point extraction, and for points that must round trip through the
+ * forward transform to within a small fraction of a pixel.  Where the
+ * navigation's inverse is in closed form it is faster than this.
+ *
+ * <p>A coarse grid of pixel corners is navigated once, and its cells are
+ * put in a latitude/longitude hash.  A point is located by finding the
+ * cell it falls in and inverting the cell's bilinear interpolation;
+ * the result is then finished with one or two Newton steps on the
+ * forward transform, using the cell's interpolation for the Jacobian.
+ * Points near cells that do not navigate everywhere, such as on the limb
+ * of the earth, are done with the navigation's own inverse.</p>
+ *
+ * <p>Lines and elements found are 'file' coordinates of the navigation,
+ * which for a navigation from {@link AreaFile#getNavigation()} are row
+ * and column indices of the file's data.  Only points in the
+ * image, within half a pixel of lines 0 to lines - 1 and elements 0 to
+ * elements - 1, are located; the others are <code>Double.NaN</code>.
+ * An <code>InverseNavigator</code> is not safe for use by more than one
+ * thread at a time.</p>
+ */
+public class InverseNavigator {
+
+  /** default corner grid spacing, in pixels */
+  public static final int DEFAULT_STEP = 16;
+
+  /** Newton steps are stopped when they are this small, in pixels */
+  private static final double TOLERANCE = 1.0e-3;
+
+  /** maximum number of Newton steps */
+  private static final int MAX_STEPS = 4;
+
+  /** points along each side of the grid navigated in partial cells */
+  private static final int PARTIAL_SAMPLES = 9;
+
+  private final AREAnav nav;
+  private final int lines;
+  private final int elements;
+
+  // corner grid: lines and elements, and their lat/lons
+  private final double[] cornerLines;
+  private final double[] cornerEles;
+  private final double[] cornerLats;
+  private final double[] cornerLons;
+
+  // cells with all corners navigated and no pole inside; points near
+  // the others are done with the navigation's inverse
+  private final boolean[] complete;
+
+  // bounding box {minLat, maxLat, minLon, maxLon} of each cell, with
+  // longitudes unwrapped from its first corner; null if no corner
+  // navigates
+  private final double[][] boxes;
+
+  // latitude/longitude hash of the cells: the cells of bin b are
+  // binCells[binStart[b]] to binCells[binStart[b+1]-1]
+  private final double minLat;
+  private final double binSize;
+  private final int latBins;
+  private final int lonBins;
+  private final int[] binStart;
+  private final int[] binCells;
+
+  // scratch for the forward transform
+  private final double[] latlon = new double[2];
+
+  // cell the last point was found in, tried first for the next one
+  private int lastCell = -1;
+
+  /**
+   * Create an inverse navigator for an image, with corners every
+   * {@link #DEFAULT_STEP} pixels.
+   *
+   * @param nav       navigation of the image
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   */
+  public InverseNavigator(AREAnav nav, int lines, int elements) {
+    this(nav, lines, elements, DEFAULT_STEP);
+  }
+
+  /**
+   * Create an inverse navigator for an image.  The corner grid is
+   * navigated here, with a copy of the navigation that is then used for
+   * every point.
+   *
+   * @param nav       navigation of the image
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   * @param step      spacing of the corner grid, in pixels
+   */
+  public InverseNavigator(AREAnav nav, int lines, int elements, int step) {
+    if (nav == null) {
+      throw new IllegalArgumentException("navigation may not be null");
+    }
+    if (lines < 1 || elements < 1 || step < 1) {
+      throw new IllegalArgumentException(
+        "image size and step must be positive");
+    }
+    this.nav = nav.copy();
+    this.lines = lines;
+    this.elements = elements;
+
+    cornerLines = corners(lines, step);
+    cornerEles = corners(elements, step);
+    int nl = cornerLines.length;
+    int ne = cornerEles.length;
+    double[][] corners = new double[2][nl * ne];
+    this.nav.toLatLonGrid(cornerLines, cornerEles, corners);
+    cornerLats = corners[this.nav.indexLat];
+    cornerLons = corners[this.nav.indexLon];
+
+    int ncells = (nl - 1) * (ne - 1);
+    complete = new boolean[ncells];
+    boxes = new double[ncells][];
+    double lowLat = Double.POSITIVE_INFINITY;
+    double highLat = Double.NEGATIVE_INFINITY;
+    double[] extents = new double[ncells];
+    int nextents = 0;
+    for (int cell = 0; cell < ncells; cell++) {
+      double[] box = cellBox(cell);
+      if (box == null) continue;
+      boxes[cell] = box;
+      lowLat = Math.min(lowLat, box[0]);
+      highLat = Math.max(highLat, box[1]);
+      if (complete[cell]) {
+        extents[nextents++] = Math.max(box[1] - box[0], box[3] - box[2]);
+      }
+    }
+
+    // hash bins about the size of a typical cell, but not too many
+    double size = 1.0;
+    if (nextents > 0) {
+      java.util.Arrays.sort(extents, 0, nextents);
+      size = Math.max(extents[nextents / 2], 1.0e-4);
+    }
+    if (lowLat > highLat) {
+      lowLat = 0.0;
+      highLat = 0.0;
+    }
+    while (size < 180.0 &&
+           (highLat - lowLat + 2 * size) / size * (360.0 / size) >
+             4.0 * ncells + 1024.0) {
+      size *= 2.0;
+    }
+    binSize = size;
+    minLat = lowLat - size;
+    latBins = (int) Math.ceil((highLat + size - minLat) / size) + 1;
+    lonBins = (int) Math.ceil(360.0 / size);
+
+    // count the cells in each bin, then fill them in
+    int nbins = latBins * lonBins;
+    binStart = new int[nbins + 1];
+    int[] cells = null;
+    for (int pass = 0; pass < 2; pass++) {
+      int[] fill = null;
+      if (pass == 1) {
+        fill = binStart.clone();
+        cells = new int[binStart[nbins]];
+      }
+      for (int cell = 0; cell < ncells; cell++) {
+        double[] box = boxes[cell];
+        if (box == null) continue;
+        // cells that are not complete are widened by the size of the
+        // cells around them, or a bin, each way
+        double pad = complete[cell] ? 0.0 : Math.max(size, reach(cell));
+        int lat1 = latBin(box[0] - pad);
+        int lat2 = latBin(box[1] + pad);
+        int lon1 = (int) Math.floor((box[2] - pad + 180.0) / size);
+        int lon2 = (int) Math.floor((box[3] + pad + 180.0) / size);
+        if (lon2 - lon1 >= lonBins) {
+          lon1 = 0;
+          lon2 = lonBins - 1;
+        }
+        for (int i = lat1; i <= lat2; i++) {
+          for (int j = lon1; j <= lon2; j++) {
+            int bin = i * lonBins + Math.floorMod(j, lonBins);
+            if (pass == 0) {
+              binStart[bin + 1]++;
+            } else {
+              cells[fill[bin]++] = cell;
+            }
+          }
+        }
+      }
+      if (pass == 0) {
+        for (int bin = 0; bin < nbins; bin++) {
+          binStart[bin + 1] += binStart[bin];
+        }
+      }
+    }
+    binCells = cells;
+  }
+
+  /**
+   * toLinEle converts lat/long to line/element.  latlon and linele may
+   * be the same array.
+   *
+   * @param  latlon      array of lat/long pairs. Where latlon[indexLat][]
+   *                     are latitudes and latlon[indexLon][] are
+   *                     longitudes of the navigation.
+   *
+   * @param  linele      output array of line/element pairs, at least as
+   *                     long as latlon, in 'file' coordinates; NaN for
+   *                     points not in the image.
+   */
+  public void toLinEle(double[][] latlon, double[][] linele) {
+    double[] lats = latlon[nav.indexLat];
+    double[] lons = latlon[nav.indexLon];
+    double[] point = new double[2];
+    for (int i = 0; i < lats.length; i++) {
+      toLinEle(lats[i], lons[i], point);
+      linele[nav.indexLine][i] = point[nav.indexLine];
+      linele[nav.indexEle][i] = point[nav.indexEle];
+    }
+  }
+
+  /**
+   * toLinEle converts lat/long to line/element.
+   *
+   * @param  latlon      array of lat/long pairs. Where latlon[indexLat][]
+   *                     are latitudes and latlon[indexLon][] are
+   *                     longitudes of the navigation.
+   *
+   * @return linele      array of line/element pairs, in 'file'
+   *                     coordinates; NaN for points not in the image.
+   */
+  public double[][] toLinEle(double[][] latlon) {
+    double[][] linele = new double[2][latlon[0].length];
+    toLinEle(latlon, linele);
+    return linele;
+  }
+
+  /**
+   * toLinEle converts a single lat/long to line/element.
+   *
+   * @param  lat        latitude
+   *
+   * @param  lon        longitude
+   *
+   * @param  linele     output array of at least 2 values;
+   *                    linele[indexLine] gets the line and
+   *                    linele[indexEle] the element, in 'file'
+   *                    coordinates; NaN if the point is not in the
+   *                    image.
+   */
+  public void toLinEle(double lat, double lon, double[] linele) {
+    linele[nav.indexLine] = Double.NaN;
+    linele[nav.indexEle] = Double.NaN;
+    if (Double.isNaN(lat) || Double.isNaN(lon)) return;
+    int latBin = (int) Math.floor((lat - minLat) / binSize);
+    if (latBin < 0 || latBin >= latBins) return;
+    int lonBin = Math.floorMod(
+      (int) Math.floor((wrap(lon) + 180.0) / binSize), lonBins);
+    int bin = latBin * lonBins + lonBin;
+
+    // points usually come in order, so try the last cell first
+    if (lastCell >= 0 && locate(lastCell, lat, lon, linele)) return;
+
+    for (int k = binStart[bin]; k < binStart[bin + 1]; k++) {
+      int cell = binCells[k];
+      if (complete[cell] && cell != lastCell &&
+          locate(cell, lat, lon, linele)) {
+        lastCell = cell;
+        return;
+      }
+    }
+
+    // near cells that don't navigate everywhere, or just outside a
+    // cell's interpolation where the image edge or the limb curves
+    if (binStart[bin] < binStart[bin + 1]) {
+      nav.toLinEle(lat, lon, linele);
+      if (!inImage(linele[nav.indexLine], linele[nav.indexEle])) {
+        linele[nav.indexLine] = Double.NaN;
+        linele[nav.indexEle] = Double.NaN;
+      }
+    }
+  }
+
+  /**
+   * find a point in a cell: invert the cell's bilinear interpolation,
+   * then take Newton steps on the forward transform.
+   */
+  private boolean locate(int cell, double lat, double lon, double[] linele) {
+    int ne = cornerEles.length;
+    int row = cell / (ne - 1);
+    int col = cell % (ne - 1);
+    int p00 = row * ne + col;
+    int p01 = p00 + 1;
+    int p10 = p00 + ne;
+    int p11 = p10 + 1;
+
+    // corners and point relative to corner 00, longitudes unwrapped
+    double ref = cornerLons[p00];
+    double x = wrap(lon - ref);
+    double[] box = boxes[cell];
+    if (lat < box[0] || lat > box[1] ||
+        ref + x < box[2] || ref + x > box[3]) {
+      return false;
+    }
+    double y01 = cornerLats[p01] - cornerLats[p00];
+    double y10 = cornerLats[p10] - cornerLats[p00];
+    double y11 = cornerLats[p11] - cornerLats[p00];
+    double x01 = wrap(cornerLons[p01] - ref);
+    double x10 = wrap(cornerLons[p10] - ref);
+    double x11 = wrap(cornerLons[p11] - ref);
+    double y = lat - cornerLats[p00];
+
+    // bilinear: (u, v) along elements and lines from corner 00
+    double yc = y11 - y01 - y10;
+    double xc = x11 - x01 - x10;
+    double u = 0.5;
+    double v = 0.5;
+    double ju = 0, jv = 0, ku = 0, kv = 0;
+    for (int it = 0; it < 8; it++) {
+      double fy = y01 * u + y10 * v + yc * u * v - y;
+      double fx = x01 * u + x10 * v + xc * u * v - x;
+      ju = y01 + yc * v;
+      jv = y10 + yc * u;
+      ku = x01 + xc * v;
+      kv = x10 + xc * u;
+      double det = ju * kv - jv * ku;
+      if (det == 0.0) return false;
+      double du = (fy * kv - fx * jv) / det;
+      double dv = (fx * ju - fy * ku) / det;
+      u -= du;
+      v -= dv;
+      if (Math.abs(du) + Math.abs(dv) < 1.0e-9) break;
+    }
+    double eps = 1.0e-6;
+    if (!(u >= -eps && u <= 1.0 + eps && v >= -eps && v <= 1.0 + eps)) {
+      return false;
+    }
+
+    // Newton steps on the forward transform, with the cell's Jacobian
+    double dline = cornerLines[row + 1] - cornerLines[row];
+    double dele = cornerEles[col + 1] - cornerEles[col];
+    double line = cornerLines[row] + v * dline;
+    double ele = cornerEles[col] + u * dele;
+    double a = ju / dele;   // dlat/dele
+    double b = jv / dline;  // dlat/dline
+    double c = ku / dele;   // dlon/dele
+    double d = kv / dline;  // dlon/dline
+    double det = a * d - b * c;
+    for (int it = 0; it < MAX_STEPS; it++) {
+      nav.toLatLon(line, ele, latlon);
+      double ry = lat - latlon[nav.indexLat];
+      double rx = wrap(lon - latlon[nav.indexLon]);
+      if (Double.isNaN(ry) || Double.isNaN(rx)) return false;
+      double sele = (ry * d - rx * b) / det;
+      double sline = (rx * a - ry * c) / det;
+      ele += sele;
+      line += sline;
+      if (Math.abs(sele) + Math.abs(sline) < TOLERANCE) {
+        if (!inImage(line, ele)) return false;
+        linele[nav.indexLine] = line;
+        linele[nav.indexEle] = ele;
+        return true;
+      }
+    }
+    // did not converge; let the navigation do it
+    nav.toLinEle(lat, lon, linele);
+    if (!inImage(linele[nav.indexLine], linele[nav.indexEle])) {
+      linele[nav.indexLine] = Double.NaN;
+      linele[nav.indexEle] = Double.NaN;
+    }
+    return true;
+  }
+
+  /**
+   * bounding box of a cell, longitudes unwrapped from its first
+   * navigated corner; null if no corner navigates.  Also sets
+   * complete[cell], which is false for cells around a pole.
+   */
+  private double[] cellBox(int cell) {
+    int ne = cornerEles.length;
+    int p00 = (cell / (ne - 1)) * ne + cell % (ne - 1);
+    // corners in order around the cell
+    int[] points = {p00, p00 + 1, p00 + ne + 1, p00 + ne};
+    double[] box = null;
+    double ref = 0.0;
+    double turn = 0.0;
+    int navigated = 0;
+    for (int p : points) {
+      double lat = cornerLats[p];
+      double lon = cornerLons[p];
+      if (Double.isNaN(lat) || Double.isNaN(lon)) continue;
+      if (box == null) {
+        ref = lon;
+        box = new double[] {lat, lat, lon, lon};
+      }
+      turn += wrap(lon - ref);
+      lon = ref + wrap(lon - ref);
+      ref = lon;
+      box[0] = Math.min(box[0], lat);
+      box[1] = Math.max(box[1], lat);
+      box[2] = Math.min(box[2], lon);
+      box[3] = Math.max(box[3], lon);
+      navigated++;
+    }
+    complete[cell] = (navigated == 4);
+
+    // the part of the earth in a partial cell may reach well beyond its
+    // corners, so look inside it too
+    if (navigated < 4) {
+      int row = cell / (ne - 1);
+      int col = cell % (ne - 1);
+      double[] sampleLines = samples(cornerLines[row], cornerLines[row + 1]);
+      double[] sampleEles = samples(cornerEles[col], cornerEles[col + 1]);
+      double[][] latlon = new double[2][sampleLines.length * sampleEles.length];
+      nav.toLatLonGrid(sampleLines, sampleEles, latlon);
+      double[] lats = latlon[nav.indexLat];
+      double[] lons = latlon[nav.indexLon];
+      for (int p = 0; p < lats.length; p++) {
+        double lat = lats[p];
+        double lon = lons[p];
+        if (Double.isNaN(lat) || Double.isNaN(lon)) continue;
+        if (box == null) {
+          ref = lon;
+          box = new double[] {lat, lat, lon, lon};
+        }
+        lon = ref + wrap(lon - ref);
+        box[0] = Math.min(box[0], lat);
+        box[1] = Math.max(box[1], lat);
+        box[2] = Math.min(box[2], lon);
+        box[3] = Math.max(box[3], lon);
+      }
+      return box;
+    }
+
+    // longitudes that go all the way round enclose a pole
+    if (complete[cell] && Math.abs(turn + wrap(cornerLons[p00] - ref)) >
+                          180.0) {
+      complete[cell] = false;
+      if (box[0] + box[1] > 0.0) {
+        box[1] = 90.0;
+      } else {
+        box[0] = -90.0;
+      }
+      box[2] = -180.0;
+      box[3] = 180.0;
+    }
+    return box;
+  }
+
+  /** largest latitude or longitude extent of a cell and its neighbours */
+  private double reach(int cell) {
+    int ne = cornerEles.length;
+    int row = cell / (ne - 1);
+    int col = cell % (ne - 1);
+    int rows = cornerLines.length - 1;
+    double reach = 0.0;
+    for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, row + 1); i++) {
+      for (int j = Math.max(0, col - 1); j <= Math.min(ne - 2, col + 1); j++) {
+        double[] box = boxes[i * (ne - 1) + j];
+        if (box == null) continue;
+        reach = Math.max(reach,
+          Math.max(box[1] - box[0], box[3] - box[2]));
+      }
+    }
+    return reach;
+  }
+
+  /** PARTIAL_SAMPLES coordinates evenly from first to last */
+  private static double[] samples(double first, double last) {
+    double[] samples = new double[PARTIAL_SAMPLES];
+    for (int i = 0; i < PARTIAL_SAMPLES; i++) {
+      samples[i] = first + (last - first) * i / (PARTIAL_SAMPLES - 1);
+    }
+    return samples;
+  }
+
+  /** latitude hash bin, clipped to the bins */
+  private int latBin(double lat) {
+    int bin = (int) Math.floor((lat - minLat) / binSize);
+    return Math.max(0, Math.min(latBins - 1, bin));
+  }
+
+  /** whether a line/element is within the image */
+  private boolean inImage(double line, double ele) {
+    // NaN fails both tests
+    return line >= -0.5 && line <= lines - 0.5 &&
+           ele >= -0.5 && ele <= elements - 0.5;
+  }
+
+  /** corner coordinates every step pixels across the pixel edges */
+  private static double[] corners(int size, int step) {
+    int n = (size + step - 1) / step + 1;
+    double[] corners = new double[n];
+    for (int i = 0; i < n; i++) {
+      corners[i] = Math.min(i * step, size) - 0.5;
+    }
+    return corners;
+  }
+
+  /** longitude difference brought into -180 to 180 */
+  private static double wrap(double lon) {
+    return lon - 360.0 * Math.floor((lon + 180.0) / 360.0);
+  }
+}
@@ -127,7 +127,16 @@ public class KALPnav extends AREAnav {
   }
 
  
+  /** Determine if longitudes are positive East
+   *
+   * @return  true if positive East, false if positive West
+   */
+  public boolean isEastPositive() {
+    return isEastPositive;
+  }
+
   public float[][] toLatLon(float[][] linele) { 
+    final NavMath m = navMath;
 
     double xele2, xlin2, x, y, xr, yr, rs, tanx, tany, val1, val2, yk;
     double vmu, cosrf, sinrf, xt, yt, zt, xfi, xla, teta;
@@ -148,8 +157,8 @@ public class KALPnav extends AREAnav {
       x=xr*lpsi2*deltax*cdr;
       y=yr*lpsi2*deltay*cdr;
       rs=re+h;
-      tanx=Math.tan(x);
-      tany=Math.tan(y);
+      tanx=m.tan(x);
+      tany=m.tan(y);
       val1=1.+tanx*tanx;
       val2=1.+(tany*tany)*((1.+a)*(1.+a));
       yk=rs/re;
@@ -161,14 +170,14 @@ public class KALPnav extends AREAnav {
       }
 
       vmu=(rs-(re*(Math.sqrt((yk*yk)-(yk*yk-1)*val1*val2))))/(val1*val2);
-      cosrf=Math.cos(sublat*cdr);
-      sinrf=Math.sin(sublat*cdr);
+      cosrf=m.cos(sublat*cdr);
+      sinrf=m.sin(sublat*cdr);
       xt=(rs*cosrf)+(vmu*(tanx*sinrf-cosrf));
       yt=(rs*sinrf)-(vmu*(tanx*cosrf+sinrf));
-      zt=vmu*tany/Math.cos(x);
-      teta=Math.asin(zt/rp);
-      xfi=(Math.atan(((Math.tan(teta))*re)/rp))*crd;
-      xla=-Math.atan(yt/xt)*crd;
+      zt=vmu*tany/m.cos(x);
+      teta=m.asin(zt/rp);
+      xfi=(m.atan(((m.tan(teta))*re)/rp))*crd;
+      xla=-m.atan(yt/xt)*crd;
 //--- CHANGE LONGITUDE FOR CORRECT SUBPOINT
       xla=xla+sublon;
       if (isEastPositive) xla = -xla;
@@ -179,6 +188,7 @@ public class KALPnav extends AREAnav {
   }
 
   public float[][] toLinEle(float [][] latlon) {
+    final NavMath m = navMath;
 
 
     double x1, y1, xfi, xla, rom, y, r1, r2, rs, reph, rpph;
@@ -197,9 +207,9 @@ public class KALPnav extends AREAnav {
       y1=y1+sublon;
       xfi=x1*cdr;
       xla=y1*cdr;
-      rom=(re*rp)/Math.sqrt(rp*rp*Math.cos(xfi) *
-            Math.cos(xfi)+re*re*Math.sin(xfi)*Math.sin(xfi));
-      y=Math.sqrt(h*h+rom*rom-2*h*rom*Math.cos(xfi)*Math.cos(xla));
+      rom=(re*rp)/Math.sqrt(rp*rp*m.cos(xfi) *
+            m.cos(xfi)+re*re*m.sin(xfi)*m.sin(xfi));
+      y=Math.sqrt(h*h+rom*rom-2*h*rom*m.cos(xfi)*m.cos(xla));
       r1=y*y+rom*rom;
       r2=h*h;
       if (r1 > r2) {
@@ -210,15 +220,15 @@ public class KALPnav extends AREAnav {
         rs=re+h;
         reph=re;
         rpph=rp;
-        coslo=Math.cos(sublat*cdr);
-        sinlo=Math.sin(sublat*cdr);
-        teta=Math.atan((rpph/reph)*Math.tan(xfi));
-        xt=reph*Math.cos(teta)*Math.cos(xla);
-        yt=reph*Math.cos(teta)*Math.sin(xla);
-        zt=rpph*Math.sin(teta);
-        px=Math.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
+        coslo=m.cos(sublat*cdr);
+        sinlo=m.sin(sublat*cdr);
+        teta=m.atan((rpph/reph)*m.tan(xfi));
+        xt=reph*m.cos(teta)*m.cos(xla);
+        yt=reph*m.cos(teta)*m.sin(xla);
+        zt=rpph*m.sin(teta);
+        px=m.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
          (sinlo*(yt-rs*sinlo)+(xt-rs*coslo)*coslo));
-        py=Math.atan(zt*((Math.tan(px)*sinlo-coslo)/(xt-rs*coslo))*Math.cos(px));
+        py=m.atan(zt*((m.tan(px)*sinlo-coslo)/(xt-rs*coslo))*m.cos(px));
         px=px*crd;
         py=py*crd;
         xr=px/(deltax*lpsi2);
@@ -235,113 +245,149 @@ public class KALPnav extends AREAnav {
   }
 
 
+  /**
+   * Angle between neighbouring image pixels, for fast math.
+   *
+   * @return pixel angle in radians
+   */
+  protected double getPixelAngle() {
+    return lpsi2 * Math.min(Math.abs(deltax), Math.abs(deltay)) * cdr / 4.0;
+  }
+
   public double[][] toLinEle(double [][] latlon) {
 
+    double[][] linele = new double[2][latlon[0].length];
+    toLinEle(latlon, linele);
+    return linele;
+  }
 
-    double x1, y1, xfi, xla, rom, y, r1, r2, rs, reph, rpph;
-    double coslo, sinlo, teta, xt, yt, zt, px, py, xr, yr;
+  protected void latLonToImage(double x1, double y1,
+                               double[] lines, int lineIndex,
+                               double[] eles, int eleIndex) {
+    final NavMath m = navMath;
 
-    int number = latlon[0].length;
-    double[][] linele = new double[2][number];
 
-    for (int point=0; point<number; point++) {
+    double xfi, xla, rom, y, r1, r2, rs, reph, rpph;
+    double coslo, sinlo, teta, xt, yt, zt, px, py, xr, yr;
 
-      x1 = latlon[indexLat][point];
-      y1 = latlon[indexLon][point];
-      if (!isEastPositive) y1 = -y1;
+    if (!isEastPositive) y1 = -y1;
 
 //--- CORRECT FOR SUBLON
-      y1=y1+sublon;
-      xfi=x1*cdr;
-      xla=y1*cdr;
-      rom=(re*rp)/Math.sqrt(rp*rp*Math.cos(xfi) *
-            Math.cos(xfi)+re*re*Math.sin(xfi)*Math.sin(xfi));
-      y=Math.sqrt(h*h+rom*rom-2*h*rom*Math.cos(xfi)*Math.cos(xla));
-      r1=y*y+rom*rom;
-      r2=h*h;
-      if (r1 > r2) {
-        linele[indexLine][point] = Float.NaN;
-        linele[indexEle][point] = Float.NaN;
-        continue;
+    y1=y1+sublon;
+    xfi=x1*cdr;
+    xla=y1*cdr;
+    rom=(re*rp)/Math.sqrt(rp*rp*m.cos(xfi) *
+          m.cos(xfi)+re*re*m.sin(xfi)*m.sin(xfi));
+    y=Math.sqrt(h*h+rom*rom-2*h*rom*m.cos(xfi)*m.cos(xla));
+    r1=y*y+rom*rom;
+    r2=h*h;
+    if (r1 > r2) {
+      lines[lineIndex] = Float.NaN;
+      eles[eleIndex] = Float.NaN;
+      return;
 
-      }
-      rs=re+h;
-      reph=re;
-      rpph=rp;
-      coslo=Math.cos(sublat*cdr);
-      sinlo=Math.sin(sublat*cdr);
-      teta=Math.atan((rpph/reph)*Math.tan(xfi));
-      xt=reph*Math.cos(teta)*Math.cos(xla);
-      yt=reph*Math.cos(teta)*Math.sin(xla);
-      zt=rpph*Math.sin(teta);
-      px=Math.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
-       (sinlo*(yt-rs*sinlo)+(xt-rs*coslo)*coslo));
-      py=Math.atan(zt*((Math.tan(px)*sinlo-coslo)/(xt-rs*coslo))*Math.cos(px));
-      px=px*crd;
-      py=py*crd;
-      xr=px/(deltax*lpsi2);
-      yr=py/(deltay*lpsi2);
-      xr=cenele-xr;
-      yr=cenlin-yr;
-      xr=xr*4.0;
-      yr=yr*4.0;
-      linele[indexLine][point] = yr;
-      linele[indexEle][point] = xr;
     }
-    return imageCoordToAreaCoord(linele, linele);
+    rs=re+h;
+    reph=re;
+    rpph=rp;
+    coslo=m.cos(sublat*cdr);
+    sinlo=m.sin(sublat*cdr);
+    teta=m.atan((rpph/reph)*m.tan(xfi));
+    xt=reph*m.cos(teta)*m.cos(xla);
+    yt=reph*m.cos(teta)*m.sin(xla);
+    zt=rpph*m.sin(teta);
+    px=m.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
+     (sinlo*(yt-rs*sinlo)+(xt-rs*coslo)*coslo));
+    py=m.atan(zt*((m.tan(px)*sinlo-coslo)/(xt-rs*coslo))*m.cos(px));
+    px=px*crd;
+    py=py*crd;
+    xr=px/(deltax*lpsi2);
+    yr=py/(deltay*lpsi2);
+    xr=cenele-xr;
+    yr=cenlin-yr;
+    xr=xr*4.0;
+    yr=yr*4.0;
+    lines[lineIndex] = yr;
+    eles[eleIndex] = xr;
   }
 
   public double[][] toLatLon(double[][] linele) { 
 
-    double xele2, xlin2, x, y, xr, yr, rs, tanx, tany, val1, val2, yk;
-    double vmu, cosrf, sinrf, xt, yt, zt, xfi, xla, teta;
-
-    int number = linele[0].length;
-    double[][] latlon = new double[2][number];
-    double[][] imglinele = areaCoordToImageCoord(linele);
-
-    for (int point=0; point<number; point++) {
+    double[][] latlon = new double[2][linele[0].length];
+    toLatLon(linele, latlon);
+    return latlon;
+  }
 
-      xele2 = imglinele[indexEle][point]/4.0;
-      xlin2 = imglinele[indexLine][point]/4.0;
-      x = cenele - xele2;
-      y = cenlin - xlin2;
-      xr = x;
-      yr = y;
+  protected void imageToLatLon(double xlin, double xele,
+                               double[] lats, int latIndex,
+                               double[] lons, int lonIndex) {
+    final NavMath m = navMath;
 
-      x=xr*lpsi2*deltax*cdr;
-      y=yr*lpsi2*deltay*cdr;
-      rs=re+h;
-      tanx=Math.tan(x);
-      tany=Math.tan(y);
-      val1=1.+tanx*tanx;
-      val2=1.+(tany*tany)*((1.+a)*(1.+a));
-      yk=rs/re;
+    double xele2, xlin2, x, y, xr, yr, rs, tanx, tany, val1, val2, yk;
+    double vmu, cosrf, sinrf, xt, yt, zt, xfi, xla, teta;
 
-      if((val1*val2) > ((yk*yk)/(yk*yk-1.0))) {
-        latlon[indexLine][point] = Float.NaN;
-        latlon[indexEle][point] = Float.NaN;
-        continue;
-      }
+    xele2 = xele/4.0;
+    xlin2 = xlin/4.0;
+    x = cenele - xele2;
+    y = cenlin - xlin2;
+    xr = x;
+    yr = y;
+
+    x=xr*lpsi2*deltax*cdr;
+    y=yr*lpsi2*deltay*cdr;
+    rs=re+h;
+    tanx=m.tan(x);
+    tany=m.tan(y);
+    val1=1.+tanx*tanx;
+    val2=1.+(tany*tany)*((1.+a)*(1.+a));
+    yk=rs/re;
+
+    if((val1*val2) > ((yk*yk)/(yk*yk-1.0))) {
+      lats[latIndex] = Float.NaN;
+      lons[lonIndex] = Float.NaN;
+      return;
+    }
 
-      vmu=(rs-(re*(Math.sqrt((yk*yk)-(yk*yk-1)*val1*val2))))/(val1*val2);
-      cosrf=Math.cos(sublat*cdr);
-      sinrf=Math.sin(sublat*cdr);
-      xt=(rs*cosrf)+(vmu*(tanx*sinrf-cosrf));
-      yt=(rs*sinrf)-(vmu*(tanx*cosrf+sinrf));
-      zt=vmu*tany/Math.cos(x);
-      teta=Math.asin(zt/rp);
-      xfi=(Math.atan(((Math.tan(teta))*re)/rp))*crd;
-      xla=-Math.atan(yt/xt)*crd;
+    vmu=(rs-(re*(Math.sqrt((yk*yk)-(yk*yk-1)*val1*val2))))/(val1*val2);
+    cosrf=m.cos(sublat*cdr);
+    sinrf=m.sin(sublat*cdr);
+    xt=(rs*cosrf)+(vmu*(tanx*sinrf-cosrf));
+    yt=(rs*sinrf)-(vmu*(tanx*cosrf+sinrf));
+    zt=vmu*tany/m.cos(x);
+    teta=m.asin(zt/rp);
+    xfi=(m.atan(((m.tan(teta))*re)/rp))*crd;
+    xla=-m.atan(yt/xt)*crd;
 //--- CHANGE LONGITUDE FOR CORRECT SUBPOINT
-      xla=xla+sublon;
+    xla=xla+sublon;
 
-      if (isEastPositive) xla = -xla;
-      latlon[indexLat][point] = xfi;
-      latlon[indexLon][point] = xla;
-    }
+    if (isEastPositive) xla = -xla;
+    lats[latIndex] = xfi;
+    lons[lonIndex] = xla;
+  }
 
-    return latlon;
+  /** computes the image elements of a line that see the earth, from
+   * where val1*val2 reaches yk*yk/(yk*yk-1) with val1 = 1 + tan(x)^2.
+   *
+   * @param  xlin      image line
+   * @param  span      array to put the first and last image element in
+   *
+   * @return true
+   */
+  protected boolean imageLineEarthSpan(double xlin, double[] span) {
+    double rs=re+h;
+    double yk=rs/re;
+    double tany=Math.tan((cenlin-xlin/4.0)*lpsi2*deltay*cdr);
+    double val2=1.+(tany*tany)*((1.+a)*(1.+a));
+    double tan2=(yk*yk)/((yk*yk-1.0)*val2)-1.;
+    if (!(tan2 > 0.)) {
+      span[0] = Double.NaN;
+      span[1] = Double.NaN;
+      return true;
+    }
+    double x=Math.atan(Math.sqrt(tan2))/(lpsi2*deltax*cdr);
+    span[0] = 4.0*(cenele-x);
+    span[1] = 4.0*(cenele+x);
+    return true;
   }
 
   public static void main(String[] args) {
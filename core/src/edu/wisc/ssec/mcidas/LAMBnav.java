@@ -106,6 +106,24 @@ public final class LAMBnav extends AREAnav
      *
      */
     public double[][] toLatLon(double[][] linele) 
+    {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
     {
 
         double xldif;
@@ -114,33 +132,21 @@ public final class LAMBnav extends AREAnav
         double xlat;
         double xrlon, radius;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-
-        for (int point=0; point < number; point++) 
-        {
-            xldif = ihem*(imglinele[indexLine][point] - xrow)/xblat;
-            xedif = -ihem*(imglinele[indexEle][point] - xcol)/xblat;
-            xrlon = 0;
-            if (!(xldif == 0 && xedif == 0)) xrlon = Math.atan2(xedif, xldif);
-            xlon = ihem*xrlon/xfac/DEGREES_TO_RADIANS + xqlon;
-            xlon = (xlon+900.)%360. - 180.0;
-            radius = Math.sqrt(xldif*xldif + xedif*xedif);
-            if (Math.abs(radius) < 1.e-10)
-                xlat = ihem*90;
-            else
-                xlat = ihem*(90. - 2*Math.atan(
-                          Math.exp(Math.log(radius)/xfac))/DEGREES_TO_RADIANS);
-
-            latlon[indexLat][point] = xlat;
-            latlon[indexLon][point] = (iwest == 1) ? -xlon  : xlon;
-
-        } // end point for loop
-
-        return latlon;
+        xldif = ihem*(xlin - xrow)/xblat;
+        xedif = -ihem*(xele - xcol)/xblat;
+        xrlon = 0;
+        if (!(xldif == 0 && xedif == 0)) xrlon = Math.atan2(xedif, xldif);
+        xlon = ihem*xrlon/xfac/DEGREES_TO_RADIANS + xqlon;
+        xlon = (xlon+900.)%360. - 180.0;
+        radius = Math.sqrt(xldif*xldif + xedif*xedif);
+        if (Math.abs(radius) < 1.e-10)
+            xlat = ihem*90;
+        else
+            xlat = ihem*(90. - 2*Math.atan(
+                      Math.exp(Math.log(radius)/xfac))/DEGREES_TO_RADIANS);
+
+        lats[latIndex] = xlat;
+        lons[lonIndex] = (iwest == 1) ? -xlon  : xlon;
 
     }
 
@@ -155,37 +161,43 @@ public final class LAMBnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  xlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double xlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
     {
         double xlon;
-        double xlat;
         double xrlon, xrlat, xclat;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
-
-        for (int point=0; point < number; point++) 
-        {
-            xlat = latlon[indexLat][point];
-            // transform to McIDAS (west positive longitude) coordinates
-            xlon = (iwest == 1) 
-                   ? -latlon[indexLon][point]
-                   : latlon[indexLon][point];
-
-            xrlon = ihem*(xlon-xqlon);
-            xrlon = (xrlon+900.)%360. - 180.;
-            xrlon = xrlon*xfac*DEGREES_TO_RADIANS;
-            xclat = (90. - ihem*xlat)*DEGREES_TO_RADIANS*.5;
-            if (xclat == 0.0)
-                xrlat = 0.0;
-            else
-                xrlat =  xblat*Math.pow(Math.tan(Math.abs(xclat)), xfac);
-
-            linele[indexLine][point] = xrow + ihem*(xrlat*Math.cos(xrlon));
-            linele[indexEle][point]  = xcol - ihem*(xrlat*Math.sin(xrlon));
-
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+        // transform to McIDAS (west positive longitude) coordinates
+        xlon = (iwest == 1) ? -lon : lon;
+
+        xrlon = ihem*(xlon-xqlon);
+        xrlon = (xrlon+900.)%360. - 180.;
+        xrlon = xrlon*xfac*DEGREES_TO_RADIANS;
+        xclat = (90. - ihem*xlat)*DEGREES_TO_RADIANS*.5;
+        if (xclat == 0.0)
+            xrlat = 0.0;
+        else
+            xrlat =  xblat*Math.pow(Math.tan(Math.abs(xclat)), xfac);
+
+        lines[lineIndex] = xrow + ihem*(xrlat*Math.cos(xrlon));
+        eles[eleIndex]  = xcol - ihem*(xrlat*Math.sin(xrlon));
+
     }
 }
@@ -91,43 +91,78 @@ public final class MERCnav extends AREAnav
      */
     public double[][] toLatLon(double[][] linele) 
     {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
 
-        double xldif;
-        double xedif;
-        double xlon;
-        double xlat;
-        double xrlat, xrlon;
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
+    {
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
+        double xlat = imageLineToLatitude(xlin);
+        double xlon = imageEleToLongitude(xele);
+        if (Double.isNaN(xlon))
+        {
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+        }
+        else
+        {
+            lats[latIndex] = xlat;
+            lons[lonIndex] = xlon;
+        }
 
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
+    }
 
-        for (int point=0; point < number; point++) 
-        {
-            xldif = xrow - imglinele[indexLine][point];
-            xedif = xcol - imglinele[indexEle][point];
-            xrlon = iwest*xedif/xblon;
-            xlon = xrlon+xqlon;
-            xrlat = Math.atan(Math.exp(xldif/xblat));
-            xlat = (xrlat/DEGREES_TO_RADIANS - 45.)*2.+xlat1;
-            if (xlon > (360.+leftlon) || xlon < leftlon) 
-            {
-                latlon[indexLat][point] = Double.NaN;
-                latlon[indexLon][point] = Double.NaN;
-            }
-            else
-            {
-                latlon[indexLat][point] = xlat;
-                if (xlon > 180.) xlon = xlon - 360.;
-                if (xlon < -180.) xlon = xlon + 360.;
-                latlon[indexLon][point] = (iwest == 1) ? -xlon  : xlon;
-            }
-        } // end point for loop
+    /** latitude depends on the line alone and longitude on the element
+     * alone
+     *
+     * @return true
+     */
+    public boolean isSeparable()
+    {
+        return true;
+    }
 
-        return latlon;
+    /** converts an image line to latitude
+     *
+     * @param  xlin      image line
+     *
+     * @return latitude
+     */
+    protected double imageLineToLatitude(double xlin)
+    {
+        double xrlat = Math.atan(Math.exp((xrow - xlin)/xblat));
+        return (xrlat/DEGREES_TO_RADIANS - 45.)*2.+xlat1;
+    }
 
+    /** converts an image element to longitude
+     *
+     * @param  xele      image element
+     *
+     * @return longitude, NaN if off the map
+     */
+    protected double imageEleToLongitude(double xele)
+    {
+        double xlon = iwest*(xcol - xele)/xblon+xqlon;
+        if (xlon > (360.+leftlon) || xlon < leftlon) 
+        {
+            return Double.NaN;
+        }
+        if (xlon > 180.) xlon = xlon - 360.;
+        if (xlon < -180.) xlon = xlon + 360.;
+        return (iwest == 1) ? -xlon  : xlon;
     }
 
     /**
@@ -142,44 +177,48 @@ public final class MERCnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  xlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double xlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
     {
         double xlon;
-        double xlat;
         double xrlon, xrlat;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
+        // transform to McIDAS (west positive longitude) coordinates
+        xlon = (iwest == 1) ? -lon : lon;
 
-        for (int point=0; point < number; point++) 
+        xrlon = iwest*(xlon-xqlon);
+        if (xrlon > 180.) xrlon -= 360.;
+        if (xrlon < -180.) xrlon += 360.;
+        if (xlat >= 90.) xlat = 89.99;
+        if (xlat <= -90.) xlat = -89.99;
+        xrlat = ((xlat-xlat1)/2 + 45.)*DEGREES_TO_RADIANS;
+        if (xrlat <= 0.0)
         {
-
-            xlat = latlon[indexLat][point];
-            // transform to McIDAS (west positive longitude) coordinates
-            xlon = (iwest == 1) 
-                   ? -latlon[indexLon][point]
-                   : latlon[indexLon][point];
-
-            xrlon = iwest*(xlon-xqlon);
-            if (xrlon > 180.) xrlon -= 360.;
-            if (xrlon < -180.) xrlon += 360.;
-            if (xlat >= 90.) xlat = 89.99;
-            if (xlat <= -90.) xlat = -89.99;
-            xrlat = ((xlat-xlat1)/2 + 45.)*DEGREES_TO_RADIANS;
-            if (xrlat <= 0.0)
-            {
-                linele[indexLine][point] = Double.NaN;
-                linele[indexEle][point] = Double.NaN;
-            }
-            else
-            {
-                linele[indexLine][point] = 
-                    xrow - xblat*Math.log(Math.tan(xrlat));
-                linele[indexEle][point] = xcol - xrlon*xblon;
-            }
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+            lines[lineIndex] = Double.NaN;
+            eles[eleIndex] = Double.NaN;
+        }
+        else
+        {
+            lines[lineIndex] = xrow - xblat*Math.log(Math.tan(xrlat));
+            eles[eleIndex] = xcol - xrlon*xblon;
+        }
     }
 
     /** converts from satellite coordinates to latitude/longitude
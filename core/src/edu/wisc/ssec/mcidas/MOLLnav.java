@@ -208,6 +208,14 @@ public final class MOLLnav extends AREAnav
 
     }
 
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
     /** 
      * Converts from satellite coordinates to latitude/longitude
      *
@@ -224,83 +232,89 @@ public final class MOLLnav extends AREAnav
     public double[][] toLatLon(double[][] linele) 
     {
 
-        double xlin, xele;
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+
+    }
+
+    /** 
+     * Converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex) 
+    {
+
         double xldif, xedif;
         double w;
         double xlat, xlon;
         double ylat, ylon;
         double snlt, cslt, snln, csln, r, tnlt;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-        // Convert from file to Image coordinates for calculations
-        double[][] imglinele = areaCoordToImageCoord(linele);
+        xldif = Math.abs(xlin - xrow)/rpix;
+        xedif = (xcol - xele)/rpix;
 
-        for (int point=0; point < number; point++) 
+        // WLH 8 March 2000
+        // if (xldif > 1.0)
+        if (xlin != xlin || xele != xele || xldif > 1.0)
         {
-            xlin = imglinele[indexLine][point];
-            xele = imglinele[indexEle][point];
-
-            xldif = Math.abs(xlin - xrow)/rpix;
-            xedif = (xcol - xele)/rpix;
-
-            // WLH 8 March 2000
-            // if (xldif > 1.0)
-            if (xlin != xlin || xele != xele || xldif > 1.0)
+            xlat = Double.NaN;
+            xlon = Double.NaN;
+        }
+        else
+        {
+            w = Math.sqrt(1.0 - xldif*xldif);
+            if (w == 0.0 || Math.abs(xedif/w) > 2.0)
             {
                 xlat = Double.NaN;
                 xlon = Double.NaN;
             }
             else
             {
-                w = Math.sqrt(1.0 - xldif*xldif);
-                if (w == 0.0 || Math.abs(xedif/w) > 2.0)
-                {
-                    xlat = Double.NaN;
-                    xlon = Double.NaN;
-                }
-                else
-                {
-                    xlat = Math.asin((Math.asin(xldif)+
-                                 xldif*w)/1.57080)/DEGREES_TO_RADIANS;
-                    if (xlin > xrow) xlat = -xlat;
+                xlat = Math.asin((Math.asin(xldif)+
+                             xldif*w)/1.57080)/DEGREES_TO_RADIANS;
+                if (xlin > xrow) xlat = -xlat;
 
-                    // Compute angular displacement from std longitude (XQLON)
-                    xlon = -90.*(xedif/w);
-                    xlon = xqlon - xlon;
+                // Compute angular displacement from std longitude (XQLON)
+                xlon = -90.*(xedif/w);
+                xlon = xqlon - xlon;
 
-                    // Force angles to (-180 < XLON < 180)
-                    if (xlon > 180.) xlon = xlon - 360.;
-                    if (xlon < -180.) xlon = xlon + 360.;
+                // Force angles to (-180 < XLON < 180)
+                if (xlon > 180.) xlon = xlon - 360.;
+                if (xlon < -180.) xlon = xlon + 360.;
 
-                    // Convert to cartesian? coordinates
-                    if (itype == 1)
-                    {
-                       // LLCART(YLAT,YLON,XLAT,XLON,Z)
-                       ylat=DEGREES_TO_RADIANS*xlat;
-                       if (kcord >= 0) 
-                           ylat = Math.atan2(bsq*Math.sin(ylat),
-                                             asq*Math.cos(ylat));
-                       ylon = kwest*DEGREES_TO_RADIANS*xlon;
-                       snlt = Math.sin(ylat);
-                       cslt = Math.cos(ylat);
-                       csln = Math.cos(ylon);
-                       snln = Math.sin(ylon);
-                       tnlt = Math.pow((snlt/cslt),2.0);
-                       r = ab*Math.sqrt((1.0+tnlt)/(bsq+asq*tnlt));
-                       xlat = r*cslt*csln;
-                       xlon = r*cslt*snln;
-                    }
+                // Convert to cartesian? coordinates
+                if (itype == 1)
+                {
+                   // LLCART(YLAT,YLON,XLAT,XLON,Z)
+                   ylat=DEGREES_TO_RADIANS*xlat;
+                   if (kcord >= 0) 
+                       ylat = Math.atan2(bsq*Math.sin(ylat),
+                                         asq*Math.cos(ylat));
+                   ylon = kwest*DEGREES_TO_RADIANS*xlon;
+                   snlt = Math.sin(ylat);
+                   cslt = Math.cos(ylat);
+                   csln = Math.cos(ylon);
+                   snln = Math.sin(ylon);
+                   tnlt = Math.pow((snlt/cslt),2.0);
+                   r = ab*Math.sqrt((1.0+tnlt)/(bsq+asq*tnlt));
+                   xlat = r*cslt*csln;
+                   xlon = r*cslt*snln;
                 }
             }
-            // transform from McIDAS (west positive longitude) coordinates
-            if (isEastPositive) xlon = -xlon;
-            latlon[indexLat][point] = xlat;
-            latlon[indexLon][point] = xlon;
-
-        } // end point for loop
-
-        return latlon;
+        }
+        // transform from McIDAS (west positive longitude) coordinates
+        if (isEastPositive) xlon = -xlon;
+        lats[latIndex] = xlat;
+        lons[lonIndex] = xlon;
 
     }
 
@@ -316,70 +330,76 @@ public final class MOLLnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * Converts a single lat/long to image coordinates
+     *
+     * @param  lat       latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double lat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex) 
     {
         double xlin, xele;
         double xlat, xlon;
         double flat, t, t2, w, diff_lon, xedif;
         int isign, ilat;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
-
-        for (int point=0; point < number; point++) 
-        {
-
-            xlat = latlon[indexLat][point];
+        xlat = lat;
 
-            // transform to McIDAS (west longitude positive) coordinates
-            xlon = isEastPositive 
-                     ? - latlon[indexLon][point]
-                     :  latlon[indexLon][point];
+        // transform to McIDAS (west longitude positive) coordinates
+        xlon = isEastPositive ? -lon : lon;
 
-            // WLH 8 March 2000
-            if (Double.isNaN(xlat) || Double.isNaN(xlon) ||
-                (Math.abs(xlat) > 90.) ) {   // DRM 10 June 2003
-              xele = Double.NaN;
-              xlin = Double.NaN;
-            }
-            else {
+        // WLH 8 March 2000
+        if (Double.isNaN(xlat) || Double.isNaN(xlon) ||
+            (Math.abs(xlat) > 90.) ) {   // DRM 10 June 2003
+          xele = Double.NaN;
+          xlin = Double.NaN;
+        }
+        else {
   
-              isign = -1;
-              if (xlat < 0.0) isign = 1;
-              ilat = (int) (Math.abs(xlat));
-              flat = Math.abs(xlat) - ilat;
-              t = lattbl[ilat];
-              if (ilat != 90) t = t + flat*(lattbl[ilat+1] - lattbl[ilat]);
-              t2 = Math.max(0.0, 1.0-t*t);
-              w = Math.sqrt(t2);
-         
-              //** Here we need to handle the problem of computing
-              //** angular differences across the dateline.
+          isign = -1;
+          if (xlat < 0.0) isign = 1;
+          ilat = (int) (Math.abs(xlat));
+          flat = Math.abs(xlat) - ilat;
+          t = lattbl[ilat];
+          if (ilat != 90) t = t + flat*(lattbl[ilat+1] - lattbl[ilat]);
+          t2 = Math.max(0.0, 1.0-t*t);
+          w = Math.sqrt(t2);
+     
+          //** Here we need to handle the problem of computing
+          //** angular differences across the dateline.
   
-              diff_lon = xlon - xqlon;
+          diff_lon = xlon - xqlon;
   
-              if (diff_lon < -180.0) diff_lon = diff_lon  + 360.;
-              if (diff_lon >  180.0) diff_lon = diff_lon  - 360.;
-       
-              xedif = w * (diff_lon)/90.;
-       
-              if (Math.abs(xedif) > 2.0) 
-              {
-                 xele = Double.NaN;
-                 xlin = Double.NaN;
-              }
-              else
-              {
-                 xele = xcol - xedif*rpix;
-                 xlin = isign*t*rpix + xrow;
-              }
-            } // end if (xlat == xlat && xlon == xlon)
-            linele[indexLine][point] = xlin;
-            linele[indexEle][point] = xele;
-
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+          if (diff_lon < -180.0) diff_lon = diff_lon  + 360.;
+          if (diff_lon >  180.0) diff_lon = diff_lon  - 360.;
+   
+          xedif = w * (diff_lon)/90.;
+   
+          if (Math.abs(xedif) > 2.0) 
+          {
+             xele = Double.NaN;
+             xlin = Double.NaN;
+          }
+          else
+          {
+             xele = xcol - xedif*rpix;
+             xlin = isign*t*rpix + xrow;
+          }
+        } // end if (xlat == xlat && xlon == xlon)
+        lines[lineIndex] = xlin;
+        eles[eleIndex] = xele;
     }
 
     /** 
@@ -92,6 +92,14 @@ public final class MSATnav extends AREAnav
         sublon = McIDASUtil.integerLatLonToDouble(iparms[6]);
     }
 
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
     /** converts from satellite coordinates to latitude/longitude
      *
      * @param  linele	  array of line/element pairs.  Where 
@@ -105,9 +113,26 @@ public final class MSATnav extends AREAnav
      *
      */
     public double[][] toLatLon(double[][] linele) 
+    {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
     {
 
-        double xele, xlin;
         double xele2, xlin2;
         double xfi, xla;
         double x, y;
@@ -121,62 +146,48 @@ public final class MSATnav extends AREAnav
         double xt, yt, zt;
         double rs;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-
-        for (int point=0; point < number; point++) 
+        xele2 = xele/2.;
+        xlin2 = xlin/2.;
+        x = 1250.5 - xele2;
+        y = ioff[2] - (xlin2 + ioff[1] - ioff[0]);
+        xr = x;
+        yr = y;
+        x = xr*lpsi2*deltax*DEGREES_TO_RADIANS;
+        y = yr*lpsi2*deltay*DEGREES_TO_RADIANS;
+        rs = EARTH_RADIUS + h;
+        tanx = Math.tan(x);
+        tany = Math.tan(y);
+        val1=1.+tanx*tanx;
+        val2=1.+(tany*tany)*((1.+a)*(1.+a));
+        yk=rs/EARTH_RADIUS;
+        if ((val1*val2) > ((yk*yk)/(yk*yk-1)))
         {
-            xlin = imglinele[indexLine][point];
-            xele = imglinele[indexEle][point];
-
-            xele2 = xele/2.;
-            xlin2 = xlin/2.;
-            x = 1250.5 - xele2;
-            y = ioff[2] - (xlin2 + ioff[1] - ioff[0]);
-            xr = x;
-            yr = y;
-            x = xr*lpsi2*deltax*DEGREES_TO_RADIANS;
-            y = yr*lpsi2*deltay*DEGREES_TO_RADIANS;
-            rs = EARTH_RADIUS + h;
-            tanx = Math.tan(x);
-            tany = Math.tan(y);
-            val1=1.+tanx*tanx;
-            val2=1.+(tany*tany)*((1.+a)*(1.+a));
-            yk=rs/EARTH_RADIUS;
-            if ((val1*val2) > ((yk*yk)/(yk*yk-1)))
-            {
-                latlon[indexLat][point] = Double.NaN;
-                latlon[indexLon][point] = Double.NaN;
-            }
-            else
-            {
-                vmu = (rs-(EARTH_RADIUS*(Math.sqrt((yk*yk)-
-                                  (yk*yk-1)*val1*val2))))/(val1*val2); 
-                cosrf = Math.cos(rflon*DEGREES_TO_RADIANS);
-                sinrf = Math.sin(rflon*DEGREES_TO_RADIANS);
-                xt = (rs*cosrf) + (vmu*(tanx*sinrf - cosrf));
-                yt = (rs*sinrf) - (vmu*(tanx*cosrf + sinrf));
-                zt = vmu*tany/Math.cos(x);
-                teta = Math.asin(zt/rp);
-                xfi = (Math.atan(((Math.tan(teta))*EARTH_RADIUS)/rp))*
-                         RADIANS_TO_DEGREES;
-                xla=-Math.atan(yt/xt)*RADIANS_TO_DEGREES;
-                
-                // change longitude for correct subpoint
-                xla = xla + sublon;
-
-                //  put longitude into East Positive (form)
-                if (isEastPositive) xla = -xla;
-    
-                latlon[indexLat][point] = xfi;
-                latlon[indexLon][point] = xla;
-            }  // end lat/lon point calculation 
-        } // end point for loop
-
-        return latlon;
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+        }
+        else
+        {
+            vmu = (rs-(EARTH_RADIUS*(Math.sqrt((yk*yk)-
+                              (yk*yk-1)*val1*val2))))/(val1*val2); 
+            cosrf = Math.cos(rflon*DEGREES_TO_RADIANS);
+            sinrf = Math.sin(rflon*DEGREES_TO_RADIANS);
+            xt = (rs*cosrf) + (vmu*(tanx*sinrf - cosrf));
+            yt = (rs*sinrf) - (vmu*(tanx*cosrf + sinrf));
+            zt = vmu*tany/Math.cos(x);
+            teta = Math.asin(zt/rp);
+            xfi = (Math.atan(((Math.tan(teta))*EARTH_RADIUS)/rp))*
+                     RADIANS_TO_DEGREES;
+            xla=-Math.atan(yt/xt)*RADIANS_TO_DEGREES;
+            
+            // change longitude for correct subpoint
+            xla = xla + sublon;
+
+            //  put longitude into East Positive (form)
+            if (isEastPositive) xla = -xla;
+
+            lats[latIndex] = xfi;
+            lons[lonIndex] = xla;
+        }  // end lat/lon point calculation 
 
     }
 
@@ -192,9 +203,28 @@ public final class MSATnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  x1        latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double x1, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
     {
         double y;
-        double x1, y1;
+        double y1;
         double xfi, xla;
         double rom;
         double r1, r2;
@@ -206,76 +236,62 @@ public final class MSATnav extends AREAnav
         double reph, rpph;
         double xr, yr;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
+        // expects positive East Longitude.
+        y1 = isEastPositive ? lon : -lon;
 
-        for (int point=0; point < number; point++) 
+        // if in cartesian coords, transform to lat/lon
+        if (itype == 1)
         {
+            y = lon;
+            // NXYZLL(x,y,z,zlat,zlon);
+            y1 = -y1;
+        }
 
-            x1 = latlon[indexLat][point];
-
-            // expects positive East Longitude.
-            y1 = isEastPositive 
-                     ?  latlon[indexLon][point]
-                     : -latlon[indexLon][point];
-
-            // if in cartesian coords, transform to lat/lon
-            if (itype == 1)
-            {
-                y = latlon[indexLon][point];
-                // NXYZLL(x,y,z,zlat,zlon);
-                y1 = -y1;
-            }
-
-            // correct for sublon
-            y1 = y1 + sublon;
-            xfi = x1*DEGREES_TO_RADIANS;
-            xla = y1*DEGREES_TO_RADIANS;
-            rom = 
-                (EARTH_RADIUS*rp)/
-                    Math.sqrt(
-                        rp*rp*Math.cos(xfi)*Math.cos(xfi)+
-                        EARTH_RADIUS*EARTH_RADIUS*Math.sin(xfi)*Math.sin(xfi));
-            y = Math.sqrt(h*h+rom*rom-2*h*rom*Math.cos(xfi)*Math.cos(xla));
-            r1 = y*y + rom*rom;
-            r2 = h*h;
-            if (r1 > r2)  // invalid point
-            {
-                linele[indexLine][point] = Double.NaN;
-                linele[indexEle][point] = Double.NaN;
-            }
-            else          // calculate line an element
-            {
-                rs    = EARTH_RADIUS + h;
-                reph  = EARTH_RADIUS;
-                rpph  = rp;
-                coslo = Math.cos(rflon*DEGREES_TO_RADIANS);
-                sinlo = Math.sin(rflon*DEGREES_TO_RADIANS);
-                teta  = Math.atan((rpph/reph)*Math.tan(xfi));
-                xt    = reph*Math.cos(teta)*Math.cos(xla);
-                yt    = reph*Math.cos(teta)*Math.sin(xla);
-                zt    = rpph*Math.sin(teta);
-
-                px    = Math.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
-                               (sinlo*(yt-rs*sinlo)+(xt-rs*coslo)*coslo));
-                py    = Math.atan(zt*((Math.tan(px)*sinlo-
-                                    coslo)/(xt-rs*coslo))*Math.cos(px));
-                px = px*RADIANS_TO_DEGREES;
-                py = py*RADIANS_TO_DEGREES;
-                xr = px/(deltax*lpsi2);
-                yr = py/(deltay*lpsi2);
-                xr = 1250.5-xr;
-                yr = yr + ioff[2] + ioff[1] - ioff[0];
-                xr = xr*2;
-                yr = 5000-yr*2;
-                linele[indexLine][point] = yr;
-                linele[indexEle][point] = xr;
-
-            }  // end calculations
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+        // correct for sublon
+        y1 = y1 + sublon;
+        xfi = x1*DEGREES_TO_RADIANS;
+        xla = y1*DEGREES_TO_RADIANS;
+        rom = 
+            (EARTH_RADIUS*rp)/
+                Math.sqrt(
+                    rp*rp*Math.cos(xfi)*Math.cos(xfi)+
+                    EARTH_RADIUS*EARTH_RADIUS*Math.sin(xfi)*Math.sin(xfi));
+        y = Math.sqrt(h*h+rom*rom-2*h*rom*Math.cos(xfi)*Math.cos(xla));
+        r1 = y*y + rom*rom;
+        r2 = h*h;
+        if (r1 > r2)  // invalid point
+        {
+            lines[lineIndex] = Double.NaN;
+            eles[eleIndex] = Double.NaN;
+        }
+        else          // calculate line an element
+        {
+            rs    = EARTH_RADIUS + h;
+            reph  = EARTH_RADIUS;
+            rpph  = rp;
+            coslo = Math.cos(rflon*DEGREES_TO_RADIANS);
+            sinlo = Math.sin(rflon*DEGREES_TO_RADIANS);
+            teta  = Math.atan((rpph/reph)*Math.tan(xfi));
+            xt    = reph*Math.cos(teta)*Math.cos(xla);
+            yt    = reph*Math.cos(teta)*Math.sin(xla);
+            zt    = rpph*Math.sin(teta);
+
+            px    = Math.atan((coslo*(yt-rs*sinlo)-(xt-rs*coslo)*sinlo)/
+                           (sinlo*(yt-rs*sinlo)+(xt-rs*coslo)*coslo));
+            py    = Math.atan(zt*((Math.tan(px)*sinlo-
+                                coslo)/(xt-rs*coslo))*Math.cos(px));
+            px = px*RADIANS_TO_DEGREES;
+            py = py*RADIANS_TO_DEGREES;
+            xr = px/(deltax*lpsi2);
+            yr = py/(deltay*lpsi2);
+            xr = 1250.5-xr;
+            yr = yr + ioff[2] + ioff[1] - ioff[0];
+            xr = xr*2;
+            yr = 5000-yr*2;
+            lines[lineIndex] = yr;
+            eles[eleIndex] = xr;
+
+        }  // end calculations
     }
 
     /** converts from satellite coordinates to latitude/longitude
@@ -94,6 +94,31 @@ public final class MSGTnav extends AREAnav
         deltay = 1.0/(LFAC/1000000.);
     }
 
+    /**
+     * Angle between neighbouring image pixels, for fast math.
+     *
+     * @return pixel angle in radians
+     */
+    protected double getPixelAngle() {
+        return Math.min(Math.abs(deltax), Math.abs(deltay)) * cdr / 3.0;
+    }
+
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
+    /** Get the lat,lon of the subpoint
+     *
+     * @return double[2] {lat, lon}
+     */
+    public double[] getSubpoint() {
+        return new double[] {0.0, isEastPositive ? sublon : -sublon};
+    }
+
     /** converts from satellite coordinates to latitude/longitude
      *
      * @param  linele	  array of line/element pairs.  Where 
@@ -108,67 +133,158 @@ public final class MSGTnav extends AREAnav
      */
     public double[][] toLatLon(double[][] linele) {
 
-        int number = linele[0].length;
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
 
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-        double[][] latlon = imglinele;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  imglin    image line
+     * @param  imgele    image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double imglin, double imgele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex) {
+        final NavMath m = navMath;
 
         double xlin, xele, xr, yr, tanx, tany, v1, v2;
         double vmu, xt, yt, zt, teta, xlat, xlon;
 
-        for (int point=0; point < number; point++) 
-        {
-
-            if (Double.isNaN(imglinele[indexLine][point]) || 
-                Double.isNaN(imglinele[indexEle][point])) {
-                continue;
-            }
+        if (Double.isNaN(imglin) || Double.isNaN(imgele)) {
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+            return;
+        }
 
-            xlin = 11136.0 - imglinele[indexLine][point] + 1.0;
-            xele = 11136.0 - imglinele[indexEle][point] + 1.0;
+        xlin = 11136.0 - imglin + 1.0;
+        xele = 11136.0 - imgele + 1.0;
 
-            xlin = (xlin + 2.0) / 3.0;
-            xele = (xele + 2.0) / 3.0;
+        xlin = (xlin + 2.0) / 3.0;
+        xele = (xele + 2.0) / 3.0;
 
 
-            xr = xele - (COFF/10.);
-            yr = xlin - (LOFF/10.);
-            xr = xr*deltax*cdr;
-            yr = yr*deltay*cdr;
-            tanx = Math.tan(xr);
-            tany = Math.tan(yr);
+        xr = xele - (COFF/10.);
+        yr = xlin - (LOFF/10.);
+        xr = xr*deltax*cdr;
+        yr = yr*deltay*cdr;
+        tanx = m.tan(xr);
+        tany = m.tan(yr);
 
-            v1 = 1. + tanx*tanx;
-            v2 = 1. + (tany*tany)*((1.+a)*(1.+a));
+        v1 = 1. + tanx*tanx;
+        v2 = 1. + (tany*tany)*((1.+a)*(1.+a));
 
-            if (v1*v2 > ((yk*yk)/(yk*yk-1))) {
-               xlat = Double.NaN; 
-               xlon =  Double.NaN;
-            } else {
+        if (v1*v2 > ((yk*yk)/(yk*yk-1))) {
+           xlat = Double.NaN; 
+           xlon =  Double.NaN;
+        } else {
 
-               vmu = (rs - EARTH_RADIUS*Math.sqrt(yk*yk-(yk*yk-1)*v1*v2))/(v1*v2);
-               xt = rs - vmu;
-               yt = - vmu*tanx;
-               zt = vmu * tany/Math.cos(xr);
-               teta = Math.asin(zt/rp);
+           vmu = (rs - EARTH_RADIUS*Math.sqrt(yk*yk-(yk*yk-1)*v1*v2))/(v1*v2);
+           xt = rs - vmu;
+           yt = - vmu*tanx;
+           zt = vmu * tany/m.cos(xr);
+           teta = m.asin(zt/rp);
 
-               xlat = Math.atan(Math.tan(teta)*EARTH_RADIUS/rp) * crd;
-               xlon = Math.atan(yt/xt) * crd;
+           xlat = m.atan(m.tan(teta)*EARTH_RADIUS/rp) * crd;
+           xlon = m.atan(yt/xt) * crd;
 
-            }  
+        }  
 
-            //  put longitude into East Positive (form)
-            xlon = xlon + sublon;
-            if (!isEastPositive) xlon = -xlon;
+        //  put longitude into East Positive (form)
+        xlon = xlon + sublon;
+        if (!isEastPositive) xlon = -xlon;
 
-            latlon[indexLat][point] = xlat;
-            latlon[indexLon][point] = xlon;
+        lats[latIndex] = xlat;
+        lons[lonIndex] = xlon;
 
-        } // end point for loop
+    }
 
-        return latlon;
+    /** converts a grid of image coordinates to latitude/longitude.
+     * The scan angles depend on the line alone and the element alone,
+     * so their tangents and cosines are computed once per line and
+     * once per element, and tan(asin(w)) is done as w/sqrt(1-w*w).
+     *
+     * @param  lines     image lines
+     * @param  eles      image elements
+     * @param  lats      array to put the latitudes in, row by row
+     * @param  lons      array to put the longitudes in, row by row
+     */
+    protected void imageGridToLatLon(double[] lines, double[] eles,
+                                     double[] lats, double[] lons) {
+        final NavMath m = navMath;
+
+        // per line
+        double[] tany = new double[lines.length];
+        double[] v2 = new double[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            double xlin = ((11136.0 - lines[i] + 1.0) + 2.0) / 3.0;
+            double yr = (xlin - (LOFF/10.))*deltay*cdr;
+            tany[i] = m.tan(yr);
+            v2[i] = 1. + (tany[i]*tany[i])*((1.+a)*(1.+a));
+        }
+
+        // per element
+        double[] tanx = new double[eles.length];
+        double[] cosx = new double[eles.length];
+        for (int j = 0; j < eles.length; j++) {
+            double xele = ((11136.0 - eles[j] + 1.0) + 2.0) / 3.0;
+            double xr = (xele - (COFF/10.))*deltax*cdr;
+            tanx[j] = m.tan(xr);
+            cosx[j] = m.cos(xr);
+        }
+
+        int point = 0;
+        for (int i = 0; i < lines.length; i++) {
+            for (int j = 0; j < eles.length; j++, point++) {
+                double v1v2 = (1. + tanx[j]*tanx[j])*v2[i];
+                double xlat, xlon;
+                if (v1v2 > ((yk*yk)/(yk*yk-1))) {
+                   xlat = Double.NaN;
+                   xlon = Double.NaN;
+                } else {
+                   double vmu = (rs - EARTH_RADIUS*Math.sqrt(yk*yk-(yk*yk-1)*v1v2))/v1v2;
+                   double xt = rs - vmu;
+                   double yt = - vmu*tanx[j];
+                   double w = vmu * tany[i]/cosx[j]/rp;
+                   xlat = m.atan(w/Math.sqrt(1. - w*w)*EARTH_RADIUS/rp) * crd;
+                   xlon = m.atan(yt/xt) * crd;
+                }
+                xlon = xlon + sublon;
+                if (!isEastPositive) xlon = -xlon;
+                lats[point] = xlat;
+                lons[point] = xlon;
+            }
+        }
+    }
 
+    /** computes the image elements of a line that see the earth, from
+     * where v1*v2 reaches yk*yk/(yk*yk-1) with v1 = 1 + tan(xr)^2.
+     *
+     * @param  imglin    image line
+     * @param  span      array to put the first and last image element in
+     *
+     * @return true
+     */
+    protected boolean imageLineEarthSpan(double imglin, double[] span) {
+        double xlin = ((11136.0 - imglin + 1.0) + 2.0) / 3.0;
+        double yr = (xlin - (LOFF/10.))*deltay*cdr;
+        double tany = Math.tan(yr);
+        double v2 = 1. + (tany*tany)*((1.+a)*(1.+a));
+        double tan2 = (yk*yk)/((yk*yk-1)*v2) - 1.;
+        if (!(tan2 > 0.)) {
+            span[0] = Double.NaN;
+            span[1] = Double.NaN;
+            return true;
+        }
+        double xr = Math.atan(Math.sqrt(tan2))/(deltax*cdr);
+        span[0] = 11139.0 - 3.0*(COFF/10. - xr);
+        span[1] = 11139.0 - 3.0*(COFF/10. + xr);
+        return true;
     }
 
     /**
@@ -184,79 +300,77 @@ public final class MSGTnav extends AREAnav
      */
     public double[][] toLinEle(double[][] latlon) {
        
-      int number = latlon[0].length;
-      double[][] linele = new double[2][number];
+      double[][] linele = new double[2][latlon[0].length];
+      toLinEle(latlon, linele);
+      return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  xlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double xlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex) {
+      final NavMath m = navMath;
+       
       double xfi, xla, rom, y, r1, r2, teta, xt, yt, zt;
       double px, py, xr, yr, xele, xlin;
-      double xlat, xlon;
+      double xlon;
 
-      if (first) {
-       //System.out.println("####   first time...");
-       first = false;
+      if (Double.isNaN(xlat) || Double.isNaN(lon)) {
+          lines[lineIndex] = Double.NaN;
+          eles[eleIndex] = Double.NaN;
+          return;
       }
 
-      for (int point=0; point < number; point++) 
-      {
-
-          if (Double.isNaN(latlon[indexLat][point]) || 
-              Double.isNaN(latlon[indexLon][point])) {
-              linele[indexLine][point] = Double.NaN;
-              linele[indexEle][point] = Double.NaN;
-              continue;
-          }
-
-          xlat = latlon[indexLat][point];
-
-          // expects positive East Longitude.
-          xlon = isEastPositive 
-                   ?  latlon[indexLon][point]
-                   : -latlon[indexLon][point];
-          xlon = xlon - sublon;
-
+      // expects positive East Longitude.
+      xlon = isEastPositive ? lon : -lon;
+      xlon = xlon - sublon;
 
-          xfi = xlat*cdr;
-          xla = xlon*cdr;
-          rom = EARTH_RADIUS*rp/Math.sqrt(rp*rp*Math.cos(xfi) * 
-              Math.cos(xfi)+EARTH_RADIUS*EARTH_RADIUS * 
-              Math.sin(xfi)*Math.sin(xfi));
 
-          y = Math.sqrt(h*h + rom*rom - 2.*h*rom*Math.cos(xfi)*Math.cos(xla));
-          r1 = y*y + rom*rom;
-          r2 = h*h;
-    
-          if (r1 > r2) {
-            xlin = Double.NaN; 
-            xele =  Double.NaN;
-            linele[indexLine][point] = Double.NaN;
-            linele[indexEle][point] = Double.NaN;
+      xfi = xlat*cdr;
+      xla = xlon*cdr;
+      rom = EARTH_RADIUS*rp/Math.sqrt(rp*rp*m.cos(xfi) * 
+          m.cos(xfi)+EARTH_RADIUS*EARTH_RADIUS * 
+          m.sin(xfi)*m.sin(xfi));
 
-          } else {
+      y = Math.sqrt(h*h + rom*rom - 2.*h*rom*m.cos(xfi)*m.cos(xla));
+      r1 = y*y + rom*rom;
+      r2 = h*h;
 
-            teta = Math.atan((rp/EARTH_RADIUS) * Math.tan(xfi));
-            xt = EARTH_RADIUS * Math.cos(teta) * Math.cos(xla);
-            yt = EARTH_RADIUS * Math.cos(teta) * Math.sin(xla);
-            zt = rp * Math.sin(teta);
+      if (r1 > r2) {
+        lines[lineIndex] = Double.NaN;
+        eles[eleIndex] = Double.NaN;
 
-            px = Math.atan(yt/(xt-rs));
-            py = Math.atan(-zt/(xt-rs)*Math.cos(px));
-            px = px*crd;
-            py = py*crd;
-            xr = px/deltax;
-            yr = py/deltay;
-            xele = (COFF/10.) + xr;
-            xlin = (LOFF/10.) + yr;
+      } else {
 
-            xlin = xlin * 3.0 - 2.0;
-            xele = xele * 3.0 - 2.0;
-            linele[indexLine][point] = 11136.0 - xlin + 1.0;
-            linele[indexEle][point] = 11136.0 - xele + 1.0;
+        teta = m.atan((rp/EARTH_RADIUS) * m.tan(xfi));
+        xt = EARTH_RADIUS * m.cos(teta) * m.cos(xla);
+        yt = EARTH_RADIUS * m.cos(teta) * m.sin(xla);
+        zt = rp * m.sin(teta);
 
-          }  // end calculations
+        px = m.atan(yt/(xt-rs));
+        py = m.atan(-zt/(xt-rs)*m.cos(px));
+        px = px*crd;
+        py = py*crd;
+        xr = px/deltax;
+        yr = py/deltay;
+        xele = (COFF/10.) + xr;
+        xlin = (LOFF/10.) + yr;
 
-      } // end point loop
+        xlin = xlin * 3.0 - 2.0;
+        xele = xele * 3.0 - 2.0;
+        lines[lineIndex] = 11136.0 - xlin + 1.0;
+        eles[eleIndex] = 11136.0 - xele + 1.0;
 
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+      }  // end calculations
     }
 
     /** converts from satellite coordinates to latitude/longitude
@@ -272,6 +386,7 @@ public final class MSGTnav extends AREAnav
      *
      */
     public float[][] toLatLon(float[][] linele) {
+        final NavMath m = navMath;
 
         int number = linele[0].length;
 
@@ -300,8 +415,8 @@ public final class MSGTnav extends AREAnav
             yr = xlin - (LOFF/10.);
             xr = xr*deltax*cdr;
             yr = yr*deltay*cdr;
-            tanx = Math.tan(xr);
-            tany = Math.tan(yr);
+            tanx = m.tan(xr);
+            tany = m.tan(yr);
 
             v1 = 1. + tanx*tanx;
             v2 = 1. + (tany*tany)*((1.+a)*(1.+a));
@@ -314,11 +429,11 @@ public final class MSGTnav extends AREAnav
                vmu = (rs - EARTH_RADIUS*Math.sqrt(yk*yk-(yk*yk-1)*v1*v2))/(v1*v2);
                xt = rs - vmu;
                yt = - vmu*tanx;
-               zt = vmu * tany/Math.cos(xr);
-               teta = Math.asin(zt/rp);
+               zt = vmu * tany/m.cos(xr);
+               teta = m.asin(zt/rp);
 
-               xlat = Math.atan(Math.tan(teta)*EARTH_RADIUS/rp) * crd;
-               xlon = Math.atan(yt/xt) * crd;
+               xlat = m.atan(m.tan(teta)*EARTH_RADIUS/rp) * crd;
+               xlon = m.atan(yt/xt) * crd;
 
             }  
 
@@ -347,6 +462,7 @@ public final class MSGTnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public float[][] toLinEle(float[][] latlon) {
+      final NavMath m = navMath;
        
       int number = latlon[0].length;
       float[][] linele = new float[2][number];
@@ -380,11 +496,11 @@ public final class MSGTnav extends AREAnav
 
           xfi = xlat*cdr;
           xla = xlon*cdr;
-          rom = EARTH_RADIUS*rp/Math.sqrt(rp*rp*Math.cos(xfi) * 
-              Math.cos(xfi)+EARTH_RADIUS*EARTH_RADIUS * 
-              Math.sin(xfi)*Math.sin(xfi));
+          rom = EARTH_RADIUS*rp/Math.sqrt(rp*rp*m.cos(xfi) * 
+              m.cos(xfi)+EARTH_RADIUS*EARTH_RADIUS * 
+              m.sin(xfi)*m.sin(xfi));
 
-          y = Math.sqrt(h*h + rom*rom - 2.*h*rom*Math.cos(xfi)*Math.cos(xla));
+          y = Math.sqrt(h*h + rom*rom - 2.*h*rom*m.cos(xfi)*m.cos(xla));
           r1 = y*y + rom*rom;
           r2 = h*h;
     
@@ -396,13 +512,13 @@ public final class MSGTnav extends AREAnav
 
           } else {
 
-            teta = Math.atan((rp/EARTH_RADIUS) * Math.tan(xfi));
-            xt = EARTH_RADIUS * Math.cos(teta) * Math.cos(xla);
-            yt = EARTH_RADIUS * Math.cos(teta) * Math.sin(xla);
-            zt = rp * Math.sin(teta);
+            teta = m.atan((rp/EARTH_RADIUS) * m.tan(xfi));
+            xt = EARTH_RADIUS * m.cos(teta) * m.cos(xla);
+            yt = EARTH_RADIUS * m.cos(teta) * m.sin(xla);
+            zt = rp * m.sin(teta);
 
-            px = Math.atan(yt/(xt-rs));
-            py = Math.atan(-zt/(xt-rs)*Math.cos(px));
+            px = m.atan(yt/(xt-rs));
+            py = m.atan(-zt/(xt-rs)*m.cos(px));
             px = px*crd;
             py = py*crd;
             xr = px/deltax;
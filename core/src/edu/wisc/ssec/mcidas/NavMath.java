@@ -0,0 +1,340 @@
+//
+// NavMath.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Trigonometric functions used by the geostationary navigation code.
+ * {@link #EXACT} passes every call on to <code>java.lang.Math</code>;
+ * the instances returned by {@link #getInstance(double)} use small tables
+ * corrected with a few terms of a series instead, which are several times
+ * faster and have a known worst case error.  See
+ * {@link AREAnav#setFastMath(double)}.
+ *
+ * <p><code>sqrt</code> is not approximated, since
+ * <code>Math.sqrt</code> is already a single machine instruction.  NaN
+ * arguments give NaN results, as they do with <code>Math</code>.</p>
+ *
+ * <p>The <code>main</code> method compares the fast and exact
+ * navigation of a set of sample geostationary areas and fails if the
+ * error is more than the requested fraction of a pixel.</p>
+ */
+class NavMath {
+
+  /** exact math, as done by <code>java.lang.Math</code> */
+  static final NavMath EXACT = new NavMath();
+
+  /** smallest and largest power of two table sizes; finer accuracy
+      than the largest gives uses exact math */
+  private static final int MIN_LOG_SIZE = 6;
+  private static final int MAX_LOG_SIZE = 16;
+
+  /** table based instances, by log2 of the sine table size */
+  private static final NavMath[] instances = new NavMath[MAX_LOG_SIZE + 1];
+
+  /** largest argument of the arcsine series */
+  private static final double ASIN_LIMIT = 0.75;
+
+  private NavMath() {
+  }
+
+  /**
+   * Get math routines with a worst case absolute error of at most
+   * <code>maxError</code> (radians for the inverse functions).
+   *
+   * @param maxError  largest error allowed
+   *
+   * @return table based routines, or {@link #EXACT} if tables fine
+   *         enough would be too large
+   */
+  static NavMath getInstance(double maxError) {
+    if (!(maxError > 0)) return EXACT;
+    // the sine and cosine series are good to (h/2)^5/120 for table
+    // spacing h, the arctangent series to (h/2)^7/7, and the arcsine
+    // series to 7*(h/2)^4
+    double size = Math.max(Math.PI / Math.pow(120.0 * maxError, 0.2),
+                           0.5 / Math.pow(7.0 * maxError, 1.0 / 7.0));
+    size = Math.max(size, 0.5 * ASIN_LIMIT / Math.pow(maxError / 7.0, 0.25));
+    int logSize = MIN_LOG_SIZE;
+    while ((1 << logSize) < size) {
+      if (++logSize > MAX_LOG_SIZE) return EXACT;
+    }
+    synchronized (instances) {
+      if (instances[logSize] == null) {
+        instances[logSize] = new Tables(logSize);
+      }
+      return instances[logSize];
+    }
+  }
+
+  double sin(double a) {
+    return Math.sin(a);
+  }
+
+  double cos(double a) {
+    return Math.cos(a);
+  }
+
+  double tan(double a) {
+    return Math.tan(a);
+  }
+
+  double atan(double a) {
+    return Math.atan(a);
+  }
+
+  double asin(double a) {
+    return Math.asin(a);
+  }
+
+  /**
+   * Tabulated values at evenly spaced points, corrected to the argument
+   * with a short series in the distance from the nearest point: sines
+   * and cosines over one period, arctangents over [0, 1] and arcsines
+   * over [0, 0.75].
+   */
+  private static final class Tables extends NavMath {
+
+    // added to round to the nearest table point by truncation; a
+    // multiple of the table size, so it drops out when masked
+    private static final double ROUND = 1 << 30;
+
+    private final int mask;
+    private final double step;
+    private final double scale;
+    // sine and cosine of each point, interleaved
+    private final double[] sinCos;
+    private final int atanSize;
+    private final double[] atans;
+    private final double asinScale;
+    // arcsine and its first three derivatives at each point
+    private final double[] asins;
+
+    Tables(int logSize) {
+      int n = 1 << logSize;
+      mask = n - 1;
+      step = 2.0 * Math.PI / n;
+      scale = 1.0 / step;
+      sinCos = new double[2 * n];
+      for (int i = 0; i < n; i++) {
+        sinCos[2 * i] = Math.sin(i * step);
+        sinCos[2 * i + 1] = Math.cos(i * step);
+      }
+      atanSize = n;
+      atans = new double[atanSize + 1];
+      for (int i = 0; i <= atanSize; i++) {
+        atans[i] = Math.atan((double) i / atanSize);
+      }
+      asinScale = n / ASIN_LIMIT;
+      asins = new double[4 * (n + 1)];
+      for (int i = 0; i <= n; i++) {
+        double x = i / asinScale;
+        double c = 1.0 / (1.0 - x * x);
+        double d1 = Math.sqrt(c);
+        asins[4 * i] = Math.asin(x);
+        asins[4 * i + 1] = d1;
+        asins[4 * i + 2] = x * c * d1 / 2.0;
+        asins[4 * i + 3] = (1.0 + 2.0 * x * x) * c * c * d1 / 6.0;
+      }
+    }
+
+    double sin(double a) {
+      double t = a * scale;
+      // NaN, infinite and huge arguments
+      if (!(Math.abs(t) < ROUND)) return Math.sin(a);
+      long k = (long) (t + (ROUND + 0.5)) - (long) ROUND;
+      double d = a - k * step;
+      double d2 = d * d;
+      int i = 2 * ((int) k & mask);
+      return sinCos[i] * (1.0 - d2 * (0.5 - d2 / 24.0)) +
+             sinCos[i + 1] * d * (1.0 - d2 / 6.0);
+    }
+
+    double cos(double a) {
+      double t = a * scale;
+      // NaN, infinite and huge arguments
+      if (!(Math.abs(t) < ROUND)) return Math.cos(a);
+      long k = (long) (t + (ROUND + 0.5)) - (long) ROUND;
+      double d = a - k * step;
+      double d2 = d * d;
+      int i = 2 * ((int) k & mask);
+      return sinCos[i + 1] * (1.0 - d2 * (0.5 - d2 / 24.0)) -
+             sinCos[i] * d * (1.0 - d2 / 6.0);
+    }
+
+    double tan(double a) {
+      double t = a * scale;
+      // NaN, infinite and huge arguments
+      if (!(Math.abs(t) < ROUND)) return Math.tan(a);
+      long k = (long) (t + (ROUND + 0.5)) - (long) ROUND;
+      double d = a - k * step;
+      double d2 = d * d;
+      double cd = 1.0 - d2 * (0.5 - d2 / 24.0);
+      double sd = d * (1.0 - d2 / 6.0);
+      int i = 2 * ((int) k & mask);
+      return (sinCos[i] * cd + sinCos[i + 1] * sd) /
+             (sinCos[i + 1] * cd - sinCos[i] * sd);
+    }
+
+    double atan(double a) {
+      double x = Math.abs(a);
+      boolean invert = x > 1.0;
+      if (invert) x = 1.0 / x;
+      int i = (int) (x * atanSize + 0.5);
+      double x0 = (double) i / atanSize;
+      // atan(x) = atan(x0) + atan(t), and NaN gives a NaN t
+      double t = (x - x0) / (1.0 + x * x0);
+      double t2 = t * t;
+      double r = atans[i] + t * (1.0 - t2 * (1.0 / 3.0 - t2 / 5.0));
+      if (invert) r = Math.PI / 2.0 - r;
+      return (a < 0.0) ? -r : r;
+    }
+
+    double asin(double a) {
+      double x = Math.abs(a);
+      if (!(x <= ASIN_LIMIT)) {
+        // outside [-1, 1] sqrt gives NaN, as Math.asin does
+        return atan(a / Math.sqrt(1.0 - a * a));
+      }
+      int i = (int) (x * asinScale + 0.5);
+      double d = x - i / asinScale;
+      i *= 4;
+      double r = asins[i] +
+                 d * (asins[i + 1] + d * (asins[i + 2] + d * asins[i + 3]));
+      return (a < 0.0) ? -r : r;
+    }
+  }
+
+  /** make a nav block of the given type with some words set */
+  private static int[] navBlock(String type, int... words) {
+    int[] block = new int[640];
+    byte[] b = type.getBytes();
+    block[0] = ((b[0] & 0xff) << 24) | ((b[1] & 0xff) << 16) |
+               ((b[2] & 0xff) << 8) | (b[3] & 0xff);
+    for (int i = 0; i < words.length; i += 2) {
+      block[words[i]] = words[i + 1];
+    }
+    return block;
+  }
+
+  /**
+   * Compare fast and exact navigation of sample full disk areas.  The
+   * error of a fast latitude/longitude is measured in the image, by
+   * navigating it and the exact one back with exact math.  Points that
+   * are on the earth by one method and off it by the other are only
+   * counted; they lie within the error of the limb.
+   *
+   * @param args  largest error allowed in pixels, 0.1 by default
+   */
+  public static void main(String[] args) throws McIDASException {
+    double tolerance = (args.length > 0) ? Double.parseDouble(args[0]) : 0.1;
+    String[] types = {"ABIN", "ABIS", "MSG ", "MSGT", "GEOS", "KALP"};
+    int[][] blocks = {
+      navBlock("ABIN", 1, 15184400, 2, -15184400, 3, -5600, 4, 5600,
+               5, -750, 6, 1),
+      navBlock("ABIS", 3, 0, 4, 0, 5, 0, 6, -750000),
+      navBlock("MSG ", 1, 0, 3, 0),
+      navBlock("MSGT", 1, 18560, 2, 18560, 3, 13642337, 4, 13642337),
+      navBlock("GEOS", 1, 18565, 2, 18565, 3, -136423370, 4, 136423370,
+               5, 0, 6, 1),
+      navBlock("KALP", 6, 740000, 10, 0, 11, 421507660, 12, 223580,
+               13, 28180, 14, 28180)
+    };
+    int[] sizes = {2712, 20000, 3712, 11136, 3712, 2816};
+    boolean ok = true;
+
+    System.out.println("unit test of fast navigation math, tolerance " +
+                       tolerance + " pixels");
+    for (int k = 0; k < types.length; k++) {
+      AREAnav exact = AREAnav.makeAreaNav(blocks[k]);
+      AREAnav fast = AREAnav.makeAreaNav(blocks[k]);
+      if (!fast.setFastMath(tolerance)) {
+        System.out.println(types[k] + ": exact math, no table is accurate " +
+                           "enough");
+      }
+
+      // a 1000 by 1000 grid over the whole area
+      int n = 1000;
+      double step = (double) sizes[k] / n;
+      double[][] linele = new double[2][n * n];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          linele[exact.indexLine][i * n + j] = (i + 0.5) * step;
+          linele[exact.indexEle][i * n + j] = (j + 0.5) * step;
+        }
+      }
+      double[][] latlon = exact.toLatLon(linele);
+      double[][] fastLatlon = fast.toLatLon(linele);
+      double[][] back = exact.toLinEle(fastLatlon);
+      double[][] exactLinele = exact.toLinEle(latlon);
+      double[][] fastLinele = fast.toLinEle(latlon);
+
+      double maxLatLon = 0.0;
+      double maxLinEle = 0.0;
+      int limb = 0;
+      for (int p = 0; p < n * n; p++) {
+        if (Double.isNaN(exactLinele[0][p]) != Double.isNaN(back[0][p]) ||
+            Double.isNaN(exactLinele[0][p]) !=
+            Double.isNaN(fastLinele[0][p])) {
+          limb++;
+          continue;
+        }
+        if (Double.isNaN(exactLinele[0][p])) continue;
+        // compared in the image, since that is where pixels are
+        maxLatLon = Math.max(maxLatLon,
+          Math.hypot(back[0][p] - exactLinele[0][p],
+                     back[1][p] - exactLinele[1][p]));
+        maxLinEle = Math.max(maxLinEle,
+          Math.hypot(fastLinele[0][p] - exactLinele[0][p],
+                     fastLinele[1][p] - exactLinele[1][p]));
+      }
+
+      // time the two methods, after a first pass to warm up
+      long exactTime = 0;
+      long fastTime = 0;
+      for (int pass = 0; pass < 2; pass++) {
+        long start = System.nanoTime();
+        exact.toLatLon(linele, latlon);
+        exact.toLinEle(latlon, latlon);
+        exactTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        fast.toLatLon(linele, latlon);
+        fast.toLinEle(latlon, latlon);
+        fastTime = System.nanoTime() - start;
+      }
+
+      boolean pass = fast.isFastMath() && maxLatLon <= tolerance &&
+                     maxLinEle <= tolerance;
+      ok &= pass;
+      System.out.println("  " + types[k] + ": toLatLon error " +
+        (float) maxLatLon + ", toLinEle error " + (float) maxLinEle +
+        ", limb points " + limb + ", speedup " +
+        (float) exactTime / fastTime + (pass ? "" : "  FAILED"));
+    }
+    System.out.println("unit test of fast navigation math end...");
+    if (!ok) System.exit(1);
+  }
+}
@@ -97,6 +97,24 @@ public final class PSnav extends AREAnav
      *
      */
     public double[][] toLatLon(double[][] linele) 
+    {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
     {
 
         double xldif;
@@ -105,34 +123,22 @@ public final class PSnav extends AREAnav
         double xlat;
         double xrlon, radius;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-
-        for (int point=0; point < number; point++) 
-        {
-            xldif = ihem * (imglinele[indexLine][point] - xrow)/xblat;
-            xedif = (xcol - imglinele[indexEle][point])/xblat;
-            xrlon = 0;
-            if (!(xldif == 0. && xedif == 0.))
-                xrlon = Math.atan2(xedif, xldif);
-            xlon = iwest * xrlon/DEGREES_TO_RADIANS + xqlon;
-            if (xlon > 180.) xlon -= 360.; 
-            if (xlon < -180.) xlon += 360.; 
-            radius = Math.sqrt(xldif*xldif + xedif*xedif);
-            if (Math.abs(radius) < 1.e-10)
-                xlat = ihem*90;
-            else
-                xlat = ihem*(90. - 2*Math.atan(
-                            Math.exp(Math.log(radius/fac)))/DEGREES_TO_RADIANS);
-            latlon[indexLat][point] = xlat;
-            latlon[indexLon][point] = (iwest == 1) ? -xlon  : xlon;
-
-        } // end point for loop
-
-        return latlon;
+        xldif = ihem * (xlin - xrow)/xblat;
+        xedif = (xcol - xele)/xblat;
+        xrlon = 0;
+        if (!(xldif == 0. && xedif == 0.))
+            xrlon = Math.atan2(xedif, xldif);
+        xlon = iwest * xrlon/DEGREES_TO_RADIANS + xqlon;
+        if (xlon > 180.) xlon -= 360.; 
+        if (xlon < -180.) xlon += 360.; 
+        radius = Math.sqrt(xldif*xldif + xedif*xedif);
+        if (Math.abs(radius) < 1.e-10)
+            xlat = ihem*90;
+        else
+            xlat = ihem*(90. - 2*Math.atan(
+                        Math.exp(Math.log(radius/fac)))/DEGREES_TO_RADIANS);
+        lats[latIndex] = xlat;
+        lons[lonIndex] = (iwest == 1) ? -xlon  : xlon;
 
     }
 
@@ -148,35 +154,40 @@ public final class PSnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  xlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double xlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
     {
         double xlon;
-        double xlat;
         double xrlon, xclat, xrlat;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
-
-        for (int point=0; point < number; point++) 
-        {
-
-            xlat = latlon[indexLat][point];
-            // transform to McIDAS (west positive longitude) coordinates
-            xlon = (iwest == 1) 
-                   ? -latlon[indexLon][point]
-                   : latlon[indexLon][point];
-
-            xrlon = ihem*(xlon-xqlon);
-            if (xrlon > 180.) xrlon -= 360.;
-            if (xrlon < -180.) xrlon += 360.;
-            xrlon = iwest*xrlon*DEGREES_TO_RADIANS;
-            xclat = (xpole-xlat)*DEGREES_TO_RADIANS*.5;
-            xrlat = xblat*Math.tan(xclat);
-            linele[indexLine][point] = xrlat*Math.cos(xrlon) + xrow;
-            linele[indexEle][point] = -xrlat*Math.sin(xrlon) + xcol;
+        // transform to McIDAS (west positive longitude) coordinates
+        xlon = (iwest == 1) ? -lon : lon;
+
+        xrlon = ihem*(xlon-xqlon);
+        if (xrlon > 180.) xrlon -= 360.;
+        if (xrlon < -180.) xrlon += 360.;
+        xrlon = iwest*xrlon*DEGREES_TO_RADIANS;
+        xclat = (xpole-xlat)*DEGREES_TO_RADIANS*.5;
+        xrlat = xblat*Math.tan(xclat);
+        lines[lineIndex] = xrlat*Math.cos(xrlon) + xrow;
+        eles[eleIndex] = -xrlat*Math.sin(xrlon) + xcol;
            
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
     }
 }
@@ -0,0 +1,364 @@
+//
+// PixelFootprints.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Ground footprints of the pixels of an image: the size of every pixel
+ * along the line and element directions, in km, and its area, in
+ * km<sup>2</sup>.  These are for quality control and area weighted
+ * statistics over whole images.
+ *
+ * <p>The pixel corners are navigated with
+ * {@link AREAnav#toLatLonGrid(double[], double[], double[][])} onto a
+ * sphere of the radius used by
+ * {@link ConversionUtility#LatLonToDistance}.  The sizes are then
+ * finite differences between corners: the great circle length of a
+ * pixel's two sides in each direction, averaged.  The area is half the
+ * cross product of the pixel's diagonals.  The footprints are computed
+ * once, when first asked for, in blocks of lines that run in parallel
+ * unless {@link #setParallel(boolean)} turns that off.  Use
+ * {@link #getFootprints} to share them between callers that ask for the
+ * same geometry.</p>
+ *
+ * <p>The footprint arrays are indexed like the data of
+ * {@link AreaFile}: [line][element] is the pixel at that 'file' line and
+ * element of the navigation, which is how
+ * {@link AreaFile#getNavigation()} sets it up.  Pixels with a corner
+ * that does not navigate, such as those on the limb of the earth, are
+ * <code>Float.NaN</code>.</p>
+ *
+ * <pre><code>
+ *  AreaFile af = new AreaFile("AREA0001");
+ *  AreaDirectory ad = af.getAreaDirectory();
+ *  PixelFootprints footprints = PixelFootprints.getFootprints(
+ *      af.getNavigation(), ad.getLines(), ad.getElements());
+ *  double mean = footprints.getAreaWeightedMean(af.getFloatData(0));
+ * </code></pre>
+ */
+public class PixelFootprints {
+
+  /** earth radius, km, as in ConversionUtility.LatLonToDistance */
+  private static final double EARTH_RADIUS = 6371.0;
+
+  /** number of image lines done at a time */
+  private static final int LINE_BLOCK = 16;
+
+  /** maximum number of footprint sets kept by getFootprints */
+  private static final int CACHE_SIZE = 4;
+
+  /** getFootprints cache, least recently used entries dropped first */
+  private static final GridSupport.Cache<Key, PixelFootprints> cache =
+    new GridSupport.Cache<Key, PixelFootprints>(CACHE_SIZE, true);
+
+  private final AREAnav nav;
+  private final int lines;
+  private final int elements;
+
+  private boolean parallel = true;
+
+  // line size, element size and area of every pixel; built when first
+  // needed
+  private volatile float[][][] footprints;
+
+  /**
+   * Create the footprints of an image.  They are computed with a copy
+   * of the navigation as it is now.
+   *
+   * @param nav       navigation of the image
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   */
+  public PixelFootprints(AREAnav nav, int lines, int elements) {
+    if (nav == null) {
+      throw new IllegalArgumentException("navigation may not be null");
+    }
+    if (lines < 1 || elements < 1) {
+      throw new IllegalArgumentException("image size must be positive");
+    }
+    this.nav = nav.copy();
+    this.lines = lines;
+    this.elements = elements;
+  }
+
+  /**
+   * Get the footprints of an image, reusing previously computed ones if
+   * the same geometry was asked for before.  Only navigations made by
+   * {@link AREAnav#makeAreaNav} can be matched up; for others new
+   * footprints are returned every time.
+   *
+   * @param nav       navigation of the image
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   *
+   * @return footprints for the geometry
+   */
+  public static PixelFootprints getFootprints(AREAnav nav, int lines,
+                                              int elements) {
+    if (nav == null || !nav.hasNavBlock()) {
+      return new PixelFootprints(nav, lines, elements);
+    }
+    Key key = new Key(nav, lines, elements);
+    PixelFootprints footprints = cache.get(key);
+    if (footprints != null) return footprints;
+    footprints = new PixelFootprints(nav, lines, elements);
+    return cache.putIfAbsent(key, footprints);
+  }
+
+  /**
+   * Drop the footprints kept by {@link #getFootprints}.  Footprints
+   * already handed out are not affected.
+   */
+  public static void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * Set whether the footprints are computed in parallel.  The default
+   * is <code>true</code>.
+   *
+   * @param parallel <code>true</code> to use multiple threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get whether the footprints are computed in parallel.
+   *
+   * @return <code>true</code> if multiple threads are used
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Get the size of every pixel in the line direction, that is between
+   * its edges at line - 0.5 and line + 0.5.  The array is shared and
+   * must not be modified.
+   *
+   * @return size[lines][elements] in km
+   */
+  public float[][] getLineSize() {
+    return getFootprints()[0];
+  }
+
+  /**
+   * Get the size of every pixel in the element direction, that is
+   * between its edges at element - 0.5 and element + 0.5.  The array is
+   * shared and must not be modified.
+   *
+   * @return size[lines][elements] in km
+   */
+  public float[][] getElementSize() {
+    return getFootprints()[1];
+  }
+
+  /**
+   * Get the area of every pixel.  The array is shared and must not be
+   * modified.
+   *
+   * @return area[lines][elements] in km<sup>2</sup>
+   */
+  public float[][] getArea() {
+    return getFootprints()[2];
+  }
+
+  /**
+   * Compute the mean of image data weighted by pixel area.  Pixels
+   * without data or without a footprint are left out.
+   *
+   * @param data  image data[lines][elements]
+   *
+   * @return the area weighted mean, <code>Double.NaN</code> if no pixel
+   *         has both data and a footprint
+   */
+  public double getAreaWeightedMean(float[][] data) {
+    if (data.length < lines || data[0].length < elements) {
+      throw new IllegalArgumentException("image data is too small");
+    }
+    float[][] area = getArea();
+    double sum = 0.0;
+    double weight = 0.0;
+    for (int line = 0; line < lines; line++) {
+      float[] row = data[line];
+      float[] areaRow = area[line];
+      for (int ele = 0; ele < elements; ele++) {
+        float v = row[ele];
+        float a = areaRow[ele];
+        // NaN area fails the test
+        if (!Float.isNaN(v) && a > 0.0f) {
+          sum += (double) v * a;
+          weight += a;
+        }
+      }
+    }
+    return (weight > 0.0) ? sum / weight : Double.NaN;
+  }
+
+  /** get the footprints, computing them if need be */
+  private float[][][] getFootprints() {
+    float[][][] result = footprints;
+    if (result == null) {
+      synchronized (this) {
+        result = footprints;
+        if (result == null) {
+          result = computeFootprints();
+          footprints = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** navigate the pixel corners and difference them */
+  private float[][][] computeFootprints() {
+    final float[][] lineSize = new float[lines][elements];
+    final float[][] eleSize = new float[lines][elements];
+    final float[][] area = new float[lines][elements];
+    final double[] cornerEles = new double[elements + 1];
+    for (int ele = 0; ele <= elements; ele++) {
+      cornerEles[ele] = ele - 0.5;
+    }
+    int nblocks = (lines + LINE_BLOCK - 1) / LINE_BLOCK;
+
+    GridSupport.forEach(nblocks, parallel, block -> {
+      // own navigation copy and scratch arrays for each block
+      AREAnav blockNav = nav.copy();
+      int first = block * LINE_BLOCK;
+      int last = Math.min(first + LINE_BLOCK, lines);
+      int rows = last - first + 1;
+      int cols = elements + 1;
+      double[] cornerLines = new double[rows];
+      for (int row = 0; row < rows; row++) {
+        cornerLines[row] = first + row - 0.5;
+      }
+      double[][] latlon = new double[2][rows * cols];
+      blockNav.toLatLonGrid(cornerLines, cornerEles, latlon);
+
+      // corners as points on the sphere
+      double[] x = latlon[blockNav.indexLat];
+      double[] y = latlon[blockNav.indexLon];
+      double[] z = new double[rows * cols];
+      for (int point = 0; point < z.length; point++) {
+        double lat = Math.toRadians(x[point]);
+        double lon = Math.toRadians(y[point]);
+        double cosLat = Math.cos(lat);
+        x[point] = EARTH_RADIUS * cosLat * Math.cos(lon);
+        y[point] = EARTH_RADIUS * cosLat * Math.sin(lon);
+        z[point] = EARTH_RADIUS * Math.sin(lat);
+      }
+
+      // great circle length of every corner to corner edge, each
+      // shared by two pixels
+      double[] across = new double[rows * elements];
+      for (int row = 0; row < rows; row++) {
+        for (int ele = 0; ele < elements; ele++) {
+          int p = row * cols + ele;
+          across[row * elements + ele] = arc(x, y, z, p, p + 1);
+        }
+      }
+      double[] down = new double[(rows - 1) * cols];
+      for (int point = 0; point < down.length; point++) {
+        down[point] = arc(x, y, z, point, point + cols);
+      }
+
+      for (int line = first; line < last; line++) {
+        int row = line - first;
+        int top = row * cols;
+        int bottom = top + cols;
+        for (int ele = 0; ele < elements; ele++) {
+          int p00 = top + ele;
+          int p01 = p00 + 1;
+          int p10 = bottom + ele;
+          int p11 = p10 + 1;
+          lineSize[line][ele] = (float) (0.5 * (down[p00] + down[p01]));
+          eleSize[line][ele] = (float) (0.5 *
+            (across[row * elements + ele] +
+             across[(row + 1) * elements + ele]));
+
+          // half the cross product of the diagonals
+          double ax = x[p11] - x[p00];
+          double ay = y[p11] - y[p00];
+          double az = z[p11] - z[p00];
+          double bx = x[p10] - x[p01];
+          double by = y[p10] - y[p01];
+          double bz = z[p10] - z[p01];
+          double cx = ay * bz - az * by;
+          double cy = az * bx - ax * bz;
+          double cz = ax * by - ay * bx;
+          area[line][ele] =
+            (float) (0.5 * Math.sqrt(cx * cx + cy * cy + cz * cz));
+        }
+      }
+    });
+    return new float[][][] {lineSize, eleSize, area};
+  }
+
+  /** great circle distance between two corners */
+  private static double arc(double[] x, double[] y, double[] z,
+                            int p, int q) {
+    double dx = x[q] - x[p];
+    double dy = y[q] - y[p];
+    double dz = z[q] - z[p];
+    double h = Math.sqrt(dx * dx + dy * dy + dz * dz) / (2.0 * EARTH_RADIUS);
+    // asin(h) = h + h^3/6 + 3h^5/40 + ..., and pixels are usually small
+    double angle = (h < 1.0e-3) ? h * (1.0 + h * h / 6.0) : Math.asin(h);
+    return 2.0 * EARTH_RADIUS * angle;
+  }
+
+  /**
+   * getFootprints cache key: the geometry of the footprints.  It keeps
+   * its own navigation copy, not the footprints, so they stay only
+   * softly reachable from the cache.
+   */
+  private static final class Key {
+
+    private final AREAnav nav;
+    private final int lines;
+    private final int elements;
+
+    Key(AREAnav nav, int lines, int elements) {
+      this.nav = nav.copy();
+      this.lines = lines;
+      this.elements = elements;
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return lines == other.lines &&
+             elements == other.elements &&
+             nav.equals(other.nav);
+    }
+
+    public int hashCode() {
+      int hash = nav.hashCode();
+      hash = 31*hash + lines;
+      return 31*hash + elements;
+    }
+  }
+}
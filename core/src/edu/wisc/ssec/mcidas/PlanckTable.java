@@ -0,0 +1,254 @@
+//
+// PlanckTable.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Radiance to brightness temperature conversion for one band by
+ * interpolation in a table of the band's inverse Planck function, in
+ * place of a log for every value.
+ *
+ * <p>The table is indexed by the exponent and leading mantissa bits of
+ * the float radiance, so its nodes are spaced evenly in the log of
+ * radiance, and values between nodes are interpolated linearly.  The
+ * table covers the radiances of temperatures from {@link #MIN_TEMP} to
+ * {@link #MAX_TEMP}, with enough nodes that the interpolated values are
+ * within {@link #MAX_ERROR} of the exact conversion, and like it
+ * increase with radiance.  Other radiances, including zero, negative and
+ * NaN values, are passed to the exact conversion.</p>
+ *
+ * <p>A table does not change once made, so it may be used by many
+ * threads at once if its exact conversion may be.  Get tables from the
+ * calibrators, for example with
+ * {@link CalibratorGvar#getPlanckTable(int)}, or make one for any
+ * conversion with {@link #make}.</p>
+ */
+public final class PlanckTable {
+
+  /** coldest temperature covered by the table, K */
+  public static final double MIN_TEMP = 150.0;
+
+  /** warmest temperature covered by the table, K */
+  public static final double MAX_TEMP = 350.0;
+
+  /** largest difference from the exact conversion within the table, K */
+  public static final double MAX_ERROR = 0.01;
+
+  /** fewest and most mantissa bits used to index the table */
+  private static final int MIN_BITS = 4;
+  private static final int MAX_BITS = 14;
+
+  /** radiances searched for the ends of the table */
+  private static final float MIN_RAD = 1.0e-12f;
+  private static final float MAX_RAD = 1.0e12f;
+
+  /** points checked between nodes when measuring the error */
+  private static final int ERROR_SAMPLES = 4;
+
+  private final DoubleUnaryOperator radToTemp;
+  private final int shift;
+  private final int mask;
+  private final float scale;
+  private final int first;
+  private final float[] temps;
+  private final double maxError;
+
+  private PlanckTable(DoubleUnaryOperator radToTemp, int bits,
+                      float minRad, float maxRad) {
+    this.radToTemp = radToTemp;
+    shift = 23 - bits;
+    mask = (1 << shift) - 1;
+    scale = 1.0f / (1 << shift);
+    first = Float.floatToRawIntBits(minRad) >> shift;
+    int last = (Float.floatToRawIntBits(maxRad) >> shift) + 1;
+    temps = new float[last - first + 1];
+    for (int node = 0; node < temps.length; node++) {
+      temps[node] = (float) radToTemp.applyAsDouble(radiance(node, 0));
+    }
+    maxError = measureError();
+  }
+
+  /**
+   * Make a table for a band's radiance to temperature conversion.
+   *
+   * @param radToTemp  the exact conversion, increasing with radiance
+   *
+   * @return the smallest table within MAX_ERROR, or <code>null</code> if
+   *         the conversion does not reach MIN_TEMP and MAX_TEMP or no
+   *         table is close enough to it
+   */
+  public static PlanckTable make(DoubleUnaryOperator radToTemp) {
+    float minRad = findRadiance(radToTemp, MIN_TEMP);
+    float maxRad = findRadiance(radToTemp, MAX_TEMP);
+    if (Float.isNaN(minRad) || Float.isNaN(maxRad) || !(minRad < maxRad)) {
+      return null;
+    }
+    for (int bits = MIN_BITS; bits <= MAX_BITS; bits++) {
+      PlanckTable table = new PlanckTable(radToTemp, bits, minRad, maxRad);
+      if (table.maxError <= MAX_ERROR) {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the largest difference between the table and the exact
+   * conversion found when the table was made, which is at most
+   * MAX_ERROR.
+   *
+   * @return the error, K
+   */
+  public double getMaxError() {
+    return maxError;
+  }
+
+  /**
+   * Get the number of nodes in the table.
+   *
+   * @return table size
+   */
+  public int getSize() {
+    return temps.length;
+  }
+
+  /**
+   * Convert one radiance to temperature.
+   *
+   * @param radiance  input radiance
+   *
+   * @return the temperature
+   */
+  public float toTemp(float radiance) {
+    int bits = Float.floatToRawIntBits(radiance);
+    // negative values, with the sign bit set, and NaN fall outside
+    int node = (bits >> shift) - first;
+    if (node >= 0 && node < temps.length - 1) {
+      float temp = temps[node];
+      return temp + (temps[node + 1] - temp) * ((bits & mask) * scale);
+    }
+    return (float) radToTemp.applyAsDouble(radiance);
+  }
+
+  /**
+   * Convert a run of radiances to temperatures.  input and output may be
+   * the same array.
+   *
+   * @param input         input radiances
+   * @param inputOffset   index of the first radiance
+   * @param output        temperatures
+   * @param outputOffset  index for the first temperature
+   * @param length        number of radiances
+   */
+  public void toTemp(float[] input, int inputOffset, float[] output,
+                     int outputOffset, int length) {
+    for (int i = 0; i < length; i++) {
+      output[outputOffset + i] = toTemp(input[inputOffset + i]);
+    }
+  }
+
+  /** radiance a fraction of the way from a node to the next one */
+  private float radiance(int node, int sample) {
+    int bits = (first + node) << shift;
+    return Float.intBitsToFloat(bits + sample * (mask + 1) / ERROR_SAMPLES);
+  }
+
+  /** largest error between nodes; infinite if the table is not monotone */
+  private double measureError() {
+    double error = 0.0;
+    for (int node = 0; node < temps.length - 1; node++) {
+      if (!(temps[node] <= temps[node + 1])) {
+        return Double.POSITIVE_INFINITY;
+      }
+      for (int sample = 1; sample < ERROR_SAMPLES; sample++) {
+        float radiance = radiance(node, sample);
+        double exact = radToTemp.applyAsDouble(radiance);
+        error = Math.max(error, Math.abs(toTemp(radiance) - exact));
+      }
+    }
+    return error;
+  }
+
+  /**
+   * Find the radiance of a temperature by bisection on the float bits,
+   * which are ordered as the positive values they represent.
+   *
+   * @return the radiance, or NaN if the temperature is not in range
+   */
+  private static float findRadiance(DoubleUnaryOperator radToTemp,
+                                    double temp) {
+    int low = Float.floatToRawIntBits(MIN_RAD);
+    int high = Float.floatToRawIntBits(MAX_RAD);
+    if (!(radToTemp.applyAsDouble(MIN_RAD) < temp &&
+          radToTemp.applyAsDouble(MAX_RAD) > temp)) {
+      return Float.NaN;
+    }
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (radToTemp.applyAsDouble(Float.intBitsToFloat(mid)) < temp) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return Float.intBitsToFloat(high);
+  }
+
+  /**
+   * Tables a calibrator has made, by band.  Bands without a table, such
+   * as visible ones, are remembered too.
+   */
+  static final class Cache {
+
+    private static final Object NONE = new Object();
+
+    private final Map<Integer, Object> tables =
+      new ConcurrentHashMap<Integer, Object>();
+
+    /**
+     * Get a band's table, making it if need be.
+     *
+     * @param band       channel/band number
+     * @param radToTemp  the band's exact conversion
+     *
+     * @return the table, or <code>null</code> if the band has none
+     */
+    PlanckTable get(int band, DoubleUnaryOperator radToTemp) {
+      Integer key = Integer.valueOf(band);
+      Object table = tables.get(key);
+      if (table == null) {
+        // two threads may both make it; they make the same table
+        table = make(radToTemp);
+        tables.put(key, (table == null) ? NONE : table);
+      }
+      return (table instanceof PlanckTable) ? (PlanckTable) table : null;
+    }
+  }
+}
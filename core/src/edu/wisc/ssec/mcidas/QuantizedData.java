@@ -0,0 +1,247 @@
+//
+// QuantizedData.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Image data stored as shorts with a scale and offset for each band,
+ * in half the memory of floats.  A stored value s stands for
+ * <code>offset + scale * s</code>, and {@link #MISSING} stands for
+ * <code>Float.NaN</code>.  A McIDAS calibration scale factor (see
+ * {@link AreaDirectory#getCalibrationScaleFactor()}) is a scale of
+ * 1/factor with an offset of 0.
+ *
+ * <p>Values are rounded to the nearest step of the scale, so they are
+ * within half a step of the values stored, and those outside the range
+ * that can be stored are clamped to its ends.  When the scale and
+ * offset are fitted to a band, the range is that of the band's values,
+ * which for brightness temperatures over 150 K gives steps of about
+ * 0.002 K.</p>
+ *
+ * <pre><code>
+ *  AreaFile af = new AreaFile("AREA0001");
+ *  af.setCalType(Calibrator.CAL_TEMP);
+ *  QuantizedData q = af.getQuantizedData();
+ *  float temp = q.getValue(0, line, element);
+ * </code></pre>
+ */
+public final class QuantizedData {
+
+  /** stored value of pixels without a value */
+  public static final short MISSING = Short.MIN_VALUE;
+
+  /** largest stored value; the smallest is -MAX_STORED */
+  private static final int MAX_STORED = Short.MAX_VALUE;
+
+  private final short[][][] data;
+  private final float[] scales;
+  private final float[] offsets;
+
+  /**
+   * Wrap stored values, for example ones kept in a cache.
+   *
+   * @param data     stored values[bands][lines][elements]
+   * @param scales   scale of each band
+   * @param offsets  offset of each band
+   */
+  public QuantizedData(short[][][] data, float[] scales, float[] offsets) {
+    if (scales.length != data.length || offsets.length != data.length) {
+      throw new IllegalArgumentException(
+        "need a scale and offset for every band");
+    }
+    this.data = data;
+    this.scales = scales;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Store values, fitting the scale and offset of each band to its
+   * values.
+   *
+   * @param values  values[bands][lines][elements]
+   *
+   * @return the stored values
+   */
+  public static QuantizedData quantize(float[][][] values) {
+    float[] scales = new float[values.length];
+    float[] offsets = new float[values.length];
+    for (int band = 0; band < values.length; band++) {
+      float[] fit = fit(values[band]);
+      scales[band] = fit[0];
+      offsets[band] = fit[1];
+    }
+    return quantize(values, scales, offsets);
+  }
+
+  /**
+   * Store values with the given scale and offset for each band.
+   *
+   * @param values   values[bands][lines][elements]
+   * @param scales   scale of each band
+   * @param offsets  offset of each band
+   *
+   * @return the stored values
+   */
+  public static QuantizedData quantize(float[][][] values, float[] scales,
+                                       float[] offsets) {
+    short[][][] data = new short[values.length][][];
+    for (int band = 0; band < values.length; band++) {
+      data[band] = quantize(values[band], scales[band], offsets[band]);
+    }
+    return new QuantizedData(data, scales, offsets);
+  }
+
+  /**
+   * Get the stored values.  The array is shared, not copied.
+   *
+   * @return stored values[bands][lines][elements]
+   */
+  public short[][][] getData() {
+    return data;
+  }
+
+  /**
+   * Get the scale of a band.
+   *
+   * @param band  band index, from 0
+   *
+   * @return difference between the values of consecutive stored values
+   */
+  public float getScale(int band) {
+    return scales[band];
+  }
+
+  /**
+   * Get the offset of a band.
+   *
+   * @param band  band index, from 0
+   *
+   * @return value of a stored 0
+   */
+  public float getOffset(int band) {
+    return offsets[band];
+  }
+
+  /**
+   * Get the value of one pixel.
+   *
+   * @param band     band index, from 0
+   * @param line     line index
+   * @param element  element index
+   *
+   * @return the value, <code>Float.NaN</code> if missing
+   */
+  public float getValue(int band, int line, int element) {
+    return toFloat(data[band][line][element], scales[band], offsets[band]);
+  }
+
+  /**
+   * Get the values of a band as floats.
+   *
+   * @param band  band index, from 0
+   *
+   * @return values[lines][elements]
+   */
+  public float[][] getFloatData(int band) {
+    short[][] stored = data[band];
+    float scale = scales[band];
+    float offset = offsets[band];
+    float[][] values = new float[stored.length][];
+    for (int line = 0; line < stored.length; line++) {
+      short[] row = stored[line];
+      float[] valueRow = new float[row.length];
+      for (int ele = 0; ele < row.length; ele++) {
+        valueRow[ele] = toFloat(row[ele], scale, offset);
+      }
+      values[line] = valueRow;
+    }
+    return values;
+  }
+
+  /**
+   * Fit a scale and offset to the range of a band's values.  NaN and
+   * infinite values are left out.
+   *
+   * @param values  values[lines][elements]
+   *
+   * @return {scale, offset}
+   */
+  static float[] fit(float[][] values) {
+    float min = Float.POSITIVE_INFINITY;
+    float max = Float.NEGATIVE_INFINITY;
+    for (float[] row : values) {
+      for (float v : row) {
+        // NaN fails both tests
+        if (v < min && v != Float.NEGATIVE_INFINITY) min = v;
+        if (v > max && v != Float.POSITIVE_INFINITY) max = v;
+      }
+    }
+    if (!(min < max)) {
+      // at most one distinct value
+      return new float[] {1.0f, (min == max) ? min : 0.0f};
+    }
+    // one step spare for rounding of the offset
+    double scale = ((double) max - min) / (2.0 * MAX_STORED - 2.0);
+    double offset = 0.5 * ((double) min + max);
+    return new float[] {(float) scale, (float) offset};
+  }
+
+  /**
+   * Store a band's values.
+   *
+   * @param values  values[lines][elements]
+   * @param scale   scale of the band
+   * @param offset  offset of the band
+   *
+   * @return stored values[lines][elements]
+   */
+  static short[][] quantize(float[][] values, float scale, float offset) {
+    short[][] stored = new short[values.length][];
+    for (int line = 0; line < values.length; line++) {
+      float[] row = values[line];
+      short[] storedRow = new short[row.length];
+      for (int ele = 0; ele < row.length; ele++) {
+        storedRow[ele] = toShort(row[ele], scale, offset);
+      }
+      stored[line] = storedRow;
+    }
+    return stored;
+  }
+
+  /** stored value of one value */
+  private static short toShort(float value, float scale, float offset) {
+    if (Float.isNaN(value)) {
+      return MISSING;
+    }
+    double steps = Math.rint(((double) value - offset) / scale);
+    return (short) Math.max(-MAX_STORED, Math.min(MAX_STORED, steps));
+  }
+
+  /** value of one stored value */
+  private static float toFloat(short stored, float scale, float offset) {
+    return (stored == MISSING) ? Float.NaN : offset + scale * stored;
+  }
+}
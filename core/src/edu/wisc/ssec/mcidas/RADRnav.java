@@ -91,6 +91,14 @@ public final class RADRnav extends AREAnav
         xblon = EARTH_RADIUS*DEGREES_TO_RADIANS/yspace;
     }
 
+    /** Determine if longitudes are positive East
+     *
+     * @return  true if positive East, false if positive West
+     */
+    public boolean isEastPositive() {
+        return isEastPositive;
+    }
+
     /** converts from satellite coordinates to latitude/longitude
      *
      * @param  linele	  array of line/element pairs.  Where 
@@ -104,6 +112,24 @@ public final class RADRnav extends AREAnav
      *
      */
     public double[][] toLatLon(double[][] linele) 
+    {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
     {
 
         double xldif;
@@ -114,37 +140,24 @@ public final class RADRnav extends AREAnav
         double ylat;
         double ylon;
 
-        int number = linele[0].length;
-        //double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
-        double[][] latlon = imglinele;
-
-        for (int point=0; point < number; point++) 
+        xldif = xrow - xlin;
+        xedif = xcol - xele;
+        xdis = Math.sqrt(xldif*xldif + xedif*xedif);
+        if (xdis > 0.001)
         {
-           xldif = xrow - imglinele[indexLine][point];
-           xedif = xcol - imglinele[indexEle][point];
-           xdis = Math.sqrt(xldif*xldif + xedif*xedif);
-           if (xdis > 0.001)
-           {
-               xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
-               xange = Math.atan2(xldif, xedif) + 90.*DEGREES_TO_RADIANS;
-               xldif = xdis*Math.cos(xrot+xangl);
-               xedif = xdis*Math.sin(xrot+xange);
-            }
-            ylat = xlat + xldif/xblat;
-            ylon = xlon + xedif/xblon/Math.cos(ylat* DEGREES_TO_RADIANS);
-
-            // transform from McIDAS coordinates
-            if (isEastPositive) ylon = -ylon;
-            
-            latlon[indexLat][point] = ylat;
-            latlon[indexLon][point] = ylon;
+            xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
+            xange = Math.atan2(xldif, xedif) + 90.*DEGREES_TO_RADIANS;
+            xldif = xdis*Math.cos(xrot+xangl);
+            xedif = xdis*Math.sin(xrot+xange);
+        }
+        ylat = xlat + xldif/xblat;
+        ylon = xlon + xedif/xblon/Math.cos(ylat* DEGREES_TO_RADIANS);
 
-        } // end point for loop
+        // transform from McIDAS coordinates
+        if (isEastPositive) ylon = -ylon;
 
-        return latlon;
+        lats[latIndex] = ylat;
+        lons[lonIndex] = ylon;
 
     }
 
@@ -161,7 +174,25 @@ public final class RADRnav extends AREAnav
      */
     public double[][] toLinEle(double[][] latlon) 
     {
-        double zlat;
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  zlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double zlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
+    {
         double zlon;
         double xrlon;
         double xrlat;
@@ -171,45 +202,30 @@ public final class RADRnav extends AREAnav
         double xangl;
         double xange;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
+        if (Double.isNaN(zlat) || Double.isNaN(lon)) {
+            lines[lineIndex] = Float.NaN;
+            eles[eleIndex] = Float.NaN;
+            return;
+        }
 
-        for (int point=0; point < number; point++) 
+        // transform to McIDAS (west positive longitude) coordinates
+        zlon = isEastPositive ? -lon : lon;
+        if (zlon > 180) zlon -= 360;
+        if (zlon < -180) zlon += 360;
+        xrlon = zlon - xlon;
+        xrlat = zlat - xlat;
+        xldif = xblat*xrlat;
+        xedif = xrlon*xblon*Math.cos(zlat*DEGREES_TO_RADIANS);
+        xdis = Math.sqrt(xldif*xldif + xedif*xedif);
+        if (xdis > .001) 
         {
-            if (Double.isNaN(latlon[indexLat][point]) || 
-                Double.isNaN(latlon[indexLon][point])) {
-                linele[indexLine][point] = Float.NaN;
-                linele[indexEle][point] = Float.NaN;
-                continue;
-            }
-
-            zlat = latlon[indexLat][point];
-
-            // transform to McIDAS (west positive longitude) coordinates
-            zlon = isEastPositive 
-                     ?  -latlon[indexLon][point]
-                     : latlon[indexLon][point];
-            if (zlon > 180) zlon -= 360;
-            if (zlon < -180) zlon += 360;
-            xrlon = zlon - xlon;
-            xrlat = zlat - xlat;
-            xldif = xblat*xrlat;
-            xedif = xrlon*xblon*Math.cos(zlat*DEGREES_TO_RADIANS);
-            xdis = Math.sqrt(xldif*xldif + xedif*xedif);
-            if (xdis > .001) 
-            {
-                xangl = Math.atan2(xldif, xedif)-90*DEGREES_TO_RADIANS;
-                xange = Math.atan2(xldif, xedif)+90*DEGREES_TO_RADIANS;
-                xldif = xdis*Math.cos(-xrot+xangl);
-                xedif = xdis*Math.sin(-xrot+xange);
-            }
-            linele[indexLine][point] = xrow - xldif;
-            linele[indexEle][point] = xcol - xedif;
-
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+            xangl = Math.atan2(xldif, xedif)-90*DEGREES_TO_RADIANS;
+            xange = Math.atan2(xldif, xedif)+90*DEGREES_TO_RADIANS;
+            xldif = xdis*Math.cos(-xrot+xangl);
+            xedif = xdis*Math.sin(-xrot+xange);
+        }
+        lines[lineIndex] = xrow - xldif;
+        eles[eleIndex] = xcol - xedif;
     }
 
     /** converts from satellite coordinates to latitude/longitude
@@ -122,69 +122,101 @@ public final class RECTnav extends AREAnav
      */
     public double[][] toLatLon(double[][] linele) 
     {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
 
-        double xldif;
-        double xedif;
-        double xlon;
-        double xlat;
-        double xele;
-        double xlin;
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
+    {
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
+        double xlat = imageLineToLatitude(xlin);
+        double xlon = imageEleToLongitude(xele);
+        if (Double.isNaN(xlat) || Double.isNaN(xlon))
+        {
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+        }
+        else
+        {
+            lats[latIndex] = xlat;
+            lons[lonIndex] = xlon;
+        }
 
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
+    }
 
-        for (int point=0; point < number; point++) 
+    /** latitude depends on the line alone and longitude on the element
+     * alone
+     *
+     * @return true
+     */
+    public boolean isSeparable()
+    {
+        return true;
+    }
+
+    /** converts an image line to latitude
+     *
+     * @param  xlin      image line
+     *
+     * @return latitude, NaN if off the map
+     */
+    protected double imageLineToLatitude(double xlin)
+    {
+        double xlat = zslat + (xrow - xlin)*zdlat;
+        if  (xlat > 90. || xlat < -90.)
         {
-            xlin = imglinele[indexLine][point];
-            xele = imglinele[indexEle][point];
+            xlat = Double.NaN;
+        }
+        return xlat;
+    }
 
-            xldif = xrow - xlin;
-            if (xcol == 1) {
-               xedif = iwest * (xele-xcol);
-               xlon = zslon + 180*iwest-xedif*zdlon;
-            } else {
-               xedif = iwest * (xcol-xele);
-               xlon = zslon + xedif*zdlon;
-            }
-            xlat = zslat + xldif*zdlat;
-            if  (xlat > 90. || xlat < -90.)
-            {
-                xlat = Double.NaN;
-            }
-            if (xlon > (zslon+180) ||
-                xlon < (zslon-180)) {
-                xlon = Double.NaN;
-            }
-            if (!Double.isNaN(xlon)) {
-                if (xlon < -180.)
-                {
-                    xlon = xlon + 360.;
-                    //if (xlon < -180.) xlon = Double.NaN;
-                }
-                if (xlon > 180)
-                {
-                    xlon = xlon - 360.;
-                    //if (xlon > 180.) xlon = Double.NaN;
-                }
-            }
-            if (Double.isNaN(xlat) || Double.isNaN(xlon))
+    /** converts an image element to longitude
+     *
+     * @param  xele      image element
+     *
+     * @return longitude, NaN if off the map
+     */
+    protected double imageEleToLongitude(double xele)
+    {
+        double xedif;
+        double xlon;
+
+        if (xcol == 1) {
+           xedif = iwest * (xele-xcol);
+           xlon = zslon + 180*iwest-xedif*zdlon;
+        } else {
+           xedif = iwest * (xcol-xele);
+           xlon = zslon + xedif*zdlon;
+        }
+        if (xlon > (zslon+180) ||
+            xlon < (zslon-180)) {
+            return Double.NaN;
+        }
+        if (!Double.isNaN(xlon)) {
+            if (xlon < -180.)
             {
-                latlon[indexLat][point] = Double.NaN;
-                latlon[indexLon][point] = Double.NaN;
+                xlon = xlon + 360.;
+                //if (xlon < -180.) xlon = Double.NaN;
             }
-            else
+            if (xlon > 180)
             {
-                latlon[indexLat][point] = xlat;
-                latlon[indexLon][point] = (iwest == 1) ? -xlon  : xlon;
+                xlon = xlon - 360.;
+                //if (xlon > 180.) xlon = Double.NaN;
             }
-
-        } // end point for loop
-
-        return latlon;
-
+        }
+        return (iwest == 1) ? -xlon  : xlon;
     }
 
     /**
@@ -199,43 +231,46 @@ public final class RECTnav extends AREAnav
      *                    (not "image" coordinates);
      */
     public double[][] toLinEle(double[][] latlon) 
+    {
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
+
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  xlat      latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double xlat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
     {
         double xlon;
-        double xlat;
         double xlin;
         double xele;
 
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
-
-        for (int point=0; point < number; point++) 
-        {
-
-            xlat = latlon[indexLat][point];
-
-            // transform to McIDAS (west positive longitude) coordinates
-            xlon = (iwest == 1) 
-                   ? -latlon[indexLon][point]
-                   : latlon[indexLon][point];
-            if (xlon > (zslon+180)) {
-                xlon = xlon-360;
-            } else if (xlon < zslon-180) {
-                xlon = xlon+360;
-            }
-            //if (iwest == -1 && xlon < zslon) xlon = xlon +360.;
-            xlin = xrow - (xlat - zslat)/zdlat;
-            if (xcol == 1) {
-                xele = xcol - (xlon - zslon-180*iwest)/(zdlon*iwest);
-            } else {
-                xele = xcol - (xlon - zslon)/(zdlon*iwest);
-            }
-            linele[indexLine][point] = xlin;
-            linele[indexEle][point]  = xele;
-
-        } // end point loop
-
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+        // transform to McIDAS (west positive longitude) coordinates
+        xlon = (iwest == 1) ? -lon : lon;
+        if (xlon > (zslon+180)) {
+            xlon = xlon-360;
+        } else if (xlon < zslon-180) {
+            xlon = xlon+360;
+        }
+        //if (iwest == -1 && xlon < zslon) xlon = xlon +360.;
+        xlin = xrow - (xlat - zslat)/zdlat;
+        if (xcol == 1) {
+            xele = xcol - (xlon - zslon-180*iwest)/(zdlon*iwest);
+        } else {
+            xele = xcol - (xlon - zslon)/(zdlon*iwest);
+        }
+        lines[lineIndex] = xlin;
+        eles[eleIndex]  = xele;
     }
 
 
@@ -0,0 +1,347 @@
+//
+// Regridder.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Puts AREA image data onto the rows and columns of a McIDAS grid, so
+ * imagery can be combined with grids described by a {@link GRIDnav}
+ * (see {@link GridDirectory#getNavigation()}).
+ *
+ * <p>{@link #POINT} sampling navigates every grid point to the image and
+ * takes the nearest pixel.  {@link #MEAN} and {@link #MAX} use every
+ * image pixel: each pixel is assigned (binned) to the grid cell its
+ * centre falls in, and the cell gets the mean or maximum of its pixels.
+ * The pixel to cell assignment is computed once, in parallel over blocks
+ * of image lines, and reused for every band regridded with the same
+ * <code>Regridder</code>.  The statistics are then gathered in one
+ * streaming pass over the image, split into line blocks that run in
+ * parallel unless {@link #setParallel(boolean)} turns that off.</p>
+ *
+ * <p>The image data are indexed [line][element] by 'file' coordinates
+ * of the AREA navigation, as with the navigation and data of an
+ * {@link AreaFile} (see {@link AreaFile#getNavigation()}).  Element
+ * <code>[i][j]</code> of the regridded data is grid row
+ * <code>i+1</code>, column <code>j+1</code> of the grid navigation.
+ * Cells without data are <code>Float.NaN</code>.</p>
+ */
+public class Regridder {
+
+  /** Use the image pixel nearest each grid point */
+  public static final int POINT = 0;
+
+  /** Use the mean of the image pixels in each grid cell */
+  public static final int MEAN = 1;
+
+  /** Use the maximum of the image pixels in each grid cell */
+  public static final int MAX = 2;
+
+  /** number of image lines navigated at a time */
+  private static final int LINE_BLOCK = 16;
+
+  private final AREAnav areaNav;
+  private final int lines;
+  private final int elements;
+  private final GRIDnav gridNav;
+  private final int rows;
+  private final int columns;
+
+  private boolean parallel = true;
+
+  // grid cell of every image pixel, and image pixel nearest every
+  // grid point (-1 if none); built when first needed
+  private volatile int[] pixelCells;
+  private volatile int[] cellPixels;
+
+  /**
+   * Create a regridder from an image geometry to a grid geometry.
+   * The pixel to cell assignment uses a copy of the image navigation
+   * taken here; the grid navigation is used as given.
+   *
+   * @param areaNav   navigation of the image
+   * @param lines     number of lines in the image
+   * @param elements  number of elements in the image
+   * @param gridNav   navigation of the grid
+   * @param rows      number of rows in the grid
+   * @param columns   number of columns in the grid
+   */
+  public Regridder(AREAnav areaNav, int lines, int elements,
+                   GRIDnav gridNav, int rows, int columns) {
+    if (areaNav == null || gridNav == null) {
+      throw new IllegalArgumentException("navigation may not be null");
+    }
+    if (lines < 1 || elements < 1 || rows < 1 || columns < 1) {
+      throw new IllegalArgumentException(
+        "image and grid sizes must be positive");
+    }
+    this.areaNav = areaNav.copy();
+    this.lines = lines;
+    this.elements = elements;
+    this.gridNav = gridNav;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  /**
+   * Set whether the work is split over multiple threads.  The default
+   * is <code>true</code>.
+   *
+   * @param parallel <code>true</code> to use multiple threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get whether the work is split over multiple threads.
+   *
+   * @return <code>true</code> if multiple threads are used
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Regrid one band of an AREA file.
+   *
+   * @param area       the AREA file
+   * @param bandIndex  index of the band in {@link AreaFile#getFloatData()};
+   *                   only that band is calibrated
+   * @param method     one of {@link #POINT}, {@link #MEAN} or {@link #MAX}
+   *
+   * @return data[rows][columns]
+   *
+   * @throws AreaFileException if the data can't be read
+   */
+  public float[][] regrid(AreaFile area, int bandIndex, int method)
+      throws AreaFileException {
+    return regrid(area.getFloatData(bandIndex), method);
+  }
+
+  /**
+   * Regrid an image.
+   *
+   * @param data    image data[lines][elements]
+   * @param method  one of {@link #POINT}, {@link #MEAN} or {@link #MAX}
+   *
+   * @return data[rows][columns]
+   */
+  public float[][] regrid(float[][] data, int method) {
+    if (data.length < lines || data[0].length < elements) {
+      throw new IllegalArgumentException("image data is too small");
+    }
+    float[] cells;
+    switch (method) {
+      case POINT:
+        cells = sample(data);
+        break;
+      case MEAN:
+      case MAX:
+        cells = accumulate(data, method == MAX);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown regrid method " + method);
+    }
+    float[][] grid = new float[rows][columns];
+    for (int row = 0; row < rows; row++) {
+      System.arraycopy(cells, row * columns, grid[row], 0, columns);
+    }
+    return grid;
+  }
+
+  /** nearest pixel value at every grid point */
+  private float[] sample(float[][] data) {
+    int[] map = getCellPixels();
+    float[] cells = new float[rows * columns];
+    for (int cell = 0; cell < cells.length; cell++) {
+      int pixel = map[cell];
+      cells[cell] = (pixel < 0) ? Float.NaN
+                                : data[pixel / elements][pixel % elements];
+    }
+    return cells;
+  }
+
+  /**
+   * mean or maximum of the pixels in every grid cell.  Each block of
+   * lines gathers into its own partial result, and the partial results
+   * are combined at the end.
+   */
+  private float[] accumulate(final float[][] data, final boolean max) {
+    final int[] map = getPixelCells();
+    final int ncells = rows * columns;
+    int nblocks = parallel
+      ? Math.min(lines, Runtime.getRuntime().availableProcessors()) : 1;
+    final int blockLines = (lines + nblocks - 1) / nblocks;
+    nblocks = (lines + blockLines - 1) / blockLines;
+    final double[][] values = new double[nblocks][];
+    final int[][] counts = new int[nblocks][];
+
+    GridSupport.forEach(nblocks, parallel, block -> {
+      double[] value = new double[ncells];
+      int[] count = new int[ncells];
+      int first = block * blockLines;
+      int last = Math.min(first + blockLines, lines);
+      for (int line = first; line < last; line++) {
+        float[] row = data[line];
+        int pixel = line * elements;
+        for (int ele = 0; ele < elements; ele++, pixel++) {
+          int cell = map[pixel];
+          float v = row[ele];
+          if (cell < 0 || Float.isNaN(v)) continue;
+          if (!max) {
+            value[cell] += v;
+          } else if (count[cell] == 0 || v > value[cell]) {
+            value[cell] = v;
+          }
+          count[cell]++;
+        }
+      }
+      values[block] = value;
+      counts[block] = count;
+    });
+
+    float[] cells = new float[ncells];
+    for (int cell = 0; cell < ncells; cell++) {
+      double value = 0.0;
+      int count = 0;
+      for (int block = 0; block < nblocks; block++) {
+        int n = counts[block][cell];
+        if (n == 0) continue;
+        double v = values[block][cell];
+        if (!max) {
+          value += v;
+        } else if (count == 0 || v > value) {
+          value = v;
+        }
+        count += n;
+      }
+      if (count == 0) {
+        cells[cell] = Float.NaN;
+      } else {
+        cells[cell] = (float) (max ? value : value / count);
+      }
+    }
+    return cells;
+  }
+
+  /** get the grid cell of every image pixel, -1 if none */
+  private int[] getPixelCells() {
+    int[] map = pixelCells;
+    if (map == null) {
+      synchronized (this) {
+        map = pixelCells;
+        if (map == null) {
+          map = binPixels();
+          pixelCells = map;
+        }
+      }
+    }
+    return map;
+  }
+
+  /** get the image pixel nearest every grid point, -1 if none */
+  private int[] getCellPixels() {
+    int[] map = cellPixels;
+    if (map == null) {
+      synchronized (this) {
+        map = cellPixels;
+        if (map == null) {
+          map = locateCells();
+          cellPixels = map;
+        }
+      }
+    }
+    return map;
+  }
+
+  /** navigate every image pixel to its grid cell */
+  private int[] binPixels() {
+    final int[] map = new int[lines * elements];
+    int nblocks = (lines + LINE_BLOCK - 1) / LINE_BLOCK;
+
+    GridSupport.forEach(nblocks, parallel, block -> {
+      // own navigation copy and scratch array for each block
+      AREAnav nav = areaNav.copy();
+      int first = block * LINE_BLOCK;
+      int last = Math.min(first + LINE_BLOCK, lines);
+      int count = (last - first) * elements;
+      double[][] points = new double[2][count];
+      int point = 0;
+      for (int line = first; line < last; line++) {
+        for (int ele = 0; ele < elements; ele++, point++) {
+          points[nav.indexLine][point] = line;
+          points[nav.indexEle][point] = ele;
+        }
+      }
+      nav.toLatLon(points, points);
+      double[][] rowcol = gridNav.toRowCol(points);
+      int pixel = first * elements;
+      for (point = 0; point < count; point++, pixel++) {
+        map[pixel] = cellIndex(rowcol[gridNav.indexRow][point],
+                               rowcol[gridNav.indexCol][point]);
+      }
+    });
+    return map;
+  }
+
+  /** navigate every grid point to its nearest image pixel */
+  private int[] locateCells() {
+    final int[] map = new int[rows * columns];
+
+    GridSupport.forEach(rows, parallel, row -> {
+      AREAnav nav = areaNav.copy();
+      double[][] points = new double[2][columns];
+      for (int col = 0; col < columns; col++) {
+        points[gridNav.indexRow][col] = row + 1;
+        points[gridNav.indexCol][col] = col + 1;
+      }
+      double[][] latlon = gridNav.toLatLon(points);
+      nav.toLinEle(latlon, points);
+      for (int col = 0; col < columns; col++) {
+        double line = points[nav.indexLine][col];
+        double ele = points[nav.indexEle][col];
+        int cell = row * columns + col;
+        // NaN fails both tests
+        if (line > -0.5 && line < lines - 0.5 &&
+            ele > -0.5 && ele < elements - 0.5) {
+          map[cell] = (int) (line + 0.5) * elements + (int) (ele + 0.5);
+        } else {
+          map[cell] = -1;
+        }
+      }
+    });
+    return map;
+  }
+
+  /** index of the grid cell centred nearest a row/column, -1 if none */
+  private int cellIndex(double row, double col) {
+    if (!(row >= 0.5 && row < rows + 0.5) ||
+        !(col >= 0.5 && col < columns + 0.5)) {
+      return -1;
+    }
+    return ((int) (row + 0.5) - 1) * columns + (int) (col + 0.5) - 1;
+  }
+}
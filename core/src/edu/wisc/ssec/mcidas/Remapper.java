@@ -0,0 +1,483 @@
+//
+// Remapper.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+/**
+ * Resamples image data from one {@link AREAnav} geometry into another,
+ * for example a GVAR image onto a RECT, MERC or PS grid.
+ *
+ * <p>Every target pixel centre is navigated to latitude/longitude with
+ * the target navigation and then back to a fractional source line and
+ * element with the source navigation.  That index map only depends on
+ * the two geometries, so it is computed once per <code>Remapper</code>
+ * and reused for every band or time remapped with it.  Use
+ * {@link #getRemapper} to share remappers between callers that
+ * repeatedly ask for the same pair of geometries.</p>
+ *
+ * <p>The work is done in square tiles of the target so the navigation
+ * scratch arrays and the source rows being read stay in cache, and
+ * the tiles are processed in parallel unless
+ * {@link #setParallel(boolean)} turns that off.</p>
+ *
+ * <p>Both the source data and the output are indexed [line][element]
+ * by 'file' coordinates of their navigations; for an AREA file that
+ * means using the navigation from {@link AreaFile#getNavigation()}.
+ * Target pixels that do not navigate, or that fall
+ * outside the source image, are set to <code>Float.NaN</code>.</p>
+ *
+ * <pre><code>
+ *  AreaFile af = new AreaFile("AREA0001");
+ *  Remapper remapper = Remapper.getRemapper(af.getNavigation(),
+ *      af.getAreaDirectory().getLines(), af.getAreaDirectory().getElements(),
+ *      rectNav, 600, 800);
+ *  float[][] remapped = remapper.remap(af, 0, Remapper.BILINEAR);
+ * </code></pre>
+ */
+public class Remapper {
+
+  /** Use the value of the source pixel nearest the target pixel centre */
+  public static final int NEAREST = 0;
+
+  /** Interpolate between the four source pixels around the target centre */
+  public static final int BILINEAR = 1;
+
+  /** Average the source pixels that fall inside the target pixel */
+  public static final int AREA_AVERAGE = 2;
+
+  /** target tile size, in lines and elements */
+  private static final int TILE_SIZE = 64;
+
+  /** maximum number of remappers kept by getRemapper */
+  private static final int CACHE_SIZE = 8;
+
+  /** getRemapper cache, least recently used entries dropped first */
+  private static final GridSupport.Cache<Key, Remapper> cache =
+    new GridSupport.Cache<Key, Remapper>(CACHE_SIZE, true);
+
+  private final AREAnav source;
+  private final AREAnav target;
+  private final int sourceLines;
+  private final int sourceElements;
+  private final int targetLines;
+  private final int targetElements;
+
+  private boolean parallel = true;
+
+  // source line/element of each target pixel centre, and of each
+  // target pixel corner; built when first needed
+  private volatile float[][] centreMap;
+  private volatile float[][] cornerMap;
+
+  /**
+   * Create a remapper between two geometries.  The index maps are built
+   * from copies of both navigations, made here.
+   *
+   * @param source          navigation of the source image
+   * @param sourceLines     number of lines in the source image
+   * @param sourceElements  number of elements in the source image
+   * @param target          navigation of the target image
+   * @param targetLines     number of lines in the target image
+   * @param targetElements  number of elements in the target image
+   */
+  public Remapper(AREAnav source, int sourceLines, int sourceElements,
+                  AREAnav target, int targetLines, int targetElements) {
+    if (source == null || target == null) {
+      throw new IllegalArgumentException("navigation may not be null");
+    }
+    if (sourceLines < 1 || sourceElements < 1 ||
+        targetLines < 1 || targetElements < 1) {
+      throw new IllegalArgumentException("image sizes must be positive");
+    }
+    this.source = source.copy();
+    this.target = target.copy();
+    this.sourceLines = sourceLines;
+    this.sourceElements = sourceElements;
+    this.targetLines = targetLines;
+    this.targetElements = targetElements;
+  }
+
+  /**
+   * Get a remapper between two geometries, reusing a previously created
+   * one (and its index map) if the same pair was asked for before.
+   * Only navigations made by {@link AREAnav#makeAreaNav} can be matched
+   * up; for others a new remapper is returned every time.
+   *
+   * @param source          navigation of the source image
+   * @param sourceLines     number of lines in the source image
+   * @param sourceElements  number of elements in the source image
+   * @param target          navigation of the target image
+   * @param targetLines     number of lines in the target image
+   * @param targetElements  number of elements in the target image
+   *
+   * @return remapper for the geometries
+   */
+  public static Remapper getRemapper(AREAnav source, int sourceLines,
+                                     int sourceElements, AREAnav target,
+                                     int targetLines, int targetElements) {
+    if (source == null || target == null ||
+        !source.hasNavBlock() || !target.hasNavBlock()) {
+      return new Remapper(source, sourceLines, sourceElements,
+                          target, targetLines, targetElements);
+    }
+    Key key = new Key(source, sourceLines, sourceElements,
+                      target, targetLines, targetElements);
+    Remapper remapper = cache.get(key);
+    if (remapper != null) return remapper;
+    remapper = new Remapper(source, sourceLines, sourceElements,
+                            target, targetLines, targetElements);
+    return cache.putIfAbsent(key, remapper);
+  }
+
+  /**
+   * Drop the remappers kept by {@link #getRemapper}.  Remappers already
+   * handed out keep their index maps.
+   */
+  public static void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * Set whether target tiles are processed in parallel.  The default
+   * is <code>true</code>.
+   *
+   * @param parallel <code>true</code> to use multiple threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get whether target tiles are processed in parallel.
+   *
+   * @return <code>true</code> if multiple threads are used
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Get the source coordinates of every target pixel centre.  The
+   * returned array is shared, do not modify it.
+   *
+   * @return array[2][targetLines*targetElements] where
+   *         [AREAnav.indexLine][] are source lines and
+   *         [AREAnav.indexEle][] source elements, row by row.  Pixels that
+   *         do not navigate are <code>Float.NaN</code>.
+   */
+  public float[][] getIndexMap() {
+    float[][] map = centreMap;
+    if (map == null) {
+      synchronized (this) {
+        map = centreMap;
+        if (map == null) {
+          map = buildMap(0.0, targetLines, targetElements);
+          centreMap = map;
+        }
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Remap one band of an AREA file.
+   *
+   * @param area       the source AREA file
+   * @param bandIndex  index of the band in {@link AreaFile#getFloatData()};
+   *                   only that band is calibrated
+   * @param method     one of {@link #NEAREST}, {@link #BILINEAR} or
+   *                   {@link #AREA_AVERAGE}
+   *
+   * @return data[targetLines][targetElements]
+   *
+   * @throws AreaFileException if the data can't be read
+   */
+  public float[][] remap(AreaFile area, int bandIndex, int method)
+      throws AreaFileException {
+    return remap(area.getFloatData(bandIndex), method);
+  }
+
+  /**
+   * Remap an image.
+   *
+   * @param data    source data[sourceLines][sourceElements]
+   * @param method  one of {@link #NEAREST}, {@link #BILINEAR} or
+   *                {@link #AREA_AVERAGE}
+   *
+   * @return data[targetLines][targetElements]
+   */
+  public float[][] remap(float[][] data, int method) {
+    float[][] out = new float[targetLines][targetElements];
+    remap(data, method, out);
+    return out;
+  }
+
+  /**
+   * Remap an image into a caller supplied array.
+   *
+   * @param data    source data[sourceLines][sourceElements]
+   * @param method  one of {@link #NEAREST}, {@link #BILINEAR} or
+   *                {@link #AREA_AVERAGE}
+   * @param out     output array[targetLines][targetElements]
+   */
+  public void remap(final float[][] data, final int method,
+                    final float[][] out) {
+    if (method != NEAREST && method != BILINEAR && method != AREA_AVERAGE) {
+      throw new IllegalArgumentException("Unknown remap method " + method);
+    }
+    if (data.length < sourceLines || data[0].length < sourceElements) {
+      throw new IllegalArgumentException("source data is too small");
+    }
+    if (out.length < targetLines || out[0].length < targetElements) {
+      throw new IllegalArgumentException("output array is too small");
+    }
+    final float[][] centres = getIndexMap();
+    final float[][] corners = (method == AREA_AVERAGE) ? getCornerMap() : null;
+    final int tileCols = (targetElements + TILE_SIZE - 1) / TILE_SIZE;
+    int tiles = tileCols * ((targetLines + TILE_SIZE - 1) / TILE_SIZE);
+
+    GridSupport.forEach(tiles, parallel, tile -> {
+      int line0 = (tile / tileCols) * TILE_SIZE;
+      int ele0 = (tile % tileCols) * TILE_SIZE;
+      int line1 = Math.min(line0 + TILE_SIZE, targetLines);
+      int ele1 = Math.min(ele0 + TILE_SIZE, targetElements);
+      for (int line = line0; line < line1; line++) {
+        float[] row = out[line];
+        for (int ele = ele0; ele < ele1; ele++) {
+          int index = line * targetElements + ele;
+          double sline = centres[source.indexLine][index];
+          double sele = centres[source.indexEle][index];
+          float value;
+          if (method == NEAREST) {
+            value = nearest(data, sline, sele);
+          } else if (method == BILINEAR) {
+            value = bilinear(data, sline, sele);
+          } else {
+            value = average(data, corners, line, ele, sline, sele);
+          }
+          row[ele] = value;
+        }
+      }
+    });
+  }
+
+  /** get the source coordinates of the target pixel corners */
+  private float[][] getCornerMap() {
+    float[][] map = cornerMap;
+    if (map == null) {
+      synchronized (this) {
+        map = cornerMap;
+        if (map == null) {
+          map = buildMap(-0.5, targetLines + 1, targetElements + 1);
+          cornerMap = map;
+        }
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Navigate a grid of target points, starting at (shift, shift), to
+   * source coordinates, one tile at a time.
+   */
+  private float[][] buildMap(final double shift, final int lines,
+                             final int elements) {
+    final float[][] map = new float[2][lines * elements];
+    final int tileCols = (elements + TILE_SIZE - 1) / TILE_SIZE;
+    int tiles = tileCols * ((lines + TILE_SIZE - 1) / TILE_SIZE);
+
+    GridSupport.forEach(tiles, parallel, tile -> {
+      // each tile gets its own navigation copies and scratch array,
+      // so no navigation state is shared between threads
+      AREAnav src = source.copy();
+      AREAnav tgt = target.copy();
+      double[][] points = new double[2][TILE_SIZE * TILE_SIZE];
+      double[] pointLines = points[tgt.indexLine];
+      double[] pointEles = points[tgt.indexEle];
+      int line0 = (tile / tileCols) * TILE_SIZE;
+      int ele0 = (tile % tileCols) * TILE_SIZE;
+      int line1 = Math.min(line0 + TILE_SIZE, lines);
+      int ele1 = Math.min(ele0 + TILE_SIZE, elements);
+      int count = 0;
+      for (int line = line0; line < line1; line++) {
+        for (int ele = ele0; ele < ele1; ele++) {
+          pointLines[count] = line + shift;
+          pointEles[count] = ele + shift;
+          count++;
+        }
+      }
+      tgt.toLatLon(points, points, 0, count);
+      src.toLinEle(points, points, 0, count);
+      count = 0;
+      for (int line = line0; line < line1; line++) {
+        for (int ele = ele0; ele < ele1; ele++) {
+          int index = line * elements + ele;
+          map[src.indexLine][index] = (float) points[src.indexLine][count];
+          map[src.indexEle][index] = (float) points[src.indexEle][count];
+          count++;
+        }
+      }
+    });
+    return map;
+  }
+
+  /** value of the source pixel nearest a source position */
+  private float nearest(float[][] data, double line, double ele) {
+    // NaN fails both tests
+    if (!(line > -0.5 && line < sourceLines - 0.5) ||
+        !(ele > -0.5 && ele < sourceElements - 0.5)) {
+      return Float.NaN;
+    }
+    return data[(int) (line + 0.5)][(int) (ele + 0.5)];
+  }
+
+  /**
+   * bilinear interpolation at a source position; falls back to the
+   * nearest pixel at the image edges or next to missing values
+   */
+  private float bilinear(float[][] data, double line, double ele) {
+    if (!(line >= 0 && line <= sourceLines - 1) ||
+        !(ele >= 0 && ele <= sourceElements - 1)) {
+      return nearest(data, line, ele);
+    }
+    int l0 = (int) line;
+    int e0 = (int) ele;
+    int l1 = Math.min(l0 + 1, sourceLines - 1);
+    int e1 = Math.min(e0 + 1, sourceElements - 1);
+    float v00 = data[l0][e0];
+    float v01 = data[l0][e1];
+    float v10 = data[l1][e0];
+    float v11 = data[l1][e1];
+    if (Float.isNaN(v00) || Float.isNaN(v01) ||
+        Float.isNaN(v10) || Float.isNaN(v11)) {
+      return nearest(data, line, ele);
+    }
+    double fl = line - l0;
+    double fe = ele - e0;
+    double top = v00 + fe * (v01 - v00);
+    double bottom = v10 + fe * (v11 - v10);
+    return (float) (top + fl * (bottom - top));
+  }
+
+  /**
+   * mean of the source pixels whose centres fall inside the footprint
+   * of a target pixel; falls back to the nearest pixel when the
+   * footprint is off the earth or smaller than a source pixel, and to
+   * bilinear interpolation when its corners are more than half the
+   * source apart, as happens across the longitude seam of a global
+   * source, where the box around them is not the footprint
+   */
+  private float average(float[][] data, float[][] corners,
+                        int line, int ele, double sline, double sele) {
+    float[] cornerLines = corners[source.indexLine];
+    float[] cornerEles = corners[source.indexEle];
+    int cols = targetElements + 1;
+    int c00 = line * cols + ele;
+    int c10 = c00 + cols;
+    double l00 = cornerLines[c00];
+    double l01 = cornerLines[c00 + 1];
+    double l10 = cornerLines[c10];
+    double l11 = cornerLines[c10 + 1];
+    double e00 = cornerEles[c00];
+    double e01 = cornerEles[c00 + 1];
+    double e10 = cornerEles[c10];
+    double e11 = cornerEles[c10 + 1];
+    // NaN propagates through the sum
+    if (Double.isNaN(l00 + l01 + l10 + l11 + e00 + e01 + e10 + e11)) {
+      return nearest(data, sline, sele);
+    }
+    double lmin = Math.min(Math.min(l00, l01), Math.min(l10, l11));
+    double lmax = Math.max(Math.max(l00, l01), Math.max(l10, l11));
+    double emin = Math.min(Math.min(e00, e01), Math.min(e10, e11));
+    double emax = Math.max(Math.max(e00, e01), Math.max(e10, e11));
+    if (lmax - lmin > 0.5 * sourceLines ||
+        emax - emin > 0.5 * sourceElements) {
+      return bilinear(data, sline, sele);
+    }
+    int lfirst = Math.max(0, (int) Math.ceil(lmin));
+    int llast = Math.min(sourceLines - 1, (int) Math.floor(lmax));
+    int efirst = Math.max(0, (int) Math.ceil(emin));
+    int elast = Math.min(sourceElements - 1, (int) Math.floor(emax));
+    double sum = 0.0;
+    int count = 0;
+    for (int l = lfirst; l <= llast; l++) {
+      float[] row = data[l];
+      for (int e = efirst; e <= elast; e++) {
+        float value = row[e];
+        if (!Float.isNaN(value)) {
+          sum += value;
+          count++;
+        }
+      }
+    }
+    return (count == 0) ? nearest(data, sline, sele) : (float) (sum / count);
+  }
+
+  /**
+   * getRemapper cache key: the two geometries.  It keeps its own
+   * navigation copies, not the remapper, so remappers and their index
+   * maps stay only softly reachable from the cache.
+   */
+  private static final class Key {
+
+    private final AREAnav source;
+    private final AREAnav target;
+    private final int sourceLines;
+    private final int sourceElements;
+    private final int targetLines;
+    private final int targetElements;
+
+    Key(AREAnav source, int sourceLines, int sourceElements,
+        AREAnav target, int targetLines, int targetElements) {
+      this.source = source.copy();
+      this.target = target.copy();
+      this.sourceLines = sourceLines;
+      this.sourceElements = sourceElements;
+      this.targetLines = targetLines;
+      this.targetElements = targetElements;
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return sourceLines == other.sourceLines &&
+             sourceElements == other.sourceElements &&
+             targetLines == other.targetLines &&
+             targetElements == other.targetElements &&
+             source.equals(other.source) &&
+             target.equals(other.target);
+    }
+
+    public int hashCode() {
+      int hash = source.hashCode();
+      hash = 31*hash + target.hashCode();
+      hash = 31*hash + sourceLines;
+      hash = 31*hash + sourceElements;
+      hash = 31*hash + targetLines;
+      return 31*hash + targetElements;
+    }
+  }
+}
@@ -65,103 +65,101 @@ public final class SINUnav extends AREAnav {
      */
    }
 
-   public double[][] toLatLon(double[][] linele) {
-     
-     double xlin, xele, xldif, xedif, xdis, ylat, ylon;
-
-     int number = linele[0].length;
-
-     double[][] latlon = new double[2][number];
-     double[][] imglinele = areaCoordToImageCoord(linele);
+   /** Determine if longitudes are positive East
+    *
+    * @return  true if positive East, false if positive West
+    */
+   public boolean isEastPositive() {
+     return isEastPositive;
+   }
 
-     for (int point=0; point < number; point++ ){
+   public double[][] toLatLon(double[][] linele) {
 
-       xlin = imglinele[indexLine][point];
-       xele = imglinele[indexEle][point];
+     double[][] latlon = new double[2][linele[0].length];
+     toLatLon(linele, latlon);
+     return latlon;
 
-       xldif = xrow - xlin;
-       xedif = xcol - xele;
-       xdis = Math.sqrt(xldif*xldif + xedif*xedif);
-       if (xdis > .001) {
-         double xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
-         double xange = Math.atan2(xldif,xedif) + 90.*DEGREES_TO_RADIANS;
-         xldif = xdis*Math.cos(xangl);
-         xedif = xdis*Math.sin(xange);
-       }
+   }
 
-       ylat = xlat + xldif/xblat;
-       ylon = iwest * xedif/xblon/Math.cos(ylat*DEGREES_TO_RADIANS);
+   protected void imageToLatLon(double xlin, double xele,
+                                double[] lats, int latIndex,
+                                double[] lons, int lonIndex) {
+     
+     double xldif, xedif, xdis, ylat, ylon;
+
+     xldif = xrow - xlin;
+     xedif = xcol - xele;
+     xdis = Math.sqrt(xldif*xldif + xedif*xedif);
+     if (xdis > .001) {
+       double xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
+       double xange = Math.atan2(xldif,xedif) + 90.*DEGREES_TO_RADIANS;
+       xldif = xdis*Math.cos(xangl);
+       xedif = xdis*Math.sin(xange);
+     }
 
-       if (Math.abs(ylon) > 180.0) {
-         latlon[indexLat][point] = Double.NaN;
-         latlon[indexLon][point] = Double.NaN;
+     ylat = xlat + xldif/xblat;
+     ylon = iwest * xedif/xblon/Math.cos(ylat*DEGREES_TO_RADIANS);
 
-       } else {
-       
-         ylon = xlon + ylon;
-         if (ylon < -180.0) {
-           ylon = ylon + 360.0;
-         } else if (ylon > 180.0) {
-           ylon = ylon - 360.0;
-         }
+     if (Math.abs(ylon) > 180.0) {
+       lats[latIndex] = Double.NaN;
+       lons[lonIndex] = Double.NaN;
 
-         if (Math.abs(ylat) > 90.0 || Math.abs(ylon) > 180.0) {
-           latlon[indexLat][point] = Double.NaN;
-           latlon[indexLon][point] = Double.NaN;
-         }
-
-         if (isEastPositive) ylon = -ylon;
-
-         latlon[indexLat][point] = ylat;
-         latlon[indexLon][point] = ylon;
+     } else {
+     
+       ylon = xlon + ylon;
+       if (ylon < -180.0) {
+         ylon = ylon + 360.0;
+       } else if (ylon > 180.0) {
+         ylon = ylon - 360.0;
        }
 
-     }
+       if (isEastPositive) ylon = -ylon;
 
-     return latlon;
+       lats[latIndex] = ylat;
+       lons[lonIndex] = ylon;
+     }
 
    }
 
 
    public double[][] toLinEle(double[][] latlon) {
-     double xdis, xele, xlin, zlat, zlon, xrlon, xrlat, xldif, xedif;
-
-     int number = latlon[0].length;
-     double[][] linele = new double[2][number];
 
-     for (int point=0; point<number; point++) {
-       zlat = latlon[indexLat][point];
-       zlon = isEastPositive
-              ?  -latlon[indexLon][point]
-              :   latlon[indexLon][point];
-       if (Double.isNaN(zlat) || Double.isNaN(zlon) ||
-          (Math.abs(zlat) > 90.) ) {
-            xele = Double.NaN;
-            xlin = Double.NaN;
-       } else {
-          xrlon = iwest*(zlon - xlon);
-          if (xrlon > 180.) xrlon = xrlon - 360.;
-          if (xrlon < -180.) xrlon = xrlon + 360.;
-          xrlat = zlat - xlat;
-          xldif = xblat*xrlat;
-          xedif = xrlon*xblon*Math.cos(zlat * DEGREES_TO_RADIANS);
-          xdis = Math.sqrt(xldif*xldif + xedif*xedif);
-          if (xdis > .001) {
-            double xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
-            double xange = Math.atan2(xldif, xedif) + 90.*DEGREES_TO_RADIANS;
-            xldif = xdis * Math.cos(xangl);
-            xedif = xdis * Math.sin(xange);
-          }
+      double[][] linele = new double[2][latlon[0].length];
+      toLinEle(latlon, linele);
+      return linele;
+   }
 
-          xlin = xrow - xldif;
-          xele = xcol - xedif;
+   protected void latLonToImage(double zlat, double lon,
+                                double[] lines, int lineIndex,
+                                double[] eles, int eleIndex) {
+     double xdis, xele, xlin, zlon, xrlon, xrlat, xldif, xedif;
+
+     zlon = isEastPositive ? -lon : lon;
+     if (Double.isNaN(zlat) || Double.isNaN(zlon) ||
+        (Math.abs(zlat) > 90.) ) {
+          xele = Double.NaN;
+          xlin = Double.NaN;
+     } else {
+        xrlon = iwest*(zlon - xlon);
+        if (xrlon > 180.) xrlon = xrlon - 360.;
+        if (xrlon < -180.) xrlon = xrlon + 360.;
+        xrlat = zlat - xlat;
+        xldif = xblat*xrlat;
+        xedif = xrlon*xblon*Math.cos(zlat * DEGREES_TO_RADIANS);
+        xdis = Math.sqrt(xldif*xldif + xedif*xedif);
+        if (xdis > .001) {
+          double xangl = Math.atan2(xldif, xedif) - 90.*DEGREES_TO_RADIANS;
+          double xange = Math.atan2(xldif, xedif) + 90.*DEGREES_TO_RADIANS;
+          xldif = xdis * Math.cos(xangl);
+          xedif = xdis * Math.sin(xange);
         }
 
-        linele[indexLine][point] = xlin;
-        linele[indexEle][point] = xele;
+        xlin = xrow - xldif;
+        xele = xcol - xedif;
       }
 
-      return imageCoordToAreaCoord(linele, linele);
+      lines[lineIndex] = xlin;
+      eles[eleIndex] = xele;
    }
 
    public float[][] toLatLon(float[][] linele) {
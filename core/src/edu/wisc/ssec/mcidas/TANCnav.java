@@ -103,6 +103,24 @@ public final class TANCnav extends AREAnav
      *
      */
     public double[][] toLatLon(double[][] linele) 
+    {
+        double[][] latlon = new double[2][linele[0].length];
+        toLatLon(linele, latlon);
+        return latlon;
+    }
+
+    /** converts a single point from image coordinates to latitude/longitude
+     *
+     * @param  xlin      image line
+     * @param  xele      image element
+     * @param  lats      array to put the latitude in
+     * @param  latIndex  index into lats
+     * @param  lons      array to put the longitude in
+     * @param  lonIndex  index into lons
+     */
+    protected void imageToLatLon(double xlin, double xele,
+                                 double[] lats, int latIndex,
+                                 double[] lons, int lonIndex)
     {
 
         double d_lin;
@@ -112,65 +130,54 @@ public final class TANCnav extends AREAnav
         double radius;
         double theta_rh;
 
-        int number = linele[0].length;
-        double[][] latlon = new double[2][number];
-
-        // Convert array to Image coordinates for computations
-        double[][] imglinele = areaCoordToImageCoord(linele);
+        d_lin = xlin - lin0;
+        d_ele = xele - ele0;
 
-        for (int point=0; point < number; point++) 
+        if ( Math.abs(d_lin) < 0.01 && Math.abs(d_ele) < 0.01)
         {
-            d_lin = imglinele[indexLine][point] - lin0;
-            d_ele = imglinele[indexEle][point] - ele0;
-
-            if ( Math.abs(d_lin) < 0.01 && Math.abs(d_ele) < 0.01)
-            {
-                radius = 0.0;
-                theta_rh = 0.0;
-            }
-            else
-            {
-                double dx = scale*(d_lin);
-                double dy = scale*(d_ele);
-                radius = Math.sqrt(dx*dx + dy*dy);
-                theta_rh = Math.atan2(dy, dx);
-            }
+            radius = 0.0;
+            theta_rh = 0.0;
+        }
+        else
+        {
+            double dx = scale*(d_lin);
+            double dy = scale*(d_ele);
+            radius = Math.sqrt(dx*dx + dy*dy);
+            theta_rh = Math.atan2(dy, dx);
+        }
 
-            // convert theta_rh to angle FROM standard longitude (theta)
-            // maintaining theta positive from positive x-axis.
-            double theta;
-            if (lat0 < 0.)
-            {
-                theta = (theta_rh <= 0.)
-                            ? Math.PI - Math.abs(theta_rh)
-                            : -1.*(Math.PI - Math.abs(theta_rh));
-            }
-            else theta = theta_rh;
+        // convert theta_rh to angle FROM standard longitude (theta)
+        // maintaining theta positive from positive x-axis.
+        double theta;
+        if (lat0 < 0.)
+        {
+            theta = (theta_rh <= 0.)
+                        ? Math.PI - Math.abs(theta_rh)
+                        : -1.*(Math.PI - Math.abs(theta_rh));
+        }
+        else theta = theta_rh;
 
-            // Apply range checking on theta to determine if point is navigable
-            if (theta <= -mxtheta || theta > mxtheta)
-            {
-                latlon[indexLat][point] = Double.NaN;
-                latlon[indexLon][point] = Double.NaN;
-            }
-            else
-            {
-                lon = lon0 + theta/coscl;
-                if (lon <= -Math.PI) lon = lon + 2.*Math.PI;
-                if (lon > Math.PI)   lon = lon - 2.*Math.PI;
-                double colat = 
-                    2.* Math.atan( 
-                        tancl2*Math.pow(radius/(Erad*tancl),1./coscl));
-
-                // convert to degrees
-                lon = lon/DEGREES_TO_RADIANS;
-                lat = 90. - colat/DEGREES_TO_RADIANS;
-                latlon[indexLat][point] = (lat0 < 0) ? -1*lat : lat;
-                latlon[indexLon][point] = lon;
-            }
+        // Apply range checking on theta to determine if point is navigable
+        if (theta <= -mxtheta || theta > mxtheta)
+        {
+            lats[latIndex] = Double.NaN;
+            lons[lonIndex] = Double.NaN;
+        }
+        else
+        {
+            lon = lon0 + theta/coscl;
+            if (lon <= -Math.PI) lon = lon + 2.*Math.PI;
+            if (lon > Math.PI)   lon = lon - 2.*Math.PI;
+            double colat = 
+                2.* Math.atan( 
+                    tancl2*Math.pow(radius/(Erad*tancl),1./coscl));
 
-        } // end point for loop
-        return latlon;
+            // convert to degrees
+            lon = lon/DEGREES_TO_RADIANS;
+            lat = 90. - colat/DEGREES_TO_RADIANS;
+            lats[latIndex] = (lat0 < 0) ? -1*lat : lat;
+            lons[lonIndex] = lon;
+        }
     }
 
     /**
@@ -186,64 +193,69 @@ public final class TANCnav extends AREAnav
      */
     public double[][] toLinEle(double[][] latlon) 
     {
-        double lon;
-        double lat;
-
-        int number = latlon[0].length;
-        double[][] linele = new double[2][number];
+        double[][] linele = new double[2][latlon[0].length];
+        toLinEle(latlon, linele);
+        return linele;
+    }
 
-        for (int point=0; point < number; point++) 
+    /**
+     * converts a single lat/long to image coordinates
+     *
+     * @param  lat       latitude
+     * @param  lon       longitude
+     * @param  lines     array to put the image line in
+     * @param  lineIndex index into lines
+     * @param  eles      array to put the image element in
+     * @param  eleIndex  index into eles
+     */
+    protected void latLonToImage(double lat, double lon,
+                                 double[] lines, int lineIndex,
+                                 double[] eles, int eleIndex)
+    {
+        if (lat <= -90. || lat >= 90. || lon <= -360. ||
+            lon > 360.)
         {
-            lat = latlon[indexLat][point];
-            lon = latlon[indexLon][point];
-            if (lat <= -90. || lat >= 90. || lon <= -360. ||
-                lon > 360.)
+            lines[lineIndex] = Double.NaN;
+            eles[eleIndex]  = Double.NaN;
+        }
+        else
+        {
+            double colat = 
+               (lat0 < 0) 
+                   ? Math.PI/2. + DEGREES_TO_RADIANS*lat
+                   : Math.PI/2. - DEGREES_TO_RADIANS*lat;
+            double in_lon = DEGREES_TO_RADIANS*lon;
+            // map longitude into range -Pi to Pi
+            if (in_lon <= -Math.PI) in_lon = in_lon + 2.*Math.PI;
+            if (in_lon > Math.PI)   in_lon = in_lon - 2.*Math.PI;
+
+          // Now trap opposite Pole. Though a physically possible latitude,
+          // tan(colat/2) -> infinity there so it is not navigable
+            if (colat == Math.PI)
             {
-                linele[indexLine][point] = Double.NaN;
-                linele[indexEle][point]  = Double.NaN;
+                lines[lineIndex] = Double.NaN;
+                eles[eleIndex]  = Double.NaN;
             }
             else
             {
-                double colat = 
-                   (lat0 < 0) 
-                       ? Math.PI/2. + DEGREES_TO_RADIANS*lat
-                       : Math.PI/2. - DEGREES_TO_RADIANS*lat;
-                double in_lon = DEGREES_TO_RADIANS*lon;
-                // map longitude into range -Pi to Pi
-                if (in_lon <= -Math.PI) in_lon = in_lon + 2.*Math.PI;
-                if (in_lon > Math.PI)   in_lon = in_lon - 2.*Math.PI;
-
-              // Now trap opposite Pole. Though a physically possible latitude,
-              // tan(colat/2) -> infinity there so it is not navigable
-                if (colat == Math.PI)
-                {
-                    linele[indexLine][point] = Double.NaN;
-                    linele[indexEle][point]  = Double.NaN;
-                }
-                else
-                {
-                    double radius = 
-                        Erad * tancl * 
-                            Math.pow(Math.tan(colat/2.)/tancl2, coscl);
-                    double theta = in_lon-lon0;
-                    if (theta <= -Math.PI) theta = theta + 2*Math.PI;
-                    if (theta > Math.PI)   theta = theta - 2*Math.PI;
-                    theta = coscl * theta;
-
-               // Compute line and element, check for northern or southern
-               // hemisphere projection cone.  Put north pole on top of frame,
-               // south pole on bottom.  Maintain right-handed coordinate system
-               // by measuring theta positive from the positive x-axis.
-                    if (lat0 < 0) theta = Math.PI + theta;
-                    linele[indexLine][point] = 
-                        lin0 + radius*Math.cos(theta)/scale;
-                    linele[indexEle][point]  = 
-                        ele0 + radius*Math.sin(theta)/scale;
-                }
-            }
-        } // end point loop
+                double radius = 
+                    Erad * tancl * 
+                        Math.pow(Math.tan(colat/2.)/tancl2, coscl);
+                double theta = in_lon-lon0;
+                if (theta <= -Math.PI) theta = theta + 2*Math.PI;
+                if (theta > Math.PI)   theta = theta - 2*Math.PI;
+                theta = coscl * theta;
 
-        // Return in 'File' coordinates
-        return imageCoordToAreaCoord(linele, linele);
+           // Compute line and element, check for northern or southern
+           // hemisphere projection cone.  Put north pole on top of frame,
+           // south pole on bottom.  Maintain right-handed coordinate system
+           // by measuring theta positive from the positive x-axis.
+                if (lat0 < 0) theta = Math.PI + theta;
+                lines[lineIndex] = 
+                    lin0 + radius*Math.cos(theta)/scale;
+                eles[eleIndex]  = 
+                    ele0 + radius*Math.sin(theta)/scale;
+            }
+        }
     }
 }
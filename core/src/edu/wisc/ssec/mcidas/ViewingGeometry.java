@@ -0,0 +1,460 @@
+//
+// ViewingGeometry.java
+//
+
+/*
+This source file is part of the edu.wisc.ssec.mcidas package and is
+Copyright (C) 1998 - 2020 by Tom Whittaker, Tommy Jasmin, Tom Rink,
+Don Murray, James Kelly, Bill Hibbard, Dave Glowacki, Curtis Rueden
+and others.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Library General Public
+License as published by the Free Software Foundation; either
+version 2 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Library General Public License for more details.
+
+You should have received a copy of the GNU Library General Public
+License along with this library; if not, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston,
+MA 02111-1307, USA
+*/
+
+package edu.wisc.ssec.mcidas;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Sun and satellite viewing angles for every pixel of an image: solar
+ * zenith and azimuth, satellite zenith and azimuth, and the scattering
+ * angle between the sunlight and the view to the satellite.  All are in
+ * degrees; azimuths are clockwise from north, 0 to 360.
+ *
+ * <p>Pixel latitudes/longitudes come from
+ * {@link AREAnav#toLatLonGrid(double[], double[], double[][])}, done in
+ * blocks of lines that run in parallel unless
+ * {@link #setParallel(boolean)} turns that off.  The sun position is
+ * worked out once per line (once for the whole image if all lines have
+ * the same time) from the image start time plus a time step per line.
+ * The satellite is put at geostationary distance over
+ * {@link AREAnav#getSubpoint()}, its longitude and those of the pixels
+ * taken as positive West if {@link AREAnav#isEastPositive()} says so;
+ * navigations without a subpoint get <code>Float.NaN</code> satellite
+ * angles and scattering angle.  The angles are computed once, when
+ * first asked for.  Use
+ * {@link #getGeometry} to share them between callers that ask for the
+ * same navigation and time.  The geometries it keeps are only softly
+ * reachable, since a full disk needs several hundred MB for its five
+ * angle grids, so the garbage collector may drop them when memory is
+ * short; {@link #clearCache()} drops them at once.</p>
+ *
+ * <p>The sun position is the low precision one of the NOAA solar
+ * calculator (Spencer's series), good to about 0.1 degree.  The angle
+ * arrays are [line][element] in 'file' coordinates of the navigation, so
+ * they match the data arrays of an {@link AreaFile} whose navigation
+ * comes from {@link AreaFile#getNavigation()}.  Pixels that do not
+ * navigate are <code>Float.NaN</code>.</p>
+ *
+ * <pre><code>
+ *  AreaFile af = new AreaFile("AREA0001");
+ *  ViewingGeometry geometry = ViewingGeometry.getGeometry(af, 0.0);
+ *  float[][] sza = geometry.getSolarZenith();
+ * </code></pre>
+ */
+public class ViewingGeometry {
+
+  /** equatorial and polar radii of the earth (WGS84), km */
+  private static final double EQUATORIAL_RADIUS = 6378.137;
+  private static final double POLAR_RADIUS = 6356.7523;
+
+  /** distance of a geostationary satellite from the earth centre, km */
+  private static final double GEOSTATIONARY_RADIUS = 42164.16;
+
+  /** number of image lines done at a time */
+  private static final int LINE_BLOCK = 16;
+
+  /** maximum number of geometries kept by getGeometry */
+  private static final int CACHE_SIZE = 4;
+
+  /** getGeometry cache, least recently used entries dropped first */
+  private static final GridSupport.Cache<Key, ViewingGeometry> cache =
+    new GridSupport.Cache<Key, ViewingGeometry>(CACHE_SIZE, true);
+
+  private final AREAnav nav;
+  private final int lines;
+  private final int elements;
+  private final long startTime;
+  private final double lineSeconds;
+
+  private boolean parallel = true;
+
+  // solar zenith, solar azimuth, satellite zenith, satellite azimuth
+  // and scattering angle of every pixel; built when first needed
+  private volatile float[][][] angles;
+
+  /**
+   * Create the viewing geometry of an image.  A copy of the navigation is
+   * kept, so the angles are for its settings at this call.
+   *
+   * @param nav          navigation of the image
+   * @param lines        number of lines in the image
+   * @param elements     number of elements in the image
+   * @param startTime    time of line 0
+   * @param lineSeconds  seconds from one line to the next; 0 to use
+   *                     startTime for all lines
+   */
+  public ViewingGeometry(AREAnav nav, int lines, int elements,
+                         Date startTime, double lineSeconds) {
+    if (nav == null || startTime == null) {
+      throw new IllegalArgumentException(
+        "navigation and time may not be null");
+    }
+    if (lines < 1 || elements < 1) {
+      throw new IllegalArgumentException("image size must be positive");
+    }
+    this.nav = nav.copy();
+    this.lines = lines;
+    this.elements = elements;
+    this.startTime = startTime.getTime();
+    this.lineSeconds = lineSeconds;
+  }
+
+  /**
+   * Get the viewing geometry of an AREA file, reusing a previously
+   * computed one if the same navigation and time were asked for before.
+   *
+   * @param area         the AREA file
+   * @param lineSeconds  seconds from one line to the next; 0 to use
+   *                     the start time for all lines
+   *
+   * @return geometry for the file
+   *
+   * @throws AreaFileException if the navigation can't be read
+   */
+  public static ViewingGeometry getGeometry(AreaFile area,
+                                            double lineSeconds)
+      throws AreaFileException {
+    AreaDirectory dir = area.getAreaDirectory();
+    return getGeometry(area.getNavigation(), dir.getLines(),
+                       dir.getElements(), dir.getStartTime(), lineSeconds);
+  }
+
+  /**
+   * Get the viewing geometry of an image, reusing a previously computed
+   * one if the same navigation and time were asked for before.  Only
+   * navigations made by {@link AREAnav#makeAreaNav} can be matched up;
+   * for others a new geometry is returned every time.
+   *
+   * @param nav          navigation of the image
+   * @param lines        number of lines in the image
+   * @param elements     number of elements in the image
+   * @param startTime    time of line 0
+   * @param lineSeconds  seconds from one line to the next; 0 to use
+   *                     startTime for all lines
+   *
+   * @return geometry for the image
+   */
+  public static ViewingGeometry getGeometry(AREAnav nav, int lines,
+                                            int elements, Date startTime,
+                                            double lineSeconds) {
+    if (nav == null || !nav.hasNavBlock() || startTime == null) {
+      return new ViewingGeometry(nav, lines, elements, startTime,
+                                 lineSeconds);
+    }
+    Key key = new Key(nav, lines, elements, startTime.getTime(),
+                      lineSeconds);
+    ViewingGeometry geometry = cache.get(key);
+    if (geometry != null) return geometry;
+    geometry =
+      new ViewingGeometry(nav, lines, elements, startTime, lineSeconds);
+    return cache.putIfAbsent(key, geometry);
+  }
+
+  /**
+   * Drop the geometries kept by {@link #getGeometry}.  Geometries
+   * already handed out are not affected.
+   */
+  public static void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * Set whether the angles are computed in parallel.  The default is
+   * <code>true</code>.
+   *
+   * @param parallel <code>true</code> to use multiple threads
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Get whether the angles are computed in parallel.
+   *
+   * @return <code>true</code> if multiple threads are used
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Get the solar zenith angle of every pixel.  The array is shared and
+   * must not be modified.
+   *
+   * @return angle[lines][elements] in degrees
+   */
+  public float[][] getSolarZenith() {
+    return getAngles()[0];
+  }
+
+  /**
+   * Get the solar azimuth angle of every pixel.  The array is shared and
+   * must not be modified.
+   *
+   * @return angle[lines][elements] in degrees clockwise from north
+   */
+  public float[][] getSolarAzimuth() {
+    return getAngles()[1];
+  }
+
+  /**
+   * Get the satellite zenith angle of every pixel.  The array is shared
+   * and must not be modified.
+   *
+   * @return angle[lines][elements] in degrees
+   */
+  public float[][] getSatelliteZenith() {
+    return getAngles()[2];
+  }
+
+  /**
+   * Get the satellite azimuth angle of every pixel.  The array is shared
+   * and must not be modified.
+   *
+   * @return angle[lines][elements] in degrees clockwise from north
+   */
+  public float[][] getSatelliteAzimuth() {
+    return getAngles()[3];
+  }
+
+  /**
+   * Get the scattering angle of every pixel, between the direction of
+   * the sunlight and the direction from the pixel to the satellite; 180
+   * is backscatter.  The array is shared and must not be modified.
+   *
+   * @return angle[lines][elements] in degrees
+   */
+  public float[][] getScatteringAngle() {
+    return getAngles()[4];
+  }
+
+  /**
+   * Compute the point on the earth with the sun overhead.
+   *
+   * @param time  the time
+   *
+   * @return double[2] {lat, lon}, longitude east positive
+   */
+  public static double[] getSubsolarPoint(Date time) {
+    Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    cal.setTime(time);
+    double hours = cal.get(Calendar.HOUR_OF_DAY) +
+                   cal.get(Calendar.MINUTE) / 60.0 +
+                   (cal.get(Calendar.SECOND) +
+                    cal.get(Calendar.MILLISECOND) / 1000.0) / 3600.0;
+    int days = cal.getActualMaximum(Calendar.DAY_OF_YEAR);
+
+    // fractional year, radians
+    double g = 2.0 * Math.PI / days *
+               (cal.get(Calendar.DAY_OF_YEAR) - 1 + (hours - 12.0) / 24.0);
+    double decl = 0.006918 - 0.399912 * Math.cos(g) +
+                  0.070257 * Math.sin(g) - 0.006758 * Math.cos(2 * g) +
+                  0.000907 * Math.sin(2 * g) - 0.002697 * Math.cos(3 * g) +
+                  0.00148 * Math.sin(3 * g);
+    // equation of time, minutes
+    double eqtime = 229.18 * (0.000075 + 0.001868 * Math.cos(g) -
+                              0.032077 * Math.sin(g) -
+                              0.014615 * Math.cos(2 * g) -
+                              0.040849 * Math.sin(2 * g));
+    double lon = -15.0 * (hours - 12.0 + eqtime / 60.0);
+    lon = lon - 360.0 * Math.floor((lon + 180.0) / 360.0);
+    return new double[] {Math.toDegrees(decl), lon};
+  }
+
+  /** get the angles, computing them if need be */
+  private float[][][] getAngles() {
+    float[][][] result = angles;
+    if (result == null) {
+      synchronized (this) {
+        result = angles;
+        if (result == null) {
+          result = computeAngles();
+          angles = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** navigate the pixels and compute their angles */
+  private float[][][] computeAngles() {
+    final float[][][] result = new float[5][lines][elements];
+    final double[] eles = new double[elements];
+    for (int ele = 0; ele < elements; ele++) {
+      eles[ele] = ele;
+    }
+
+    // satellite position, earth centred; longitudes here are positive
+    // East, whatever the navigation uses
+    final double east = nav.isEastPositive() ? 1.0 : -1.0;
+    double[] subpoint = nav.getSubpoint();
+    final double[] sat = unitVector(subpoint[0], east * subpoint[1]);
+    for (int i = 0; i < 3; i++) sat[i] *= GEOSTATIONARY_RADIUS;
+
+    // sun direction, shared by all lines if they have the same time
+    final double[] fixedSun = (lineSeconds == 0.0)
+      ? sunVector(startTime) : null;
+
+    int nblocks = (lines + LINE_BLOCK - 1) / LINE_BLOCK;
+    GridSupport.forEach(nblocks, parallel, block -> {
+      // own navigation copy and scratch array for each block
+      AREAnav blockNav = nav.copy();
+      int first = block * LINE_BLOCK;
+      int last = Math.min(first + LINE_BLOCK, lines);
+      double[] blockLines = new double[last - first];
+      for (int line = first; line < last; line++) {
+        blockLines[line - first] = line;
+      }
+      double[][] latlon = new double[2][blockLines.length * elements];
+      blockNav.toLatLonGrid(blockLines, eles, latlon);
+      double[] lats = latlon[blockNav.indexLat];
+      double[] lons = latlon[blockNav.indexLon];
+
+      double e2 = 1.0 - (POLAR_RADIUS * POLAR_RADIUS) /
+                        (EQUATORIAL_RADIUS * EQUATORIAL_RADIUS);
+      int point = 0;
+      for (int line = first; line < last; line++) {
+        double[] sun = (fixedSun != null) ? fixedSun
+          : sunVector(startTime + Math.round(line * lineSeconds * 1000.0));
+        for (int ele = 0; ele < elements; ele++, point++) {
+          double lat = Math.toRadians(lats[point]);
+          double lon = Math.toRadians(east * lons[point]);
+          double sinLat = Math.sin(lat);
+          double cosLat = Math.cos(lat);
+          double sinLon = Math.sin(lon);
+          double cosLon = Math.cos(lon);
+
+          // local up (the ellipsoid normal), east and north
+          double ux = cosLat * cosLon;
+          double uy = cosLat * sinLon;
+          double uz = sinLat;
+          double ex = -sinLon;
+          double ey = cosLon;
+          double nx = -sinLat * cosLon;
+          double ny = -sinLat * sinLon;
+          double nz = cosLat;
+
+          double su = sun[0] * ux + sun[1] * uy + sun[2] * uz;
+          double se = sun[0] * ex + sun[1] * ey;
+          double sn = sun[0] * nx + sun[1] * ny + sun[2] * nz;
+          result[0][line][ele] = (float) Math.toDegrees(acos(su));
+          result[1][line][ele] = (float) azimuth(se, sn);
+
+          // unit vector from the pixel, on the ellipsoid, to the
+          // satellite
+          double r = EQUATORIAL_RADIUS /
+                     Math.sqrt(1.0 - e2 * sinLat * sinLat);
+          double vx = sat[0] - r * ux;
+          double vy = sat[1] - r * uy;
+          double vz = sat[2] - r * (1.0 - e2) * uz;
+          double norm = Math.sqrt(vx * vx + vy * vy + vz * vz);
+          vx /= norm;
+          vy /= norm;
+          vz /= norm;
+
+          double vu = vx * ux + vy * uy + vz * uz;
+          double ve = vx * ex + vy * ey;
+          double vn = vx * nx + vy * ny + vz * nz;
+          result[2][line][ele] = (float) Math.toDegrees(acos(vu));
+          result[3][line][ele] = (float) azimuth(ve, vn);
+          result[4][line][ele] = (float) Math.toDegrees(
+            acos(-(sun[0] * vx + sun[1] * vy + sun[2] * vz)));
+        }
+      }
+    });
+    return result;
+  }
+
+  /** earth centred unit vector towards the sun at a time */
+  private static double[] sunVector(long time) {
+    double[] subsolar = getSubsolarPoint(new Date(time));
+    return unitVector(subsolar[0], subsolar[1]);
+  }
+
+  /** earth centred unit vector for a latitude/longitude */
+  private static double[] unitVector(double lat, double lon) {
+    double rlat = Math.toRadians(lat);
+    double rlon = Math.toRadians(lon);
+    return new double[] {Math.cos(rlat) * Math.cos(rlon),
+                         Math.cos(rlat) * Math.sin(rlon),
+                         Math.sin(rlat)};
+  }
+
+  /** arc cosine, allowing for rounding just past +/-1 */
+  private static double acos(double c) {
+    return Math.acos(Math.max(-1.0, Math.min(1.0, c)));
+  }
+
+  /** azimuth in degrees clockwise from north, 0 to 360 */
+  private static double azimuth(double east, double north) {
+    double az = Math.toDegrees(Math.atan2(east, north));
+    return (az < 0.0) ? az + 360.0 : az;
+  }
+
+  /**
+   * getGeometry cache key: the navigation, image size and times.  It
+   * keeps its own navigation copy rather than the geometry, so the cache
+   * does not hold on to the geometries it keeps softly.
+   */
+  private static final class Key {
+
+    private final AREAnav nav;
+    private final int lines;
+    private final int elements;
+    private final long startTime;
+    private final double lineSeconds;
+
+    Key(AREAnav nav, int lines, int elements, long startTime,
+        double lineSeconds) {
+      this.nav = nav.copy();
+      this.lines = lines;
+      this.elements = elements;
+      this.startTime = startTime;
+      this.lineSeconds = lineSeconds;
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return lines == other.lines &&
+             elements == other.elements &&
+             startTime == other.startTime &&
+             lineSeconds == other.lineSeconds &&
+             nav.equals(other.nav);
+    }
+
+    public int hashCode() {
+      int hash = nav.hashCode();
+      hash = 31*hash + lines;
+      hash = 31*hash + elements;
+      hash = 31*hash + Long.hashCode(startTime);
+      return 31*hash + Double.hashCode(lineSeconds);
+    }
+  }
+}